@@ -0,0 +1,230 @@
+package my.structures;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Open-addressing table of fixed size slots laid out in byte buffers, shared by the
+ * off-heap maps. Each slot is [int hash][key bytes][value bytes], hash 0 marks a free
+ * slot. Keys are matched by their serialized bytes, so the key serializer must encode
+ * equal keys identically.
+ *
+ * Subclasses provide the buffers and decide what happens when the table fills up.
+ *
+ * @author mone
+ *
+ * @param <K>
+ * @param <V>
+ */
+abstract class AbstractBufferHashMap<K,V> implements AutoCloseable {
+
+	final Serializer<K> keySerializer;
+	final Serializer<V> valueSerializer;
+	final int keySize;
+	final int valueSize;
+	final int slotSize;
+	final int maxSegmentBytes;
+
+	ByteBuffer[] segments;
+	int segmentShift;
+	int segmentMask;
+
+	/** Scratch buffer the looked up key is serialized into */
+	final ByteBuffer keyBuffer;
+
+	int size = 0;
+	int threshold;
+	float loadFactor;
+	int capacity;
+	int mask;
+
+	static final int HASH_SIZE = Integer.BYTES;
+	static final int MAXIMUM_CAPACITY = 1 << 30;
+
+
+	AbstractBufferHashMap(Serializer<K> keySerializer, Serializer<V> valueSerializer, float loadFactor, int maxSegmentBytes) {
+		if(keySerializer.fixedSize() <= 0 || valueSerializer.fixedSize() < 0)
+			throw new IllegalArgumentException("Off-heap slots need fixed size keys and values");
+		if(!(loadFactor > 0 && loadFactor < 1))
+			throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+
+		this.keySerializer = keySerializer;
+		this.valueSerializer = valueSerializer;
+		this.keySize = keySerializer.fixedSize();
+		this.valueSize = valueSerializer.fixedSize();
+		this.slotSize = HASH_SIZE + keySize + valueSize;
+		this.loadFactor = loadFactor;
+		this.maxSegmentBytes = maxSegmentBytes;
+		this.keyBuffer = ByteBuffer.allocate(keySize);
+	}
+
+	public V put(K key, V value) {
+		int hash = serializeKey(key);
+		long slot = slotOf(hash);
+
+		beforeWrite();
+		if(slot >= 0) {
+			V oldValue = readValue(slot);
+			writeValue(slot, value);
+			return oldValue;
+		}
+
+		if(size >= threshold) {
+			grow();
+			slot = slotOf(hash);
+		}
+
+		slot = -slot - 1;
+		ByteBuffer segment = segments[segmentOf(slot)];
+		int offset = offsetOf(slot);
+		segment.putInt(offset, hash);
+		Buffers.copy(keyBuffer, 0, segment, offset + HASH_SIZE, keySize);
+		writeValue(slot, value);
+		size++;
+
+		return null;
+	}
+
+	public V get(K key) {
+		long slot = slotOf(serializeKey(key));
+
+		return slot >= 0 ? readValue(slot) : null;
+	}
+
+	public boolean containsKey(K key) {
+		return slotOf(serializeKey(key)) >= 0;
+	}
+
+	public V remove(K key) {
+		long slot = slotOf(serializeKey(key));
+		if(slot < 0)
+			return null;
+
+		beforeWrite();
+		V oldValue = readValue(slot);
+		shiftKeysBack(slot);
+		size--;
+
+		return oldValue;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return bytes of native memory held by the table
+	 */
+	public long memoryUsage() {
+		return (long) capacity * slotSize;
+	}
+
+	/**
+	 * Releases the buffers of the table, throwing no checked exception.
+	 */
+	@Override
+	public abstract void close();
+
+	/**
+	 * Makes room for at least one more entry or throws IllegalStateException.
+	 */
+	abstract void grow();
+
+	/**
+	 * Called before the table gets modified.
+	 */
+	void beforeWrite() {
+	}
+
+	int slotsPerSegment(int capacity) {
+		return Math.min(Integer.highestOneBit(maxSegmentBytes / slotSize), capacity);
+	}
+
+	void useSegments(ByteBuffer[] newSegments, int newCapacity) {
+		int slotsPerSegment = slotsPerSegment(newCapacity);
+		segmentShift = Integer.numberOfTrailingZeros(slotsPerSegment);
+		segmentMask = slotsPerSegment - 1;
+		segments = newSegments;
+		capacity = newCapacity;
+		mask = newCapacity - 1;
+		threshold = Math.min((int) (newCapacity * loadFactor), newCapacity - 1);
+	}
+
+	void freeSegments() {
+		if(segments == null)
+			return;
+		for(ByteBuffer segment : segments)
+			Buffers.free(segment);
+		segments = null;
+	}
+
+	private int serializeKey(K key) {
+		if(segments == null)
+			throw new IllegalStateException("Map is closed");
+
+		keyBuffer.clear();
+		keySerializer.write(key, keyBuffer);
+		int hash = Buffers.hash(keyBuffer, 0, keySize);
+		return hash == 0 ? 1 : hash;
+	}
+
+	/**
+	 * @return slot holding the serialized key or (-(free slot) - 1) if key is absent
+	 */
+	private long slotOf(int hash) {
+		long slot = hash & mask;
+		for(;;) {
+			ByteBuffer segment = segments[segmentOf(slot)];
+			int offset = offsetOf(slot);
+			int slotHash = segment.getInt(offset);
+			if(slotHash == 0)
+				return -slot - 1;
+			if(slotHash == hash && Buffers.equals(segment, offset + HASH_SIZE, keyBuffer, 0, keySize))
+				return slot;
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	private V readValue(long slot) {
+		ByteBuffer segment = segments[segmentOf(slot)];
+		segment.position(offsetOf(slot) + HASH_SIZE + keySize);
+		return valueSerializer.read(segment);
+	}
+
+	private void writeValue(long slot, V value) {
+		ByteBuffer segment = segments[segmentOf(slot)];
+		segment.position(offsetOf(slot) + HASH_SIZE + keySize);
+		valueSerializer.write(value, segment);
+	}
+
+	private void shiftKeysBack(long pos) {
+		long last, home;
+		for(;;) {
+			pos = ((last = pos) + 1) & mask;
+			for(;;) {
+				int hash = hashAt(pos);
+				if(hash == 0) {
+					segments[segmentOf(last)].putInt(offsetOf(last), 0);
+					return;
+				}
+				home = hash & mask;
+				if(last <= pos ? last >= home || home > pos : last >= home && home > pos)
+					break;
+				pos = (pos + 1) & mask;
+			}
+			Buffers.copy(segments[segmentOf(pos)], offsetOf(pos), segments[segmentOf(last)], offsetOf(last), slotSize);
+		}
+	}
+
+	int hashAt(long slot) {
+		return segments[segmentOf(slot)].getInt(offsetOf(slot));
+	}
+
+	int segmentOf(long slot) {
+		return (int) (slot >>> segmentShift);
+	}
+
+	int offsetOf(long slot) {
+		return (int) (slot & segmentMask) * slotSize;
+	}
+
+}
@@ -0,0 +1,279 @@
+package my.structures;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import my.structures.HashMap.Entry;
+
+/**
+ * Multimap keeping the values of each key in the value of its {@link HashMap} entry, without
+ * a collection object per key: a key of a single value holds that value itself, a key of
+ * several values an Object[] filled from its start and padded with nulls, grown by half its
+ * length when full. Subclasses may hold values otherwise once a key has many of them.
+ *
+ * Values cannot be null, nulls marking the unused end of the arrays. A value that is itself
+ * an Object[] is always held in an array, so that the two cases cannot be confused.
+ *
+ * @author mone
+ *
+ * @param <K>
+ * @param <V>
+ */
+abstract class AbstractMultimap<K,V> {
+
+	final HashMap<K, Object> map;
+	/** Number of values of all keys */
+	int size;
+
+
+	AbstractMultimap(HashMap<K, Object> map) {
+		this.map = map;
+	}
+
+	/**
+	 * @return number of values of all keys
+	 */
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return number of keys having at least one value
+	 */
+	public int keyCount() {
+		return map.size;
+	}
+
+	public boolean containsKey(K key) {
+		return map.containsKey(key);
+	}
+
+	public boolean containsEntry(K key, V value) {
+		Entry<K, Object> entry = map.getEntry(key);
+		return entry != null && indexOf(entry.getValue(), value) >= 0;
+	}
+
+	/**
+	 * @return number of values of key
+	 */
+	public int valueCount(K key) {
+		Entry<K, Object> entry = map.getEntry(key);
+		return entry != null ? count(entry.getValue()) : 0;
+	}
+
+	/**
+	 * Adds value to the values of key.
+	 *
+	 * @return true if the multimap changed
+	 */
+	public boolean put(K key, V value) {
+		if(value == null)
+			throw new IllegalArgumentException("Null value for key " + key);
+
+		Entry<K, Object> entry = map.getEntry(key);
+		if(entry == null) {
+			map.put(key, value.getClass() == Object[].class ? new Object[] { value } : value);
+			size++;
+			return true;
+		}
+
+		Object values = add(entry.getValue(), value);
+		if(values == null)
+			return false;
+		entry.setValue(values);
+		size++;
+		return true;
+	}
+
+	/**
+	 * @return true if the multimap changed
+	 */
+	public boolean putAll(K key, Iterable<? extends V> values) {
+		boolean changed = false;
+		for(V value : values)
+			changed |= put(key, value);
+		return changed;
+	}
+
+	/**
+	 * Removes one occurrence of value from the values of key.
+	 *
+	 * @return true if the multimap changed
+	 */
+	public boolean remove(K key, V value) {
+		Entry<K, Object> entry = map.getEntry(key);
+		if(entry == null)
+			return false;
+
+		int index = indexOf(entry.getValue(), value);
+		if(index < 0)
+			return false;
+
+		size--;
+		Object values = remove(entry.getValue(), index, value);
+		if(values == null)
+			map.remove(key);
+		else
+			entry.setValue(values);
+		return true;
+	}
+
+	/**
+	 * Removes key with all its values.
+	 *
+	 * @return number of values removed
+	 */
+	public int removeAll(K key) {
+		Entry<K, Object> entry = map.getEntry(key);
+		if(entry == null)
+			return 0;
+
+		int count = count(entry.getValue());
+		map.remove(key);
+		size -= count;
+		return count;
+	}
+
+	/**
+	 * Passes the values of key to action, without copying them.
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEach(K key, Consumer<? super V> action) {
+		Entry<K, Object> entry = map.getEntry(key);
+		if(entry != null)
+			forEachValue(entry.getValue(), (Consumer<Object>) action);
+	}
+
+	@SuppressWarnings("unchecked")
+	public void forEach(BiConsumer<? super K, ? super V> action) {
+		map.forEach((key, values) -> forEachValue(values, value -> action.accept(key, (V) value)));
+	}
+
+	/**
+	 * @return read-only view of the keys having at least one value
+	 */
+	public Set<K> keySet() {
+		return Collections.unmodifiableSet(map.keySet());
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("{");
+		map.forEach((key, values) -> {
+			if(builder.length() > 1)
+				builder.append(", ");
+			builder.append(key).append("=[");
+			int length = builder.length();
+			forEachValue(values, value -> {
+				if(builder.length() > length)
+					builder.append(", ");
+				builder.append(value);
+			});
+			builder.append(']');
+		});
+		return builder.append('}').toString();
+	}
+
+	/**
+	 * @return values with value added, null if value is not to be added
+	 */
+	abstract Object add(Object values, V value);
+
+	/**
+	 * @return index of value among values, -1 if missing
+	 */
+	abstract int indexOf(Object values, Object value);
+
+	/**
+	 * @param index of value, as returned by indexOf
+	 * @return values without value, null if it was the last one
+	 */
+	abstract Object remove(Object values, int index, Object value);
+
+	abstract int count(Object values);
+
+	abstract void forEachValue(Object values, Consumer<Object> action);
+
+	static boolean isArray(Object values) {
+		return values.getClass() == Object[].class;
+	}
+
+	/**
+	 * @return number of values in an array padded with nulls
+	 */
+	static int countOf(Object[] values) {
+		int low = 0;
+		int high = values.length;
+		while(low < high) {
+			int middle = (low + high) >>> 1;
+			if(values[middle] != null)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		return low;
+	}
+
+	static Object[] append(Object values, Object value) {
+		if(!isArray(values))
+			return new Object[] { values, value };
+
+		Object[] array = (Object[]) values;
+		int count = countOf(array);
+		if(count == array.length)
+			array = Arrays.copyOf(array, count + (count >> 1) + 1);
+		array[count] = value;
+		return array;
+	}
+
+	static int indexOfInArray(Object values, Object value) {
+		if(!isArray(values))
+			return values.equals(value) ? 0 : -1;
+
+		Object[] array = (Object[]) values;
+		for(int i = 0; i < array.length && array[i] != null; i++) {
+			if(array[i].equals(value))
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return values without the one at index, a single value left on its own, null if none is left
+	 */
+	static Object removeFromArray(Object values, int index) {
+		if(!isArray(values))
+			return null;
+
+		Object[] array = (Object[]) values;
+		int count = countOf(array);
+		System.arraycopy(array, index + 1, array, index, count - index - 1);
+		array[count - 1] = null;
+		if(count == 2 && !isArray(array[0]))
+			return array[0];
+		return count > 1 ? array : null;
+	}
+
+	static int countInArray(Object values) {
+		return isArray(values) ? countOf((Object[]) values) : 1;
+	}
+
+	static void forEachInArray(Object values, Consumer<Object> action) {
+		if(!isArray(values)) {
+			action.accept(values);
+			return;
+		}
+
+		Object[] array = (Object[]) values;
+		for(int i = 0; i < array.length && array[i] != null; i++)
+			action.accept(array[i]);
+	}
+
+}
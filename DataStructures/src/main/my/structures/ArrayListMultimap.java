@@ -0,0 +1,104 @@
+package my.structures;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Multimap keeping the values of each key in insertion order, duplicates included, in a
+ * compact array per key.
+ *
+ * @author mone
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class ArrayListMultimap<K,V> extends AbstractMultimap<K,V> {
+
+	public ArrayListMultimap() {
+		super(new HashMap<>());
+	}
+
+	public ArrayListMultimap(HashStrategy<? super K> hashStrategy) {
+		super(new HashMap<>(hashStrategy));
+	}
+
+	/**
+	 * @see HashMap#HashMap(int, float, HashStrategy, boolean)
+	 */
+	public ArrayListMultimap(int initialCapacity, float loadFactor, HashStrategy<? super K> hashStrategy, boolean incrementalResize) {
+		super(new HashMap<>(initialCapacity, loadFactor, hashStrategy, incrementalResize));
+	}
+
+	/**
+	 * @return copy of the values of key, empty if there are none
+	 */
+	@SuppressWarnings("unchecked")
+	public List<V> get(K key) {
+		HashMap.Entry<K, Object> entry = map.getEntry(key);
+		if(entry == null)
+			return Collections.emptyList();
+		if(!isArray(entry.getValue()))
+			return Collections.singletonList((V) entry.getValue());
+
+		Object[] values = (Object[]) entry.getValue();
+		return (List<V>) Collections.unmodifiableList(Arrays.asList(Arrays.copyOf(values, countOf(values))));
+	}
+
+	/**
+	 * @return index-th value of key
+	 * @throws IndexOutOfBoundsException if key has no more than index values
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(K key, int index) {
+		int count = valueCount(key);
+		if(index < 0 || index >= count)
+			throw new IndexOutOfBoundsException("Index " + index + " out of " + count + " values of key " + key);
+
+		Object values = map.getEntry(key).getValue();
+		return (V) (isArray(values) ? ((Object[]) values)[index] : values);
+	}
+
+	/**
+	 * Shrinks the value arrays to their number of values, then the table to the number of keys.
+	 */
+	public void trimToSize() {
+		for(java.util.Map.Entry<K, Object> entry : map.entrySet()) {
+			Object values = entry.getValue();
+			if(isArray(values)) {
+				Object[] array = (Object[]) values;
+				int count = countOf(array);
+				if(count < array.length)
+					entry.setValue(Arrays.copyOf(array, count));
+			}
+		}
+		map.trimToSize();
+	}
+
+	@Override
+	Object add(Object values, V value) {
+		return append(values, value);
+	}
+
+	@Override
+	int indexOf(Object values, Object value) {
+		return indexOfInArray(values, value);
+	}
+
+	@Override
+	Object remove(Object values, int index, Object value) {
+		return removeFromArray(values, index);
+	}
+
+	@Override
+	int count(Object values) {
+		return countInArray(values);
+	}
+
+	@Override
+	void forEachValue(Object values, Consumer<Object> action) {
+		forEachInArray(values, action);
+	}
+
+}
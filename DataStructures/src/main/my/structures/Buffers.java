@@ -0,0 +1,86 @@
+package my.structures;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * Helpers for the direct and mapped buffers backing the off-heap maps.
+ *
+ * @author mone
+ *
+ */
+final class Buffers {
+
+	/** Largest segment allocated at once, buffers are int indexed */
+	static final int MAX_SEGMENT_BYTES = 1 << 30;
+
+	private static final Object UNSAFE;
+	private static final Method INVOKE_CLEANER;
+
+	static {
+		Object unsafe = null;
+		Method invokeCleaner = null;
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field field = unsafeClass.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			unsafe = field.get(null);
+			invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+		} catch(Exception e) {
+			// pre Java 9 or restricted runtime, memory is released once the buffer gets collected
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+	}
+
+	private Buffers() {
+	}
+
+	/**
+	 * Releases the native memory of a direct or mapped buffer right away when the runtime
+	 * allows it. The buffer must not be accessed afterwards.
+	 */
+	static void free(ByteBuffer buffer) {
+		if(buffer == null || !buffer.isDirect() || INVOKE_CLEANER == null)
+			return;
+		try {
+			INVOKE_CLEANER.invoke(UNSAFE, buffer);
+		} catch(Exception e) {
+			// left to the garbage collector
+		}
+	}
+
+	static void copy(ByteBuffer from, int fromOffset, ByteBuffer to, int toOffset, int length) {
+		int i = 0;
+		for(; i + Long.BYTES <= length; i += Long.BYTES)
+			to.putLong(toOffset + i, from.getLong(fromOffset + i));
+		for(; i < length; i++)
+			to.put(toOffset + i, from.get(fromOffset + i));
+	}
+
+	static boolean equals(ByteBuffer a, int aOffset, ByteBuffer b, int bOffset, int length) {
+		int i = 0;
+		for(; i + Long.BYTES <= length; i += Long.BYTES)
+			if(a.getLong(aOffset + i) != b.getLong(bOffset + i))
+				return false;
+		for(; i < length; i++)
+			if(a.get(aOffset + i) != b.get(bOffset + i))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Hash of length bytes at offset, stable across runs unlike most hashCode() implementations.
+	 */
+	static int hash(ByteBuffer buffer, int offset, int length) {
+		long h = length;
+		int i = 0;
+		for(; i + Long.BYTES <= length; i += Long.BYTES)
+			h = Long.rotateLeft((h ^ buffer.getLong(offset + i)) * 0x9E3779B97F4A7C15L, 31);
+		for(; i < length; i++)
+			h = (h ^ buffer.get(offset + i)) * 0x9E3779B97F4A7C15L;
+		return Hashing.murmur3(h);
+	}
+
+}
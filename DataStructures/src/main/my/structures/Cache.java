@@ -0,0 +1,701 @@
+package my.structures;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * {@link HashMap} bounded in number of entries and/or total weight. Once a put exceeds a
+ * limit, entries chosen by the {@link EvictionPolicy} are removed and passed to the
+ * eviction listener.
+ *
+ * The policies keep their queues as doubly linked lists threaded through the entries
+ * themselves, so keeping track of accesses allocates nothing and memory stays flat once
+ * the cache is full. get() counts as an access, containsKey() and the views do not.
+ *
+ * Entries may also expire a fixed time after being written and/or last accessed, or after a
+ * time to live given to put. Expirations are kept in a {@link TimerWheel}, which get, put,
+ * remove and cleanUp advance to remove the entries due, at O(1) amortized per entry. get,
+ * containsKey and remove check the entry they find as well, so they never return an expired
+ * mapping; size() and the views may still count expired entries until they are cleaned up.
+ * Expired entries are passed to the eviction listener too.
+ *
+ * The cache is not thread safe.
+ *
+ * @author mone
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class Cache<K,V> extends HashMap<K,V> {
+
+	public enum EvictionPolicy {
+		/** Evicts the least recently used entry */
+		LRU,
+		/**
+		 * Evicts the least frequently used of the few least recently used entries, Redis style,
+		 * frequencies being estimated by a decaying sketch
+		 */
+		LFU,
+		/**
+		 * Window TinyLFU: new entries go through a small LRU window, then compete to enter a
+		 * segmented LRU main space where they are admitted only if used more often than the
+		 * entry they would evict. Resists scans while adapting to recency.
+		 */
+		W_TINY_LFU
+	}
+
+	public interface Weigher<K,V> {
+		int weigh(K key, V value);
+	}
+
+	/**
+	 * Source of nanosecond time, only differences between two reads are meaningful.
+	 */
+	public interface Ticker {
+		Ticker SYSTEM = System::nanoTime;
+
+		long read();
+	}
+
+	/** Least recently used entries looked at by LFU to pick a victim */
+	static final int LFU_SAMPLE_SIZE = 5;
+	/** Share of the capacity given to the W-TinyLFU window, in percent */
+	static final int WINDOW_PERCENT = 1;
+	/** Share of the W-TinyLFU main space given to its protected segment, in percent */
+	static final int PROTECTED_PERCENT = 80;
+	/** Longest expiry in nanoseconds, about 146 years, so that expiration times do not overflow */
+	static final long MAXIMUM_EXPIRY = Long.MAX_VALUE >>> 1;
+
+	final long maximumSize;
+	final long maximumWeight;
+	final Weigher<? super K, ? super V> weigher;
+	final BiConsumer<? super K, ? super V> evictionListener;
+	final Policy<K,V> policy;
+
+	long weight;
+	/** Entry heavier than maximumWeight on its own, evicted before any other */
+	CacheEntry<K,V> oversized;
+
+	/** Nanoseconds entries live after being written, negative for no limit */
+	long expireAfterWriteNanos = -1;
+	/** Nanoseconds entries live after being accessed, negative for no limit */
+	long expireAfterAccessNanos = -1;
+	/** Time to live of the mapping being put, given to put(key, value, duration, unit) */
+	long putWriteNanos = -1;
+	Ticker ticker = Ticker.SYSTEM;
+	/** Created once some entry can expire */
+	TimerWheel<K,V> timerWheel;
+
+
+	public Cache(long maximumSize) {
+		this(maximumSize, EvictionPolicy.W_TINY_LFU);
+	}
+
+	public Cache(long maximumSize, EvictionPolicy evictionPolicy) {
+		this(maximumSize, Long.MAX_VALUE, (key, value) -> 1, evictionPolicy, null);
+	}
+
+	/**
+	 * @param maximumSize maximum number of entries, Long.MAX_VALUE for no limit
+	 * @param maximumWeight maximum total weight of the entries, Long.MAX_VALUE for no limit
+	 * @param weigher computes the weight of an entry when it is put
+	 * @param evictionListener called with every evicted mapping, may be null
+	 */
+	public Cache(long maximumSize, long maximumWeight, Weigher<? super K, ? super V> weigher, EvictionPolicy evictionPolicy,
+			BiConsumer<? super K, ? super V> evictionListener) {
+		if(maximumSize < 0)
+			throw new IllegalArgumentException("Illegal maximum size: " + maximumSize);
+		if(maximumWeight < 0)
+			throw new IllegalArgumentException("Illegal maximum weight: " + maximumWeight);
+
+		this.maximumSize = maximumSize;
+		this.maximumWeight = maximumWeight;
+		this.weigher = weigher;
+		this.evictionListener = evictionListener;
+
+		long capacity = maximumWeight != Long.MAX_VALUE ? maximumWeight : maximumSize;
+		switch(evictionPolicy) {
+		case LRU:
+			policy = new LruPolicy<>();
+			break;
+		case LFU:
+			policy = new LfuPolicy<>(maximumSize);
+			break;
+		default:
+			policy = new WindowTinyLfuPolicy<>(capacity, maximumSize);
+		}
+	}
+
+	@Override
+	public V put(K key, V value) {
+		int entryWeight = weigher.weigh(key, value);
+		if(entryWeight < 0)
+			throw new IllegalArgumentException("Negative weight " + entryWeight + " of key " + key);
+
+		if(timerWheel != null)
+			getEntry(key);	// expires a stale mapping of key, which must not be returned
+
+		V oldValue = super.put(key, value);
+		evictEntries();
+		return oldValue;
+	}
+
+	/**
+	 * Puts the mapping with its own time to live, in place of expireAfterWrite. Expiry after
+	 * access, if set, still applies.
+	 */
+	public V put(K key, V value, long duration, TimeUnit unit) {
+		putWriteNanos = toNanos(duration, unit);
+		timerWheel();
+		try {
+			return put(key, value);
+		} finally {
+			putWriteNanos = -1;
+		}
+	}
+
+	@Override
+	public V remove(K key) {
+		if(timerWheel != null)
+			getEntry(key);
+		return super.remove(key);
+	}
+
+	@Override
+	public int getAll(K[] keys, V[] values) {
+		if(timerWheel == null)
+			return super.getAll(keys, values);
+		if(values.length < keys.length)
+			throw new IllegalArgumentException("Values array too short: " + values.length + " < " + keys.length);
+
+		int found = 0;
+		for(int i = 0; i < keys.length; i++) {
+			Entry<K,V> entry = getEntry(keys[i]);
+			values[i] = null;
+			if(entry != null) {
+				afterAccess(entry);
+				values[i] = entry.getValue();
+				found++;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Expires entries once duration has passed since their last put. Set up while the cache
+	 * is empty.
+	 */
+	public Cache<K,V> expireAfterWrite(long duration, TimeUnit unit) {
+		checkEmpty();
+		expireAfterWriteNanos = toNanos(duration, unit);
+		timerWheel();
+		return this;
+	}
+
+	/**
+	 * Expires entries once duration has passed since their last put or get. Set up while the
+	 * cache is empty.
+	 */
+	public Cache<K,V> expireAfterAccess(long duration, TimeUnit unit) {
+		checkEmpty();
+		expireAfterAccessNanos = toNanos(duration, unit);
+		timerWheel();
+		return this;
+	}
+
+	/**
+	 * Replaces System.nanoTime() as the time source of expiry. Set up while the cache is empty.
+	 */
+	public Cache<K,V> ticker(Ticker ticker) {
+		checkEmpty();
+		this.ticker = ticker;
+		if(timerWheel != null)
+			timerWheel = new TimerWheel<>(ticker.read());
+		return this;
+	}
+
+	/**
+	 * Removes the entries expired by now.
+	 */
+	public void cleanUp() {
+		if(timerWheel != null)
+			timerWheel.advance(ticker.read(), this::evict);
+	}
+
+	/**
+	 * Puts the mappings one by one, evicting as it goes, instead of sizing the table for all
+	 * of them.
+	 */
+	@Override
+	public void putAll(K[] keys, V[] values) {
+		if(keys.length != values.length)
+			throw new IllegalArgumentException("Keys and values differ in length: " + keys.length + " != " + values.length);
+
+		for(int i = 0; i < keys.length; i++)
+			put(keys[i], values[i]);
+	}
+
+	@Override
+	public void putAll(java.util.Map<? extends K, ? extends V> map) {
+		map.forEach(this::put);
+	}
+
+	@Override
+	public void putAll(HashMap<? extends K, ? extends V> map) {
+		map.forEach(this::put);
+	}
+
+	/**
+	 * @return total weight of the entries
+	 */
+	public long weight() {
+		return weight;
+	}
+
+	private void evictEntries() {
+		if(oversized != null)
+			evict(oversized);
+
+		while(size > maximumSize || weight > maximumWeight)
+			evict(policy.victim());
+	}
+
+	/**
+	 * Advances the timer wheel before looking key up, expiring the entry found if it is due
+	 * but still waiting in the current bucket of the wheel.
+	 */
+	@Override
+	Entry<K,V> getEntry(K key) {
+		if(timerWheel == null)
+			return super.getEntry(key);
+
+		long now = ticker.read();
+		timerWheel.advance(now, this::evict);
+		Entry<K,V> entry = super.getEntry(key);
+		if(entry != null && isExpired((CacheEntry<K,V>) entry, now)) {
+			evict((CacheEntry<K,V>) entry);
+			return null;
+		}
+		return entry;
+	}
+
+	private void evict(CacheEntry<K,V> entry) {
+		removeForKey(entry.key, entry.hash);
+		if(evictionListener != null)
+			evictionListener.accept(entry.key, entry.value);
+	}
+
+	@Override
+	Entry<K,V> newEntry(K key, V value, int hash, Entry<K,V> next) {
+		return new CacheEntry<>(key, value, hash, next);
+	}
+
+	@Override
+	TreeEntry<K,V> newTreeEntry(K key, V value, int hash) {
+		return new CacheEntry<>(key, value, hash, null);
+	}
+
+	/**
+	 * Policy queues link the entries themselves, so buckets switch between chain and tree
+	 * without replacing them.
+	 */
+	@Override
+	TreeEntry<K,V> replacementTreeEntry(Entry<K,V> entry) {
+		return (CacheEntry<K,V>) entry;
+	}
+
+	@Override
+	Entry<K,V> replacementEntry(TreeEntry<K,V> entry) {
+		entry.parent = null;
+		entry.left = null;
+		entry.right = null;
+		entry.prev = null;
+		entry.height = 0;
+		return entry;
+	}
+
+	@Override
+	void afterInsert(Entry<K,V> entry) {
+		CacheEntry<K,V> cacheEntry = (CacheEntry<K,V>) entry;
+		cacheEntry.weight = weigh(entry);
+		weight += cacheEntry.weight;
+		if(cacheEntry.weight > maximumWeight)
+			oversized = cacheEntry;
+		policy.onInsert(cacheEntry, size);
+		scheduleExpiry(cacheEntry);
+	}
+
+	@Override
+	void afterUpdate(Entry<K,V> entry, V oldValue) {
+		CacheEntry<K,V> cacheEntry = (CacheEntry<K,V>) entry;
+		int oldWeight = cacheEntry.weight;
+		cacheEntry.weight = weigh(entry);
+		weight += cacheEntry.weight - oldWeight;
+		if(cacheEntry.weight > maximumWeight)
+			oversized = cacheEntry;
+		policy.onUpdate(cacheEntry, oldWeight);
+		scheduleExpiry(cacheEntry);
+	}
+
+	@Override
+	void afterAccess(Entry<K,V> entry) {
+		CacheEntry<K,V> cacheEntry = (CacheEntry<K,V>) entry;
+		policy.onAccess(cacheEntry);
+		if(expireAfterAccessNanos >= 0) {
+			long expirationTime = ticker.read() + expireAfterAccessNanos;
+			if(cacheEntry.writeExpires && cacheEntry.writeExpirationTime - expirationTime < 0)
+				expirationTime = cacheEntry.writeExpirationTime;
+			cacheEntry.expirationTime = expirationTime;
+			timerWheel.reschedule(cacheEntry);
+		}
+	}
+
+	@Override
+	void afterRemove(Entry<K,V> entry) {
+		CacheEntry<K,V> cacheEntry = (CacheEntry<K,V>) entry;
+		weight -= cacheEntry.weight;
+		if(cacheEntry == oversized)
+			oversized = null;
+		policy.onRemove(cacheEntry);
+		if(timerWheel != null)
+			timerWheel.deschedule(cacheEntry);
+	}
+
+	private int weigh(Entry<K,V> entry) {
+		return Math.max(0, weigher.weigh(entry.key, entry.getValue()));
+	}
+
+	/**
+	 * Sets the expiration time of an entry just written, the earliest of its write and access
+	 * expiries, and moves it to the matching bucket of the timer wheel.
+	 */
+	private void scheduleExpiry(CacheEntry<K,V> entry) {
+		long writeNanos = putWriteNanos >= 0 ? putWriteNanos : expireAfterWriteNanos;
+		entry.writeExpires = writeNanos >= 0;
+		if(!entry.writeExpires && expireAfterAccessNanos < 0) {
+			if(timerWheel != null)
+				timerWheel.deschedule(entry);
+			return;
+		}
+
+		long now = ticker.read();
+		entry.writeExpirationTime = now + writeNanos;
+		if(!entry.writeExpires)
+			entry.expirationTime = now + expireAfterAccessNanos;
+		else if(expireAfterAccessNanos < 0)
+			entry.expirationTime = now + writeNanos;
+		else
+			entry.expirationTime = now + Math.min(writeNanos, expireAfterAccessNanos);
+		timerWheel.reschedule(entry);
+	}
+
+	private static boolean isExpired(CacheEntry<?,?> entry, long now) {
+		return TimerWheel.isScheduled(entry) && entry.expirationTime - now <= 0;
+	}
+
+	private TimerWheel<K,V> timerWheel() {
+		if(timerWheel == null)
+			timerWheel = new TimerWheel<>(ticker.read());
+		return timerWheel;
+	}
+
+	private void checkEmpty() {
+		if(size != 0)
+			throw new IllegalStateException("Expiry must be set up while the cache is empty");
+	}
+
+	private static long toNanos(long duration, TimeUnit unit) {
+		if(duration < 0)
+			throw new IllegalArgumentException("Negative duration: " + duration);
+		return Math.min(unit.toNanos(duration), MAXIMUM_EXPIRY);
+	}
+
+	/**
+	 * Sketches start small and grow with the cache, each growth forgetting all frequencies.
+	 * Size bounded caches grow theirs to full size once half full, ahead of the first
+	 * evictions, so that a large bound costs no memory before the cache holds the entries.
+	 */
+	static void ensureSketchCapacity(FrequencySketch sketch, int size, long maximumSize) {
+		sketch.ensureCapacity(size < maximumSize >>> 1 ? size : (int) Math.min(maximumSize, MAXIMUM_CAPACITY));
+	}
+
+	static FrequencySketch newSketch(long maximumSize) {
+		return new FrequencySketch((int) Math.min(maximumSize, DEFAULT_INITIAL_CAPACITY));
+	}
+
+	private static long percentOf(long value, int percent) {
+		return value / 100 * percent + value % 100 * percent / 100;
+	}
+
+
+	/**
+	 * Entry linked into a queue of the eviction policy and, when it can expire, into a bucket
+	 * of the timer wheel.
+	 */
+	static final class CacheEntry<K,V> extends TreeEntry<K,V> {
+		CacheEntry<K,V> before;
+		CacheEntry<K,V> after;
+		int weight;
+		/** Queue of the policy the entry is in */
+		byte queue;
+		CacheEntry<K,V> previousInTimer;
+		CacheEntry<K,V> nextInTimer;
+		/** Ticker time the entry expires at, if scheduled in the timer wheel */
+		long expirationTime;
+		/** Ticker time the last write expires the entry at, if writeExpires */
+		long writeExpirationTime;
+		boolean writeExpires;
+
+		CacheEntry(K key, V value, int hash, Entry<K,V> next) {
+			super(key, value, hash, next);
+		}
+	}
+
+	/**
+	 * Doubly linked list of entries from the least to the most recently used one.
+	 */
+	static final class EntryQueue<K,V> {
+		CacheEntry<K,V> head;
+		CacheEntry<K,V> tail;
+		long weight;
+
+		void linkLast(CacheEntry<K,V> entry) {
+			entry.before = tail;
+			entry.after = null;
+			if(tail == null)
+				head = entry;
+			else
+				tail.after = entry;
+			tail = entry;
+			weight += entry.weight;
+		}
+
+		void unlink(CacheEntry<K,V> entry) {
+			if(entry.before == null)
+				head = entry.after;
+			else
+				entry.before.after = entry.after;
+			if(entry.after == null)
+				tail = entry.before;
+			else
+				entry.after.before = entry.before;
+			entry.before = null;
+			entry.after = null;
+			weight -= entry.weight;
+		}
+
+		void moveToLast(CacheEntry<K,V> entry) {
+			if(entry == tail)
+				return;
+			unlink(entry);
+			linkLast(entry);
+		}
+	}
+
+	/**
+	 * Decides which entry to evict, from the inserts, updates, accesses and removals it is told about.
+	 */
+	abstract static class Policy<K,V> {
+
+		abstract void onInsert(CacheEntry<K,V> entry, int size);
+
+		abstract void onAccess(CacheEntry<K,V> entry);
+
+		abstract void onRemove(CacheEntry<K,V> entry);
+
+		/**
+		 * @return entry to evict, called only while the cache is not empty
+		 */
+		abstract CacheEntry<K,V> victim();
+
+		abstract EntryQueue<K,V> queueOf(CacheEntry<K,V> entry);
+
+		void onUpdate(CacheEntry<K,V> entry, int oldWeight) {
+			queueOf(entry).weight += entry.weight - oldWeight;
+			onAccess(entry);
+		}
+	}
+
+	static final class LruPolicy<K,V> extends Policy<K,V> {
+		final EntryQueue<K,V> queue = new EntryQueue<>();
+
+		@Override
+		void onInsert(CacheEntry<K,V> entry, int size) {
+			queue.linkLast(entry);
+		}
+
+		@Override
+		void onAccess(CacheEntry<K,V> entry) {
+			queue.moveToLast(entry);
+		}
+
+		@Override
+		void onRemove(CacheEntry<K,V> entry) {
+			queue.unlink(entry);
+		}
+
+		@Override
+		CacheEntry<K,V> victim() {
+			return queue.head;
+		}
+
+		@Override
+		EntryQueue<K,V> queueOf(CacheEntry<K,V> entry) {
+			return queue;
+		}
+	}
+
+	static final class LfuPolicy<K,V> extends Policy<K,V> {
+		final EntryQueue<K,V> queue = new EntryQueue<>();
+		final FrequencySketch sketch;
+		final long maximumSize;
+
+		LfuPolicy(long maximumSize) {
+			sketch = newSketch(maximumSize);
+			this.maximumSize = maximumSize;
+		}
+
+		@Override
+		void onInsert(CacheEntry<K,V> entry, int size) {
+			ensureSketchCapacity(sketch, size, maximumSize);
+			sketch.increment(entry.hash);
+			queue.linkLast(entry);
+		}
+
+		@Override
+		void onAccess(CacheEntry<K,V> entry) {
+			sketch.increment(entry.hash);
+			queue.moveToLast(entry);
+		}
+
+		@Override
+		void onRemove(CacheEntry<K,V> entry) {
+			queue.unlink(entry);
+		}
+
+		@Override
+		CacheEntry<K,V> victim() {
+			CacheEntry<K,V> victim = queue.head;
+			int victimFrequency = sketch.frequency(victim.hash);
+			CacheEntry<K,V> entry = victim.after;
+			for(int i = 1; i < LFU_SAMPLE_SIZE && entry != null; i++, entry = entry.after) {
+				int frequency = sketch.frequency(entry.hash);
+				if(frequency < victimFrequency) {
+					victim = entry;
+					victimFrequency = frequency;
+				}
+			}
+			return victim;
+		}
+
+		@Override
+		EntryQueue<K,V> queueOf(CacheEntry<K,V> entry) {
+			return queue;
+		}
+	}
+
+	static final class WindowTinyLfuPolicy<K,V> extends Policy<K,V> {
+		static final byte WINDOW = 0;
+		static final byte PROBATION = 1;
+		static final byte PROTECTED = 2;
+
+		final EntryQueue<K,V> window = new EntryQueue<>();
+		final EntryQueue<K,V> probation = new EntryQueue<>();
+		final EntryQueue<K,V> protectedQueue = new EntryQueue<>();
+		final FrequencySketch sketch;
+		final long maximumSize;
+
+		final long windowMaximum;
+		final long mainMaximum;
+		final long protectedMaximum;
+
+		WindowTinyLfuPolicy(long capacity, long maximumSize) {
+			sketch = newSketch(maximumSize);
+			this.maximumSize = maximumSize;
+			windowMaximum = Math.max(1, percentOf(capacity, WINDOW_PERCENT));
+			mainMaximum = Math.max(0, capacity - windowMaximum);
+			protectedMaximum = percentOf(mainMaximum, PROTECTED_PERCENT);
+		}
+
+		@Override
+		void onInsert(CacheEntry<K,V> entry, int size) {
+			ensureSketchCapacity(sketch, size, maximumSize);
+			sketch.increment(entry.hash);
+			entry.queue = WINDOW;
+			window.linkLast(entry);
+			drainWindow();
+		}
+
+		@Override
+		void onAccess(CacheEntry<K,V> entry) {
+			sketch.increment(entry.hash);
+			switch(entry.queue) {
+			case WINDOW:
+				window.moveToLast(entry);
+				break;
+			case PROBATION:
+				probation.unlink(entry);
+				entry.queue = PROTECTED;
+				protectedQueue.linkLast(entry);
+				while(protectedQueue.weight > protectedMaximum && protectedQueue.head != entry) {
+					CacheEntry<K,V> demoted = protectedQueue.head;
+					protectedQueue.unlink(demoted);
+					demoted.queue = PROBATION;
+					probation.linkLast(demoted);
+				}
+				break;
+			default:
+				protectedQueue.moveToLast(entry);
+			}
+		}
+
+		@Override
+		void onRemove(CacheEntry<K,V> entry) {
+			queueOf(entry).unlink(entry);
+			if(entry.queue != WINDOW)
+				drainWindow();
+		}
+
+		/**
+		 * The window's least recently used entry, once the window is over its share, competes
+		 * with the main space's: the less frequently used of both is evicted.
+		 */
+		@Override
+		CacheEntry<K,V> victim() {
+			CacheEntry<K,V> candidate = window.weight > windowMaximum ? window.head : null;
+			CacheEntry<K,V> mainVictim = probation.head != null ? probation.head : protectedQueue.head;
+			if(candidate == null)
+				return mainVictim != null ? mainVictim : window.head;
+			if(mainVictim == null)
+				return candidate;
+
+			return sketch.frequency(candidate.hash) > sketch.frequency(mainVictim.hash) ? mainVictim : candidate;
+		}
+
+		@Override
+		EntryQueue<K,V> queueOf(CacheEntry<K,V> entry) {
+			switch(entry.queue) {
+			case WINDOW:
+				return window;
+			case PROBATION:
+				return probation;
+			default:
+				return protectedQueue;
+			}
+		}
+
+		/**
+		 * Moves entries leaving the window into probation as long as the main space has room.
+		 */
+		private void drainWindow() {
+			while(window.weight > windowMaximum
+					&& probation.weight + protectedQueue.weight + window.head.weight <= mainMaximum) {
+				CacheEntry<K,V> entry = window.head;
+				window.unlink(entry);
+				entry.queue = PROBATION;
+				probation.linkLast(entry);
+			}
+		}
+	}
+
+}
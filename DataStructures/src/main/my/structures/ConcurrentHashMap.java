@@ -0,0 +1,308 @@
+package my.structures;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread safe variant of {@link HashMap} exposing the same put/get/containsKey/remove/size API.
+ *
+ * Reads never lock: they follow volatile bucket heads and Node.next links.
+ * Writes CAS a new node into an empty bucket and otherwise synchronize on
+ * the bucket head only, so writers to different buckets never contend.
+ *
+ * Resizing is cooperative. The thread crossing the threshold allocates the
+ * next table and starts moving buckets in ranges claimed from transferIndex.
+ * A moved bucket is replaced by a ForwardingNode. Readers hitting it continue
+ * in the next table, and writers hitting it first help with the transfer.
+ * Moved nodes are copied rather than relinked, so readers still traversing
+ * the old table always see complete chains.
+ *
+ * Neither null keys nor null values are supported.
+ *
+ * @author mone
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class ConcurrentHashMap<K,V> {
+
+	volatile AtomicReferenceArray<Node<K,V>> table;
+	volatile AtomicReferenceArray<Node<K,V>> nextTable;
+
+	/**
+	 * Positive: size at which the next resize starts.
+	 * Negative: resize in progress, -(1 + number of transferring threads).
+	 */
+	final AtomicInteger sizeCtl;
+	final AtomicInteger transferIndex = new AtomicInteger();
+	final LongAdder count = new LongAdder();
+	final float loadFactor;
+
+	static final int DEFAULT_INITIAL_CAPACITY = 16;
+	static final float DEFAULT_INITIAL_LOAD_FACTOR = 0.75f;
+	static final int MAXIMUM_CAPACITY = 1 << 30;
+	static final int MIN_TRANSFER_STRIDE = 16;
+	static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+	static final int MOVED = -1;
+	static final int HASH_BITS = 0x7fffffff;
+
+
+	public ConcurrentHashMap() {
+		this(DEFAULT_INITIAL_CAPACITY, DEFAULT_INITIAL_LOAD_FACTOR);
+	}
+
+	public ConcurrentHashMap(int initialCapacity, float loadFactor) {
+		if(initialCapacity < 0)
+			throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+		if(!(loadFactor > 0))
+			throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+
+		this.loadFactor = loadFactor;
+		int capacity = OpenHashMap.tableSizeFor(initialCapacity);
+		table = new AtomicReferenceArray<>(capacity);
+		sizeCtl = new AtomicInteger(threshold(capacity));
+	}
+
+	public V put(K key, V value) {
+		if(key == null || value == null)
+			throw new NullPointerException();
+
+		int hash = hash(key);
+		AtomicReferenceArray<Node<K,V>> tab = table;
+		for(;;) {
+			int index = hash & (tab.length() - 1);
+			Node<K,V> head = tab.get(index);
+
+			if(head == null) {
+				if(tab.compareAndSet(index, null, new Node<>(hash, key, value, null)))
+					break;
+			} else if(head.hash == MOVED) {
+				tab = helpTransfer((ForwardingNode<K,V>) head);
+			} else {
+				synchronized(head) {
+					if(tab.get(index) != head)
+						continue;
+
+					Node<K,V> entry = head;
+					for(;;) {
+						if(hash == entry.hash && (entry.key == key || entry.key.equals(key))) {
+							V oldValue = entry.value;
+							entry.value = value;
+							return oldValue;
+						}
+						if(entry.next == null) {
+							entry.next = new Node<>(hash, key, value, null);
+							break;
+						}
+						entry = entry.next;
+					}
+				}
+				break;
+			}
+		}
+
+		addCount();
+
+		return null;
+	}
+
+	public V get(K key) {
+		int hash = hash(key);
+		AtomicReferenceArray<Node<K,V>> tab = table;
+		for(;;) {
+			Node<K,V> entry = tab.get(hash & (tab.length() - 1));
+			if(entry != null && entry.hash == MOVED) {
+				tab = ((ForwardingNode<K,V>) entry).nextTable;
+				continue;
+			}
+
+			while(entry != null) {
+				if(hash == entry.hash && (entry.key == key || entry.key.equals(key)))
+					return entry.value;
+				entry = entry.next;
+			}
+			return null;
+		}
+	}
+
+	public boolean containsKey(K key) {
+		return get(key) != null;
+	}
+
+	public V remove(K key) {
+		int hash = hash(key);
+		AtomicReferenceArray<Node<K,V>> tab = table;
+		for(;;) {
+			int index = hash & (tab.length() - 1);
+			Node<K,V> head = tab.get(index);
+
+			if(head == null)
+				return null;
+
+			if(head.hash == MOVED) {
+				tab = helpTransfer((ForwardingNode<K,V>) head);
+				continue;
+			}
+
+			synchronized(head) {
+				if(tab.get(index) != head)
+					continue;
+
+				Node<K,V> previous = null;
+				for(Node<K,V> entry = head; entry != null; previous = entry, entry = entry.next) {
+					if(hash == entry.hash && (entry.key == key || entry.key.equals(key))) {
+						if(previous == null)
+							tab.set(index, entry.next);
+						else
+							previous.next = entry.next;
+						count.decrement();
+						return entry.value;
+					}
+				}
+				return null;
+			}
+		}
+	}
+
+	public int size() {
+		long sum = count.sum();
+		return sum < 0 ? 0 : sum > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) sum;
+	}
+
+	private void addCount() {
+		count.increment();
+
+		int sc;
+		while((sc = sizeCtl.get()) >= 0 && count.sum() >= sc) {
+			if(table.length() >= MAXIMUM_CAPACITY)
+				break;
+			if(sizeCtl.compareAndSet(sc, -2)) {
+				AtomicReferenceArray<Node<K,V>> tab = table;
+				transferIndex.set(tab.length());
+				nextTable = new AtomicReferenceArray<>(tab.length() << 1);
+				transfer();
+			}
+		}
+	}
+
+	/**
+	 * Joins the resize the forwarding node belongs to, if it still has buckets left to move.
+	 *
+	 * @return table in which the interrupted operation should be retried
+	 */
+	private AtomicReferenceArray<Node<K,V>> helpTransfer(ForwardingNode<K,V> forwardingNode) {
+		int sc;
+		while((sc = sizeCtl.get()) < -1 && nextTable == forwardingNode.nextTable && transferIndex.get() > 0) {
+			if(sizeCtl.compareAndSet(sc, sc - 1)) {
+				transfer();
+				break;
+			}
+		}
+		return forwardingNode.nextTable;
+	}
+
+	/**
+	 * Moves bucket ranges of the current resize until none are left to claim.
+	 * Caller must already be counted in sizeCtl. The last thread to leave publishes the new table.
+	 */
+	private void transfer() {
+		AtomicReferenceArray<Node<K,V>> tab = table;
+		AtomicReferenceArray<Node<K,V>> nextTab = nextTable;
+
+		if(nextTab != null) {
+			int n = tab.length();
+			int stride = Math.max(n / (NCPU << 3), MIN_TRANSFER_STRIDE);
+			ForwardingNode<K,V> forwardingNode = new ForwardingNode<>(nextTab);
+
+			int transferIdx;
+			while((transferIdx = transferIndex.get()) > 0) {
+				int bound = Math.max(transferIdx - stride, 0);
+				if(!transferIndex.compareAndSet(transferIdx, bound))
+					continue;
+				for(int index = transferIdx - 1; index >= bound; index--)
+					transferBucket(tab, nextTab, index, forwardingNode);
+			}
+		}
+
+		int sc;
+		do {
+			sc = sizeCtl.get();
+		} while(!sizeCtl.compareAndSet(sc, sc + 1));
+
+		if(sc + 1 == -1) {
+			AtomicReferenceArray<Node<K,V>> newTable = nextTable;
+			table = newTable;
+			nextTable = null;
+			sizeCtl.set(threshold(newTable.length()));
+		}
+	}
+
+	private void transferBucket(AtomicReferenceArray<Node<K,V>> tab, AtomicReferenceArray<Node<K,V>> nextTab,
+			int index, ForwardingNode<K,V> forwardingNode) {
+		int n = tab.length();
+		for(;;) {
+			Node<K,V> head = tab.get(index);
+			if(head == null) {
+				if(tab.compareAndSet(index, null, forwardingNode))
+					return;
+				continue;
+			}
+			if(head.hash == MOVED)
+				return;
+
+			synchronized(head) {
+				if(tab.get(index) != head)
+					continue;
+
+				Node<K,V> low = null;
+				Node<K,V> high = null;
+				for(Node<K,V> entry = head; entry != null; entry = entry.next) {
+					if((entry.hash & n) == 0)
+						low = new Node<>(entry.hash, entry.key, entry.value, low);
+					else
+						high = new Node<>(entry.hash, entry.key, entry.value, high);
+				}
+				nextTab.set(index, low);
+				nextTab.set(index + n, high);
+				tab.set(index, forwardingNode);
+				return;
+			}
+		}
+	}
+
+	private int threshold(int capacity) {
+		return capacity >= MAXIMUM_CAPACITY ? Integer.MAX_VALUE : (int) Math.min(capacity * loadFactor, Integer.MAX_VALUE);
+	}
+
+	int hash(K key) {
+		int h = key.hashCode();
+		return (h ^ (h >>> 16)) & HASH_BITS;
+	}
+
+
+	static class Node<K,V> {
+		final int hash;
+		final K key;
+		volatile V value;
+		volatile Node<K,V> next;
+
+		Node(int hash, K key, V value, Node<K,V> next) {
+			this.hash = hash;
+			this.key = key;
+			this.value = value;
+			this.next = next;
+		}
+	}
+
+	static final class ForwardingNode<K,V> extends Node<K,V> {
+		final AtomicReferenceArray<Node<K,V>> nextTable;
+
+		ForwardingNode(AtomicReferenceArray<Node<K,V>> nextTable) {
+			super(MOVED, null, null, null);
+			this.nextTable = nextTable;
+		}
+	}
+
+}
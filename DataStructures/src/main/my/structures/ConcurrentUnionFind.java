@@ -0,0 +1,122 @@
+package my.structures;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread safe variant of {@link IntUnionFind} exposing the same union/find/size API, over a
+ * fixed number of elements.
+ *
+ * Parents live in an AtomicIntegerArray and nothing ever locks. union links one root under
+ * the other with a single CAS, retrying from the new roots if another thread linked either
+ * of them first. find halves paths with CAS too, a failed CAS meaning another thread already
+ * shortened the path, so find never retries and takes a bounded number of steps.
+ *
+ * Ranks would need a second CAS, so roots are linked by a random priority instead: the
+ * murmur3 mix of their index, a bijection, so priorities never tie. The trees then stay
+ * logarithmic in expectation, whatever the order of the unions.
+ *
+ * @author mone
+ *
+ */
+public class ConcurrentUnionFind {
+
+	final AtomicIntegerArray parent;
+	final LongAdder unions = new LongAdder();
+
+
+	/**
+	 * @param size number of elements, each in a set of its own
+	 */
+	public ConcurrentUnionFind(int size) {
+		if(size < 0)
+			throw new IllegalArgumentException("Illegal size: " + size);
+
+		int[] parent = new int[size];
+		for(int i = 0; i < size; i++)
+			parent[i] = i;
+		this.parent = new AtomicIntegerArray(parent);
+	}
+
+	/**
+	 * @return root of the set of element, which may be linked under another root as soon as
+	 * it is returned if unions run concurrently
+	 */
+	public int find(int element) {
+		checkElement(element);
+
+		int parent;
+		while((parent = this.parent.get(element)) != element) {
+			int grandparent = this.parent.get(parent);
+			if(grandparent != parent)
+				this.parent.compareAndSet(element, parent, grandparent);
+			element = grandparent;
+		}
+		return element;
+	}
+
+	/**
+	 * Merges the sets of both elements.
+	 *
+	 * @return false if they already were in the same set, which only one of several threads
+	 * uniting the same sets concurrently is told
+	 */
+	public boolean union(int element1, int element2) {
+		int root1 = element1;
+		int root2 = element2;
+		for(;;) {
+			root1 = find(root1);
+			root2 = find(root2);
+			if(root1 == root2)
+				return false;
+
+			if(Hashing.murmur3(root1) > Hashing.murmur3(root2)) {
+				int root = root1;
+				root1 = root2;
+				root2 = root;
+			}
+			if(parent.compareAndSet(root1, root1, root2)) {
+				unions.increment();
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * @return true if both elements are in the same set, which stays true, or were in distinct
+	 * sets at some point during the call
+	 */
+	public boolean connected(int element1, int element2) {
+		int root1 = element1;
+		int root2 = element2;
+		for(;;) {
+			root1 = find(root1);
+			root2 = find(root2);
+			if(root1 == root2)
+				return true;
+			// roots never become roots again, so both still were distinct roots when root2 was found
+			if(parent.get(root1) == root1)
+				return false;
+		}
+	}
+
+	/**
+	 * @return number of elements
+	 */
+	public int size() {
+		return parent.length();
+	}
+
+	/**
+	 * @return number of disjoint sets, exact only while no union is in progress
+	 */
+	public int components() {
+		return (int) (parent.length() - unions.sum());
+	}
+
+	private void checkElement(int element) {
+		if(element < 0 || element >= parent.length())
+			throw new IllegalArgumentException("Unknown element: " + element);
+	}
+
+}
@@ -0,0 +1,180 @@
+package my.structures;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Connected components of a graph over the vertices 0..vertices-1, computed from batches of
+ * edges given as two int arrays, sources[i] - targets[i] being an edge.
+ *
+ * Batches are split into ranges of edges united in parallel into one shared
+ * {@link ConcurrentUnionFind}, so no per-range union finds have to be merged afterwards.
+ * Graphs with more edges than an array holds are fed in several batches. Tasks run in the
+ * ForkJoinPool the caller runs in, in the common pool otherwise.
+ *
+ * @author mone
+ *
+ */
+public class ConnectedComponents {
+
+	/** Edges or vertices a task handles alone before being split */
+	static final int DEFAULT_PARALLELISM_THRESHOLD = 1 << 14;
+
+	final ConcurrentUnionFind unionFind;
+	final int parallelismThreshold;
+
+
+	public ConnectedComponents(int vertices) {
+		this(vertices, DEFAULT_PARALLELISM_THRESHOLD);
+	}
+
+	/**
+	 * @param parallelismThreshold edges or vertices a task handles alone before being split,
+	 * Integer.MAX_VALUE to run sequentially
+	 */
+	public ConnectedComponents(int vertices, int parallelismThreshold) {
+		if(parallelismThreshold < 1)
+			throw new IllegalArgumentException("Illegal parallelism threshold: " + parallelismThreshold);
+
+		unionFind = new ConcurrentUnionFind(vertices);
+		this.parallelismThreshold = parallelismThreshold;
+	}
+
+	/**
+	 * @return components of the graph of the given edges
+	 */
+	public static Components of(int vertices, int[] sources, int[] targets) {
+		ConnectedComponents components = new ConnectedComponents(vertices);
+		components.addEdges(sources, targets);
+		return components.components();
+	}
+
+	/**
+	 * Adds the edges sources[i] - targets[i], in parallel. Batches may be added concurrently too.
+	 */
+	public void addEdges(int[] sources, int[] targets) {
+		if(sources.length != targets.length)
+			throw new IllegalArgumentException("Sources and targets differ in length: " + sources.length + " != " + targets.length);
+
+		new RangeTask(0, sources.length, parallelismThreshold, (from, to) -> {
+			for(int i = from; i < to; i++)
+				unionFind.union(sources[i], targets[i]);
+		}).invoke();
+	}
+
+	public void addEdge(int source, int target) {
+		unionFind.union(source, target);
+	}
+
+	/**
+	 * Labels the components of the edges added so far. Components are numbered 0..count-1 in
+	 * the order of their smallest vertex.
+	 */
+	public Components components() {
+		int vertices = unionFind.size();
+		int[] componentIds = new int[vertices];
+		new RangeTask(0, vertices, parallelismThreshold, (from, to) -> {
+			for(int vertex = from; vertex < to; vertex++)
+				componentIds[vertex] = unionFind.find(vertex);
+		}).invoke();
+
+		// roots are numbered sequentially, then every vertex takes the number of its root
+		int[] rootIds = new int[vertices];
+		int count = 0;
+		for(int vertex = 0; vertex < vertices; vertex++) {
+			int root = componentIds[vertex];
+			if(rootIds[root] == 0)
+				rootIds[root] = ++count;
+		}
+		new RangeTask(0, vertices, parallelismThreshold, (from, to) -> {
+			for(int vertex = from; vertex < to; vertex++)
+				componentIds[vertex] = rootIds[componentIds[vertex]] - 1;
+		}).invoke();
+
+		int[] sizes = new int[count];
+		for(int componentId : componentIds)
+			sizes[componentId]++;
+		return new Components(componentIds, sizes);
+	}
+
+
+	/**
+	 * Component of every vertex and size of every component, as plain arrays.
+	 */
+	public static final class Components {
+		final int[] componentIds;
+		final int[] sizes;
+
+		Components(int[] componentIds, int[] sizes) {
+			this.componentIds = componentIds;
+			this.sizes = sizes;
+		}
+
+		/**
+		 * @return number of components
+		 */
+		public int count() {
+			return sizes.length;
+		}
+
+		public int componentOf(int vertex) {
+			return componentIds[vertex];
+		}
+
+		/**
+		 * @return number of vertices of the component
+		 */
+		public int size(int component) {
+			return sizes[component];
+		}
+
+		/**
+		 * @return component of every vertex, the backing array itself
+		 */
+		public int[] componentIds() {
+			return componentIds;
+		}
+
+		/**
+		 * @return size of every component, the backing array itself
+		 */
+		public int[] sizes() {
+			return sizes;
+		}
+	}
+
+	interface RangeAction {
+		void run(int from, int to);
+	}
+
+	/**
+	 * Runs an action over [from, to), splitting the range in halves run in parallel while it
+	 * is longer than threshold.
+	 */
+	static final class RangeTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		final int from;
+		final int to;
+		final int threshold;
+		final RangeAction action;
+
+		RangeTask(int from, int to, int threshold, RangeAction action) {
+			this.from = from;
+			this.to = to;
+			this.threshold = threshold;
+			this.action = action;
+		}
+
+		@Override
+		protected void compute() {
+			if(to - from <= threshold) {
+				action.run(from, to);
+				return;
+			}
+
+			int middle = (from + to) >>> 1;
+			invokeAll(new RangeTask(from, middle, threshold, action), new RangeTask(middle, to, threshold, action));
+		}
+	}
+
+}
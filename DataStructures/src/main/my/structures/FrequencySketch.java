@@ -0,0 +1,96 @@
+package my.structures;
+
+/**
+ * Count-min sketch of 4 bit counters estimating how often a hash has been seen, used by
+ * TinyLFU admission. Each long holds 16 counters; a hash owns one counter in each of 4
+ * longs and its frequency is the smallest of them.
+ *
+ * Once the number of increments reaches 10 times the capacity all counters are halved,
+ * so the estimates age and follow the recent popularity of keys.
+ *
+ * @author mone
+ *
+ */
+final class FrequencySketch {
+
+	static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+	static final long RESET_MASK = 0x7777777777777777L;
+	static final long ONE_MASK = 0x1111111111111111L;
+	static final int MAX_FREQUENCY = 15;
+
+	long[] table;
+	int tableMask;
+	int sampleSize;
+	int additions;
+
+
+	FrequencySketch(int expectedSize) {
+		ensureCapacity(expectedSize);
+	}
+
+	/**
+	 * Resizes the sketch to track about expectedSize keys, forgetting all frequencies
+	 * when it has to grow.
+	 */
+	void ensureCapacity(int expectedSize) {
+		int capacity = OpenHashMap.tableSizeFor(Math.max(expectedSize, 1));
+		if(table != null && table.length >= capacity)
+			return;
+
+		table = new long[capacity];
+		tableMask = capacity - 1;
+		sampleSize = (int) Math.min(10L * capacity, Integer.MAX_VALUE);
+		additions = 0;
+	}
+
+	int frequency(int hash) {
+		hash = Hashing.murmur3(hash);
+		int start = (hash & 3) << 2;
+		int frequency = MAX_FREQUENCY;
+		for(int i = 0; i < SEEDS.length; i++) {
+			int offset = (start + i) << 2;
+			int count = (int) ((table[indexOf(hash, i)] >>> offset) & 0xfL);
+			frequency = Math.min(frequency, count);
+		}
+		return frequency;
+	}
+
+	void increment(int hash) {
+		hash = Hashing.murmur3(hash);
+		int start = (hash & 3) << 2;
+		boolean added = false;
+		for(int i = 0; i < SEEDS.length; i++)
+			added |= incrementAt(indexOf(hash, i), start + i);
+
+		if(added && ++additions == sampleSize)
+			reset();
+	}
+
+	private boolean incrementAt(int index, int counter) {
+		int offset = counter << 2;
+		long mask = 0xfL << offset;
+		if((table[index] & mask) == mask)
+			return false;
+		table[index] += 1L << offset;
+		return true;
+	}
+
+	/**
+	 * Halves all counters. Odd counters lose their remainder, which additions accounts for.
+	 */
+	void reset() {
+		int odd = 0;
+		for(int i = 0; i < table.length; i++) {
+			odd += Long.bitCount(table[i] & ONE_MASK);
+			table[i] = (table[i] >>> 1) & RESET_MASK;
+		}
+		additions = (additions >>> 1) - (odd >>> 2);
+	}
+
+	private int indexOf(int hash, int i) {
+		long h = (hash + SEEDS[i]) * SEEDS[i];
+		h += h >>> 32;
+		return (int) h & tableMask;
+	}
+
+}
@@ -1,97 +1,387 @@
 package my.structures;
 
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 public class HashMap<K,V> {
 	
 	Entry<K,V>[] table;
 	
+	/** Table being drained into table while an incremental resize is in progress, null otherwise */
+	Entry<K,V>[] oldTable;
+	/** Buckets of oldTable below this index have already been moved to table */
+	int rehashIndex;
+	boolean incrementalResize;
+	
+	HashStrategy<? super K> hashStrategy;
+	
+	/** Views, created on first use */
+	Set<K> keySet;
+	Collection<V> values;
+	Set<java.util.Map.Entry<K,V>> entrySet;
+	
 	int size = 0;
 	int threshold;
 	float loadFactor;
 	int capacity;
+	/** Capacity the table never shrinks below on its own, the initial or largest ensured one */
+	int minimumCapacity;
+	/** Share of the threshold under which removals halve the table, 0 to never shrink */
+	float shrinkFactor;
 	
 	static final int DEFAULT_INITIAL_CAPACITY = 16;
 	static final int DEFAULT_INITIAL_THRESHOLD = 8;
 	static final float DEFAULT_INITIAL_LOAD_FACTOR = 0.75f;
+	static final float DEFAULT_SHRINK_FACTOR = 0.25f;
+	/** Non-empty buckets moved per operation during an incremental resize */
+	static final int REHASH_STEP = 4;
+	/** Empty buckets skipped per operation during an incremental resize */
+	static final int REHASH_EMPTY_VISITS = REHASH_STEP * 10;
+	/** Bucket length at which the chain is converted into a tree */
+	static final int TREEIFY_THRESHOLD = 8;
+	/** Bucket length at which a tree is converted back into a plain chain */
+	static final int UNTREEIFY_THRESHOLD = 6;
+	/** Smaller tables keep long chains, as they are soon split by resizing anyway */
+	static final int MIN_TREEIFY_CAPACITY = 64;
+	static final int MAXIMUM_CAPACITY = 1 << 30;
+	/** Keys hashed ahead of their bucket lookups by the bulk operations */
+	static final int BULK_BLOCK_SIZE = 64;
 	
 	
-	@SuppressWarnings("unchecked")
 	public HashMap() {
-		capacity = DEFAULT_INITIAL_CAPACITY;
+		this(false);
+	}
+	
+	public HashMap(boolean incrementalResize) {
+		this(Hashing.identity(), incrementalResize);
+	}
+	
+	public HashMap(HashStrategy<? super K> hashStrategy) {
+		this(hashStrategy, false);
+	}
+	
+	/**
+	 * @param hashStrategy replaces key.hashCode(), e.g. {@link Hashing#murmur3()} for keys
+	 * whose hash codes differ mostly in their high bits
+	 * @param incrementalResize when true, crossing the threshold only allocates the doubled table,
+	 * the entries are then moved a few buckets per operation, Redis style, so that no single
+	 * operation pays for rehashing the whole map. Such a map does not shrink on removal, as
+	 * shrinking happens at once, unless {@link #setShrinkFactor(float)} asks for it
+	 */
+	public HashMap(HashStrategy<? super K> hashStrategy, boolean incrementalResize) {
+		this(DEFAULT_INITIAL_CAPACITY, DEFAULT_INITIAL_LOAD_FACTOR, hashStrategy, incrementalResize);
 		threshold = DEFAULT_INITIAL_THRESHOLD;
+	}
+	
+	public HashMap(int initialCapacity, float loadFactor) {
+		this(initialCapacity, loadFactor, Hashing.identity(), false);
+	}
+	
+	/**
+	 * @param initialCapacity rounded up to a power of two
+	 * @param loadFactor entries per bucket at which the table doubles, may exceed 1
+	 */
+	@SuppressWarnings("unchecked")
+	public HashMap(int initialCapacity, float loadFactor, HashStrategy<? super K> hashStrategy, boolean incrementalResize) {
+		if(initialCapacity < 0 || initialCapacity > MAXIMUM_CAPACITY)
+			throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+		if(!(loadFactor > 0))
+			throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+		
+		this.loadFactor = loadFactor;
+		capacity = OpenHashMap.tableSizeFor(initialCapacity);
+		minimumCapacity = capacity;
+		threshold = thresholdFor(capacity);
 		table = new Entry[capacity];
-		loadFactor = DEFAULT_INITIAL_LOAD_FACTOR;
+		this.hashStrategy = hashStrategy;
+		this.incrementalResize = incrementalResize;
+		shrinkFactor = incrementalResize ? 0 : DEFAULT_SHRINK_FACTOR;
 	}
 	
 	public V put(K key, V value) {
 		ensureCapacity();
+		rehashStep();
 		if(key == null) {
 			V oldValue = putForNullKey(value);
 			return oldValue;
 		}
 		
 		int hash = hash(key);
-		int index = evaluateIndex(hash);
+		Entry<K,V>[] tab = tableFor(hash);
+		int index = indexFor(hash, tab.length);
 		
-		V oldValue = putForKey(key, value, index, hash);
+		V oldValue = putForKey(key, value, tab, index, hash);
 		
 		return oldValue;
 	}
 
 	public V get(K key) {
+		Entry<K,V> entry = getEntry(key);
+		if(entry == null)
+			return null;
+		afterAccess(entry);
+		
+		return valueOf(entry);
+	}
+	
+	public boolean containsKey(K key) {
+		return getEntry(key) != null;
+	}
+	
+	Entry<K,V> getEntry(K key) {
+		rehashStep();
 		int hash = hash(key);
-		int index = evaluateIndex(hash);
+		Entry<K,V>[] tab = tableFor(hash);
+		int index = indexFor(hash, tab.length);
 		
-		V value = getForKey(key, index, hash);
+		return getEntryForKey(key, tab, index, hash);
+	}
+	
+	public V remove(K key) {
+		rehashStep();
+		V value = removeForKey(key, hash(key));
+		shrinkIfSparse();
 		
 		return value;
 	}
 	
-	public boolean containsKey(K key) {
-		int hash = hash(key);
-		int index = evaluateIndex(hash);
+	/**
+	 * Puts keys[i] to values[i] for every i. The table is resized at most once, up front,
+	 * to hold all keys as if none of them was mapped yet.
+	 */
+	public void putAll(K[] keys, V[] values) {
+		if(keys.length != values.length)
+			throw new IllegalArgumentException("Keys and values differ in length: " + keys.length + " != " + values.length);
 		
-		V value = getForKey(key, index, hash);
+		growFor(size + keys.length);
+		finishRehash();
 		
-		return value != null;
+		int[] hashes = new int[Math.min(keys.length, BULK_BLOCK_SIZE)];
+		for(int from = 0; from < keys.length; from += BULK_BLOCK_SIZE) {
+			int to = Math.min(from + BULK_BLOCK_SIZE, keys.length);
+			hashBlock(keys, from, to, hashes);
+			for(int i = from; i < to; i++) {
+				int hash = hashes[i - from];
+				putForKey(keys[i], values[i], table, indexFor(hash, table.length), hash);
+			}
+		}
 	}
 	
-	public V remove(K key) {
-		return removeForKey(key);
+	public void putAll(java.util.Map<? extends K, ? extends V> map) {
+		growFor(size + map.size());
+		finishRehash();
+		
+		for(java.util.Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+			int hash = hash(entry.getKey());
+			putForKey(entry.getKey(), entry.getValue(), table, indexFor(hash, table.length), hash);
+		}
 	}
 	
-	private V putForNullKey(V value) {
-		Entry<K, V> entry = table[0];
-		while(entry != null) {
-			if(entry.key == null) {
-				V oldValue = entry.value;
-				entry.value = value;
-				return oldValue;
+	/**
+	 * Copies all mappings of map, reusing the hashes it has cached when both maps hash
+	 * keys with the same strategy.
+	 */
+	public void putAll(HashMap<? extends K, ? extends V> map) {
+		if(map == this)
+			return;
+		
+		growFor(size + map.size);
+		finishRehash();
+		
+		boolean sameHashes = map.hashStrategy == hashStrategy;
+		putAll(map.table, sameHashes);
+		if(map.oldTable != null)
+			putAll(map.oldTable, sameHashes);
+	}
+	
+	private void putAll(Entry<? extends K, ? extends V>[] fromTable, boolean sameHashes) {
+		for(Entry<? extends K, ? extends V> entry : fromTable) {
+			while(entry != null) {
+				int hash = sameHashes ? entry.hash : hash(entry.key);
+				putForKey(entry.key, valueOf(entry), table, indexFor(hash, table.length), hash);
+				entry = entry.next;
 			}
-			entry = entry.next;
 		}
-		addEntry(null, value, 0, 0);
+	}
+	
+	/**
+	 * Looks keys up, storing the value of keys[i], or null, into values[i].
+	 * 
+	 * @return number of keys found
+	 */
+	public int getAll(K[] keys, V[] values) {
+		if(values.length < keys.length)
+			throw new IllegalArgumentException("Values array too short: " + values.length + " < " + keys.length);
 		
-		return null;
+		int found = 0;
+		int[] hashes = new int[Math.min(keys.length, BULK_BLOCK_SIZE)];
+		for(int from = 0; from < keys.length; from += BULK_BLOCK_SIZE) {
+			rehashStep();
+			int to = Math.min(from + BULK_BLOCK_SIZE, keys.length);
+			hashBlock(keys, from, to, hashes);
+			for(int i = from; i < to; i++) {
+				int hash = hashes[i - from];
+				Entry<K,V>[] tab = tableFor(hash);
+				Entry<K,V> entry = getEntryForKey(keys[i], tab, indexFor(hash, tab.length), hash);
+				values[i] = null;
+				if(entry != null) {
+					afterAccess(entry);
+					values[i] = valueOf(entry);
+					found++;
+				}
+			}
+		}
+		
+		return found;
 	}
 	
-	private V removeForKey(K key) {
-		int hash = hash(key);
-		int index = evaluateIndex(hash);
+	/**
+	 * @return number of mappings removed
+	 */
+	public int removeAll(K[] keys) {
+		int removed = 0;
+		int[] hashes = new int[Math.min(keys.length, BULK_BLOCK_SIZE)];
+		for(int from = 0; from < keys.length; from += BULK_BLOCK_SIZE) {
+			rehashStep();
+			int to = Math.min(from + BULK_BLOCK_SIZE, keys.length);
+			hashBlock(keys, from, to, hashes);
+			for(int i = from; i < to; i++) {
+				int oldSize = size;
+				removeForKey(keys[i], hashes[i - from]);
+				removed += oldSize - size;
+			}
+		}
+		shrinkIfSparse();
+		
+		return removed;
+	}
+	
+	/**
+	 * @return number of mappings removed
+	 */
+	public int removeAll(Iterable<? extends K> keys) {
+		int removed = 0;
+		for(K key : keys) {
+			rehashStep();
+			int oldSize = size;
+			removeForKey(key, hash(key));
+			removed += oldSize - size;
+		}
+		shrinkIfSparse();
+		
+		return removed;
+	}
+	
+	/**
+	 * Grows the table so that it holds expectedSize entries without further resizing.
+	 * Meant to be called before loading a known number of keys. Removals do not shrink
+	 * the table below that size anymore.
+	 */
+	public void ensureCapacity(int expectedSize) {
+		int newCapacity = capacityFor(expectedSize);
+		minimumCapacity = Math.max(minimumCapacity, newCapacity);
+		if(newCapacity > capacity)
+			resize(newCapacity);
+	}
+	
+	/**
+	 * Shrinks the table to the smallest one holding size entries below its threshold, giving
+	 * back all the memory of a past peak. The next insertion may grow it again.
+	 */
+	public void trimToSize() {
+		int newCapacity = capacityFor(size);
+		if(newCapacity < capacity)
+			resize(newCapacity);
+	}
+	
+	/**
+	 * Shrinks the table to the one automatic shrinking would end up with: half full at most,
+	 * so that insertions can follow without resizing, and no smaller than the initial or ensured
+	 * capacity.
+	 */
+	public void compact() {
+		int newCapacity = Math.max(capacityFor((int) Math.min(2L * size, Integer.MAX_VALUE)), minimumCapacity);
+		if(newCapacity < capacity)
+			resize(newCapacity);
+	}
+	
+	/**
+	 * Sets the share of the threshold under which removals halve the table. Being below 1/2, it
+	 * leaves the halved table between both limits, so a map hovering around either one does not
+	 * resize back and forth.
+	 * 
+	 * Shrinking is never incremental: the removal crossing the limit moves all entries at once,
+	 * which is why maps resizing incrementally default to 0.
+	 * 
+	 * @param shrinkFactor in [0, 0.5), 0 to never shrink on removal
+	 */
+	public void setShrinkFactor(float shrinkFactor) {
+		if(!(shrinkFactor >= 0 && shrinkFactor < 0.5f))
+			throw new IllegalArgumentException("Illegal shrink factor: " + shrinkFactor);
+		this.shrinkFactor = shrinkFactor;
+	}
+	
+	/**
+	 * Hashes a block of keys before any bucket is touched, so the lookups that follow run
+	 * back to back over the table instead of alternating with hashCode() calls.
+	 */
+	private void hashBlock(K[] keys, int from, int to, int[] hashes) {
+		for(int i = from; i < to; i++)
+			hashes[i - from] = hash(keys[i]);
+	}
+	
+	private V putForNullKey(V value) {
+		Entry<K,V>[] tab = tableFor(0);
 		
-		Entry<K, V> entry = table[index];
+		return putForKey(null, value, tab, 0, 0);
+	}
+	
+	V removeForKey(K key, int hash) {
+		Entry<K,V>[] tab = tableFor(hash);
+		int index = indexFor(hash, tab.length);
+		
+		Entry<K, V> entry = tab[index];
 		if(entry == null)
 			return null;
 		
+		if(isTreeBucket(entry)) {
+			TreeEntry<K,V> treeEntry = TreeEntry.find(TreeEntry.rootOf(entry), hash, key);
+			if(treeEntry == null)
+				return null;
+			removeTreeEntry(tab, index, treeEntry, true);
+			size--;
+			afterRemove(treeEntry);
+			return treeEntry.value;
+		}
+		
 		Entry<K, V> nextEntry = entry.next;
-		if(hash == entry.hash && (entry.key == key || entry.key.equals(key))) {
-			table[index] = nextEntry;
-			return entry.value;
+		if(hash == entry.hash && (entry.key == key || (key != null && key.equals(entry.key)))) {
+			tab[index] = nextEntry;
+			size--;
+			afterRemove(entry);
+			return valueOf(entry);
 		}
 		
 		while(nextEntry != null) {
-			if(hash == nextEntry.hash && (nextEntry.key == key || nextEntry.key.equals(key))) {
+			if(hash == nextEntry.hash && (nextEntry.key == key || (key != null && key.equals(nextEntry.key)))) {
 				entry.next = nextEntry.next;
-				return nextEntry.value;
+				size--;
+				afterRemove(nextEntry);
+				return valueOf(nextEntry);
 			}
 			entry = nextEntry;
 			nextEntry = nextEntry.next;
@@ -100,76 +390,453 @@ public class HashMap<K,V> {
 		return null;
 	}
 	
-	private V getForKey(K key, int index, int hash) {
-		Entry<K, V> entry = table[index];
+	private Entry<K,V> getEntryForKey(K key, Entry<K,V>[] tab, int index, int hash) {
+		Entry<K, V> entry = tab[index];
+		if(isTreeBucket(entry))
+			return TreeEntry.find(TreeEntry.rootOf(entry), hash, key);
 		while(entry != null) {
-			if(hash == entry.hash && (entry.key == key || entry.key.equals(key)))
-				return entry.value;
+			if(hash == entry.hash && (entry.key == key || (key != null && key.equals(entry.key))))
+				return entry;
 			entry = entry.next;
 		}
 		
 		return null;
 	}
 	
-	private V putForKey(K key, V value, int index, int hash) {
-		Entry<K, V> entry = table[index];
+	private V putForKey(K key, V value, Entry<K,V>[] tab, int index, int hash) {
+		Entry<K, V> entry = tab[index];
+		if(isTreeBucket(entry))
+			return putForTreeKey(key, value, tab, index, hash);
+		
+		int chainLength = 0;
 		while(entry != null) {
-			if(hash == entry.hash && (entry.key == key || entry.key.equals(key))) {
-				V oldValue = entry.value;
-				entry.value = value;
+			if(hash == entry.hash && (entry.key == key || (key != null && key.equals(entry.key)))) {
+				V oldValue = replaceValue(entry, value);
+				afterUpdate(entry, oldValue);
 				return oldValue;
 			}
 			entry = entry.next;
+			chainLength++;
+		}
+		
+		addEntry(key, value, tab, index, hash);
+		
+		if(chainLength + 1 >= TREEIFY_THRESHOLD && tab.length >= MIN_TREEIFY_CAPACITY)
+			treeify(tab, index);
+		
+		return null;
+	}
+	
+	private V putForTreeKey(K key, V value, Entry<K,V>[] tab, int index, int hash) {
+		TreeEntry<K,V> root = TreeEntry.rootOf(tab[index]);
+		TreeEntry<K,V> entry = TreeEntry.find(root, hash, key);
+		if(entry != null) {
+			V oldValue = entry.value;
+			entry.value = value;
+			afterUpdate(entry, oldValue);
+			return oldValue;
 		}
 		
-		addEntry(key, value, index, hash);
+		TreeEntry<K,V> newEntry = newTreeEntry(key, value, hash);
+		newEntry.next = root.next;
+		newEntry.prev = root;
+		if(root.next != null)
+			((TreeEntry<K,V>) root.next).prev = newEntry;
+		root.next = newEntry;
+		
+		root = TreeEntry.insert(root, newEntry);
+		moveRootToFront(tab, index, root);
+		size++;
+		afterInsert(newEntry);
 		
 		return null;
 	}
+	
+	/**
+	 * @param movable false to keep the order of the remaining entries in the chain, for scans
+	 * removing entries as they go. The root then stays where it is and lookups reach it through
+	 * the parent links, until a later modification moves it back to the front.
+	 */
+	private void removeTreeEntry(Entry<K,V>[] tab, int index, TreeEntry<K,V> entry, boolean movable) {
+		TreeEntry<K,V> root = TreeEntry.delete(TreeEntry.rootOf(tab[index]), entry);
+		
+		TreeEntry<K,V> previous = entry.prev;
+		TreeEntry<K,V> next = (TreeEntry<K,V>) entry.next;
+		if(previous == null)
+			tab[index] = next;
+		else
+			previous.next = next;
+		if(next != null)
+			next.prev = previous;
+		entry.next = null;
+		entry.prev = null;
+		entry.height = 0;
+		
+		if(root == null || !movable)
+			return;
+		moveRootToFront(tab, index, root);
+		
+		if(chainLength(tab[index], UNTREEIFY_THRESHOLD + 1) <= UNTREEIFY_THRESHOLD)
+			untreeify(tab, index);
+	}
+	
+	/**
+	 * Converts the chain at index into a balanced tree, its root becoming the head of the chain.
+	 * Every other entry stays linked through next, so chain walks keep seeing all of them.
+	 */
+	void treeify(Entry<K,V>[] tab, int index) {
+		TreeEntry<K,V> head = null;
+		TreeEntry<K,V> tail = null;
+		for(Entry<K,V> entry = tab[index]; entry != null; entry = entry.next) {
+			TreeEntry<K,V> treeEntry = entry instanceof TreeEntry ? (TreeEntry<K,V>) entry : replacementTreeEntry(entry);
+			treeEntry.prev = tail;
+			if(tail == null)
+				head = treeEntry;
+			else
+				tail.next = treeEntry;
+			tail = treeEntry;
+		}
+		if(head == null)
+			return;
+		tail.next = null;
+		
+		TreeEntry<K,V> root = null;
+		for(TreeEntry<K,V> entry = head; entry != null; entry = (TreeEntry<K,V>) entry.next)
+			root = TreeEntry.insert(root, entry);
+		
+		tab[index] = head;
+		moveRootToFront(tab, index, root);
+	}
+	
+	void untreeify(Entry<K,V>[] tab, int index) {
+		Entry<K,V> head = null;
+		Entry<K,V> tail = null;
+		for(Entry<K,V> entry = tab[index]; entry != null; entry = entry.next) {
+			Entry<K,V> plainEntry = replacementEntry((TreeEntry<K,V>) entry);
+			if(tail == null)
+				head = plainEntry;
+			else
+				tail.next = plainEntry;
+			tail = plainEntry;
+		}
+		if(tail != null)
+			tail.next = null;
+		tab[index] = head;
+	}
+	
+	/**
+	 * Reads the value of entry with a type check rather than a virtual call, so that the hot
+	 * paths stay as fast once key-only entries of sets have run through them.
+	 */
+	static <K,V> V valueOf(Entry<K,V> entry) {
+		return entry instanceof ValueEntry ? ((ValueEntry<K,V>) entry).value : null;
+	}
+	
+	static <K,V> V replaceValue(Entry<K,V> entry, V value) {
+		if(!(entry instanceof ValueEntry))
+			return entry.setValue(value);
+		
+		ValueEntry<K,V> valueEntry = (ValueEntry<K,V>) entry;
+		V oldValue = valueEntry.value;
+		valueEntry.value = value;
+		return oldValue;
+	}
+	
+	Entry<K,V> newEntry(K key, V value, int hash, Entry<K,V> next) {
+		return new ValueEntry<>(key, value, hash, next);
+	}
+	
+	TreeEntry<K,V> newTreeEntry(K key, V value, int hash) {
+		return new TreeEntry<>(key, value, hash, null);
+	}
+	
+	TreeEntry<K,V> replacementTreeEntry(Entry<K,V> entry) {
+		return new TreeEntry<>(entry.key, valueOf(entry), entry.hash, null);
+	}
+	
+	Entry<K,V> replacementEntry(TreeEntry<K,V> entry) {
+		return new ValueEntry<>(entry.key, entry.value, entry.hash, null);
+	}
+	
+	/**
+	 * Called once a new entry has been linked into the table.
+	 */
+	void afterInsert(Entry<K,V> entry) {
+	}
+	
+	/**
+	 * Called once the value of an entry has been replaced.
+	 */
+	void afterUpdate(Entry<K,V> entry, V oldValue) {
+	}
+	
+	/**
+	 * Called when get() finds an entry.
+	 */
+	void afterAccess(Entry<K,V> entry) {
+	}
+	
+	/**
+	 * Called once an entry has been unlinked from the table.
+	 */
+	void afterRemove(Entry<K,V> entry) {
+	}
+	
+	/**
+	 * Called before the table is replaced by one of newCapacity buckets, any pending incremental
+	 * resize not being finished yet.
+	 */
+	void beforeResize(int newCapacity) {
+	}
+	
+	/**
+	 * Called once the table has been replaced: entries have been moved, or are about to be
+	 * moved by the following operations in case of an incremental resize.
+	 */
+	void afterResize(int oldCapacity) {
+	}
+	
+	private void moveRootToFront(Entry<K,V>[] tab, int index, TreeEntry<K,V> root) {
+		Entry<K,V> head = tab[index];
+		if(head == root)
+			return;
+		
+		TreeEntry<K,V> previous = root.prev;
+		TreeEntry<K,V> next = (TreeEntry<K,V>) root.next;
+		previous.next = next;
+		if(next != null)
+			next.prev = previous;
+		
+		root.next = head;
+		root.prev = null;
+		((TreeEntry<K,V>) head).prev = root;
+		tab[index] = root;
+	}
+	
+	static boolean isTreeBucket(Entry<?,?> head) {
+		return head instanceof TreeEntry && ((TreeEntry<?,?>) head).height > 0;
+	}
+	
+	static int chainLength(Entry<?,?> entry, int limit) {
+		int length = 0;
+		while(entry != null && length < limit) {
+			entry = entry.next;
+			length++;
+		}
+		return length;
+	}
 
-	private void addEntry(K key, V value, int index, int hash) {
-		Entry<K, V> newEntry = new Entry<>(key, value, hash, table[index]);
-		table[index] = newEntry;
+	private void addEntry(K key, V value, Entry<K,V>[] tab, int index, int hash) {
+		Entry<K, V> newEntry = newEntry(key, value, hash, tab[index]);
+		tab[index] = newEntry;
 		size++;
+		afterInsert(newEntry);
 	}
 	
 	
 	int evaluateIndex(int hash) {
-		return hash % capacity;
+		return indexFor(hash, capacity);
+	}
+	
+	/**
+	 * Table length is always a power of two, so masking replaces the division
+	 * and never yields a negative index for a negative hash.
+	 */
+	static int indexFor(int hash, int length) {
+		return hash & (length - 1);
+	}
+	
+	/**
+	 * Every key lives in exactly one table: in oldTable while its bucket there has not been moved yet,
+	 * in table otherwise.
+	 */
+	private Entry<K,V>[] tableFor(int hash) {
+		if(oldTable != null && indexFor(hash, oldTable.length) >= rehashIndex)
+			return oldTable;
+		return table;
 	}
 	
 	int hash(K key) {
-		return key.hashCode();
+		if(key == null)
+			return 0;
+		return hashStrategy.hash(key);
 	}
 	
 	private void ensureCapacity() {
-		if(size == threshold) {
-			capacity <<= 1;
-			threshold = (int) Math.floor(capacity * loadFactor);
-			Entry<K,V>[] oldTable = this.table;
-			@SuppressWarnings("unchecked")
-			Entry<K,V>[] newTable = new Entry[capacity];
-			
-			this.table = newTable;
+		if(size >= threshold && capacity < MAXIMUM_CAPACITY)
+			resize(capacity << 1);
+	}
+	
+	/**
+	 * Grows the table to hold expectedSize entries, leaving minimumCapacity as it is.
+	 */
+	private void growFor(int expectedSize) {
+		if(expectedSize > threshold && capacity < MAXIMUM_CAPACITY)
+			resize(Math.max(capacityFor(expectedSize), capacity));
+	}
+	
+	/**
+	 * Halves the table, as many times as needed, once size fell under shrinkFactor of the threshold.
+	 * Called by the public removals only, so that cursors never see the table change under them.
+	 */
+	private void shrinkIfSparse() {
+		if(capacity <= minimumCapacity || !(size < threshold * shrinkFactor))
+			return;
+		
+		int newCapacity = capacity >> 1;
+		while(newCapacity > minimumCapacity && size < thresholdFor(newCapacity) * shrinkFactor)
+			newCapacity >>= 1;
+		resize(newCapacity);
+	}
+	
+	/**
+	 * @return smallest capacity whose threshold is at least expectedSize
+	 */
+	private int capacityFor(int expectedSize) {
+		int newCapacity = 1;
+		while(thresholdFor(newCapacity) < expectedSize && newCapacity < MAXIMUM_CAPACITY)
+			newCapacity <<= 1;
+		return newCapacity;
+	}
+	
+	/**
+	 * Moves to a table of newCapacity buckets, at once or incrementally. As long as the table
+	 * grows by a power of two, every old bucket still splits into buckets of its own.
+	 * Shrinking always happens at once, see {@link #merge(Entry[])}.
+	 */
+	private void resize(int newCapacity) {
+		int oldCapacity = capacity;
+		beforeResize(newCapacity);
+		finishRehash();
+		
+		boolean grows = newCapacity > capacity;
+		capacity = newCapacity;
+		threshold = thresholdFor(capacity);
+		Entry<K,V>[] oldTable = this.table;
+		@SuppressWarnings("unchecked")
+		Entry<K,V>[] newTable = new Entry[capacity];
+		
+		this.table = newTable;
+		if(!grows) {
+			merge(oldTable);
+		} else if(incrementalResize) {
+			this.oldTable = oldTable;
+			rehashIndex = 0;
+		} else {
 			transfer(oldTable);
 		}
-			
+		afterResize(oldCapacity);
+	}
+	
+	private int thresholdFor(int capacity) {
+		return (int) Math.min(Math.floor(capacity * (double) loadFactor), Integer.MAX_VALUE);
 	}
 	
 	private void transfer(Entry<K,V>[] fromTable) {
 		for(Entry<K,V> entry : fromTable) {
+			transferBucket(entry, fromTable.length);
+		}
+		
+	}
+	
+	/**
+	 * Moves the entries of a larger table to table, each bucket of which gathers the old buckets
+	 * congruent to it. Trees are flattened first, merged chains long enough are treeified again.
+	 */
+	private void merge(Entry<K,V>[] fromTable) {
+		for(int fromIndex = 0; fromIndex < fromTable.length; fromIndex++) {
+			if(isTreeBucket(fromTable[fromIndex]))
+				untreeify(fromTable, fromIndex);
+			
+			Entry<K,V> entry = fromTable[fromIndex];
 			while(entry != null) {
 				Entry<K,V> nextEntry = entry.next;
-				
 				int index = evaluateIndex(entry.hash);
-				
 				entry.next = table[index];
 				table[index] = entry;
-				
 				entry = nextEntry;
 			}
 		}
 		
+		if(capacity < MIN_TREEIFY_CAPACITY)
+			return;
+		for(int index = 0; index < capacity; index++) {
+			if(chainLength(table[index], TREEIFY_THRESHOLD) >= TREEIFY_THRESHOLD)
+				treeify(table, index);
+		}
+	}
+	
+	/**
+	 * Moves a bucket of a table of fromLength buckets to table. The table only grows, so the bucket
+	 * splits into buckets no other one is moved to. A split tree gets rebuilt, or turned back into
+	 * plain chains when the parts are short.
+	 */
+	private void transferBucket(Entry<K,V> entry, int fromLength) {
+		if(entry == null)
+			return;
+		
+		boolean wasTree = isTreeBucket(entry);
+		int fromIndex = indexFor(entry.hash, fromLength);
+		
+		while(entry != null) {
+			Entry<K,V> nextEntry = entry.next;
+			
+			int index = evaluateIndex(entry.hash);
+			
+			entry.next = table[index];
+			table[index] = entry;
+			
+			entry = nextEntry;
+		}
+		
+		if(wasTree) {
+			for(int index = fromIndex; index < table.length; index += fromLength) {
+				if(chainLength(table[index], UNTREEIFY_THRESHOLD + 1) <= UNTREEIFY_THRESHOLD)
+					untreeify(table, index);
+				else
+					treeify(table, index);
+			}
+		}
+	}
+	
+	/**
+	 * Moves at most REHASH_STEP non-empty buckets of oldTable, giving up after
+	 * REHASH_EMPTY_VISITS empty ones, so the cost stays bounded whatever the map size.
+	 * Since the table doubles, the resize always completes before the next threshold is reached.
+	 */
+	private void rehashStep() {
+		if(oldTable == null)
+			return;
+		
+		int moved = 0;
+		int emptyVisits = REHASH_EMPTY_VISITS;
+		while(moved < REHASH_STEP && rehashIndex < oldTable.length) {
+			Entry<K,V> entry = oldTable[rehashIndex];
+			if(entry == null) {
+				rehashIndex++;
+				if(--emptyVisits == 0)
+					break;
+				continue;
+			}
+			oldTable[rehashIndex++] = null;
+			transferBucket(entry, oldTable.length);
+			moved++;
+		}
+		
+		if(rehashIndex == oldTable.length)
+			oldTable = null;
+	}
+	
+	private void finishRehash() {
+		if(oldTable == null)
+			return;
+		
+		while(rehashIndex < oldTable.length) {
+			Entry<K,V> entry = oldTable[rehashIndex];
+			oldTable[rehashIndex++] = null;
+			transferBucket(entry, oldTable.length);
+		}
+		oldTable = null;
 	}
 	
 	
@@ -177,19 +844,828 @@ public class HashMap<K,V> {
 		return size;
 	}
 	
+	/**
+	 * Passes every mapping to action without allocating anything. The map must not be modified
+	 * meanwhile.
+	 */
+	public void forEach(BiConsumer<? super K, ? super V> action) {
+		if(oldTable != null)
+			forEach(oldTable, action);
+		forEach(table, action);
+	}
+	
+	private void forEach(Entry<K,V>[] tab, BiConsumer<? super K, ? super V> action) {
+		for(Entry<K,V> entry : tab) {
+			for(; entry != null; entry = entry.next)
+				action.accept(entry.key, valueOf(entry));
+		}
+	}
+	
+	/**
+	 * @return cursor positioned before the first mapping, reusable for later scans through
+	 * {@link Cursor#reset()}
+	 */
+	public Cursor cursor() {
+		return new Cursor();
+	}
+	
+	public Set<K> keySet() {
+		if(keySet == null)
+			keySet = new KeySet();
+		return keySet;
+	}
+	
+	public Collection<V> values() {
+		if(values == null)
+			values = new Values();
+		return values;
+	}
+	
+	public Set<java.util.Map.Entry<K,V>> entrySet() {
+		if(entrySet == null)
+			entrySet = new EntrySet();
+		return entrySet;
+	}
+	
+	/**
+	 * @return spliterator over the mappings, splitting the table into halves of bucket ranges.
+	 * Any pending incremental resize is finished first.
+	 */
+	public Spliterator<java.util.Map.Entry<K,V>> spliterator() {
+		return newSpliterator(entry -> entry, Spliterator.DISTINCT);
+	}
+	
+	public Stream<java.util.Map.Entry<K,V>> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+	
+	public Stream<java.util.Map.Entry<K,V>> parallelStream() {
+		return StreamSupport.stream(spliterator(), true);
+	}
+	
+	/**
+	 * Passes every mapping to action, in parallel once the map holds more than
+	 * parallelismThreshold mappings. Action must then be thread safe. Subtasks run in the
+	 * ForkJoinPool the caller runs in, in the common pool otherwise, while the caller works
+	 * on its own share.
+	 * 
+	 * As for all parallel operations, the map must not be modified meanwhile.
+	 * 
+	 * @param parallelismThreshold mappings a task handles alone before being split,
+	 * Long.MAX_VALUE to run sequentially, 1 for maximal parallelism
+	 */
+	public void forEach(long parallelismThreshold, BiConsumer<? super K, ? super V> action) {
+		new ForEachTask<K,V>(newSpliterator(entry -> entry, Spliterator.DISTINCT), parallelismThreshold, action).invoke();
+	}
+	
+	/**
+	 * @param transformer maps a mapping to the value to reduce, or to null to skip the mapping
+	 * @param reducer combines two transformed values, must be associative
+	 * @return reduction of all non null transformed values, null when there is none
+	 * @see #forEach(long, BiConsumer)
+	 */
+	public <U> U reduce(long parallelismThreshold, BiFunction<? super K, ? super V, ? extends U> transformer,
+			BiFunction<? super U, ? super U, ? extends U> reducer) {
+		return new ReduceTask<K,V,U>(newSpliterator(entry -> entry, Spliterator.DISTINCT), parallelismThreshold, transformer, reducer).invoke();
+	}
+	
+	/**
+	 * @param searchFunction returns a non null result for a matching mapping
+	 * @return a non null result of searchFunction, null when no mapping matches. Tasks stop
+	 * as soon as one of them found a result, which one wins is unspecified.
+	 * @see #forEach(long, BiConsumer)
+	 */
+	public <U> U search(long parallelismThreshold, BiFunction<? super K, ? super V, ? extends U> searchFunction) {
+		return new SearchTask<K,V,U>(newSpliterator(entry -> entry, Spliterator.DISTINCT), parallelismThreshold, searchFunction,
+				new AtomicReference<U>()).invoke();
+	}
+	
+	/**
+	 * @param characteristics of the elements, DISTINCT for keys and entries but not for values
+	 */
+	private <E> HashSpliterator<K,V,E> newSpliterator(Function<Entry<K,V>, E> element, int characteristics) {
+		finishRehash();
+		return new HashSpliterator<>(table, 0, table.length, size, true, element, characteristics);
+	}
+	
+	
+	/**
+	 * Mutable position in the table, walking it bucket by bucket. Neither the cursor nor its
+	 * steps allocate, so one cursor can scan the map over and over without producing garbage.
+	 * 
+	 * Any pending incremental resize is finished when the cursor is (re)set, as the scan only
+	 * walks table. The map must not be structurally modified during a scan other than through
+	 * {@link #remove()}, which keeps the order of the entries not visited yet.
+	 */
+	public final class Cursor {
+		Entry<K,V> current;
+		int currentIndex;
+		Entry<K,V> next;
+		int nextIndex;
+		
+		Cursor() {
+			reset();
+		}
+		
+		/**
+		 * Moves the cursor back before the first mapping.
+		 */
+		public void reset() {
+			finishRehash();
+			current = null;
+			next = null;
+			nextIndex = -1;
+			findNext();
+		}
+		
+		/**
+		 * @return true when the cursor moved to the next mapping, false at the end of the map
+		 */
+		public boolean advance() {
+			if(next == null) {
+				current = null;
+				return false;
+			}
+			current = next;
+			currentIndex = nextIndex;
+			findNext();
+			return true;
+		}
+		
+		public boolean hasNext() {
+			return next != null;
+		}
+		
+		public K key() {
+			return currentEntry().key;
+		}
+		
+		public V value() {
+			return valueOf(currentEntry());
+		}
+		
+		public V setValue(V value) {
+			Entry<K,V> entry = currentEntry();
+			V oldValue = replaceValue(entry, value);
+			afterUpdate(entry, oldValue);
+			return oldValue;
+		}
+		
+		/**
+		 * Removes the current mapping, the cursor then stays before the next one.
+		 */
+		public void remove() {
+			Entry<K,V> entry = currentEntry();
+			if(entry instanceof TreeEntry && ((TreeEntry<K,V>) entry).height != 0) {
+				removeTreeEntry(table, currentIndex, (TreeEntry<K,V>) entry, false);
+				size--;
+				afterRemove(entry);
+			} else {
+				removeForKey(entry.key, entry.hash);
+			}
+			current = null;
+		}
+		
+		Entry<K,V> currentEntry() {
+			if(current == null)
+				throw new IllegalStateException("Cursor is not on a mapping");
+			return current;
+		}
+		
+		private void findNext() {
+			Entry<K,V> entry = next != null ? next.next : null;
+			Entry<K,V>[] tab = table;
+			while(entry == null && ++nextIndex < tab.length)
+				entry = tab[nextIndex];
+			next = entry;
+		}
+	}
+	
+	/**
+	 * Walks the buckets [index, fence) of a table. Splitting halves the bucket range and
+	 * assumes the entries evenly spread, so only the unsplit spliterator reports its exact size.
+	 */
+	static final class HashSpliterator<K,V,E> implements Spliterator<E> {
+		final Entry<K,V>[] tab;
+		final Function<Entry<K,V>, E> element;
+		final int characteristics;
+		int index;
+		final int fence;
+		long estimate;
+		boolean exact;
+		/** Next entry in the bucket being walked */
+		Entry<K,V> current;
+		
+		HashSpliterator(Entry<K,V>[] tab, int origin, int fence, long estimate, boolean exact, Function<Entry<K,V>, E> element,
+				int characteristics) {
+			this.tab = tab;
+			this.index = origin;
+			this.fence = fence;
+			this.estimate = estimate;
+			this.exact = exact;
+			this.element = element;
+			this.characteristics = characteristics;
+		}
+		
+		@Override
+		public HashSpliterator<K,V,E> trySplit() {
+			int mid = (index + fence) >>> 1;
+			if(index >= mid || current != null)
+				return null;
+			
+			exact = false;
+			HashSpliterator<K,V,E> prefix = new HashSpliterator<>(tab, index, mid, estimate >>>= 1, false, element, characteristics);
+			index = mid;
+			return prefix;
+		}
+		
+		@Override
+		public boolean tryAdvance(Consumer<? super E> action) {
+			Entry<K,V> entry = nextEntry();
+			if(entry == null)
+				return false;
+			action.accept(element.apply(entry));
+			return true;
+		}
+		
+		@Override
+		public void forEachRemaining(Consumer<? super E> action) {
+			for(Entry<K,V> entry = nextEntry(); entry != null; entry = nextEntry())
+				action.accept(element.apply(entry));
+		}
+		
+		Entry<K,V> nextEntry() {
+			Entry<K,V> entry = current;
+			while(entry == null && index < fence)
+				entry = tab[index++];
+			current = entry != null ? entry.next : null;
+			return entry;
+		}
+		
+		@Override
+		public long estimateSize() {
+			return estimate;
+		}
+		
+		@Override
+		public int characteristics() {
+			return (exact ? Spliterator.SIZED : 0) | characteristics;
+		}
+	}
+	
+	/**
+	 * Task of a parallel operation over the entries of a spliterator. It keeps forking off
+	 * halves of its spliterator while that one holds more than threshold entries, then runs
+	 * the operation on what is left.
+	 */
+	private abstract static class BulkTask<K,V,R> extends RecursiveTask<R> {
+		private static final long serialVersionUID = 1L;
+		
+		final HashSpliterator<K,V,Entry<K,V>> spliterator;
+		final long threshold;
+		
+		BulkTask(HashSpliterator<K,V,Entry<K,V>> spliterator, long threshold) {
+			this.spliterator = spliterator;
+			this.threshold = Math.max(threshold, 1);
+		}
+		
+		@Override
+		protected R compute() {
+			if(spliterator.estimateSize() > threshold) {
+				HashSpliterator<K,V,Entry<K,V>> prefix = spliterator.trySplit();
+				if(prefix != null) {
+					BulkTask<K,V,R> prefixTask = newTask(prefix);
+					prefixTask.fork();
+					R result = compute();
+					return combine(prefixTask.join(), result);
+				}
+			}
+			return computeSequentially();
+		}
+		
+		abstract BulkTask<K,V,R> newTask(HashSpliterator<K,V,Entry<K,V>> prefix);
+		
+		abstract R computeSequentially();
+		
+		abstract R combine(R prefixResult, R result);
+	}
+	
+	private static final class ForEachTask<K,V> extends BulkTask<K,V,Void> {
+		private static final long serialVersionUID = 1L;
+		
+		final BiConsumer<? super K, ? super V> action;
+		
+		ForEachTask(HashSpliterator<K,V,Entry<K,V>> spliterator, long threshold, BiConsumer<? super K, ? super V> action) {
+			super(spliterator, threshold);
+			this.action = action;
+		}
+		
+		@Override
+		BulkTask<K,V,Void> newTask(HashSpliterator<K,V,Entry<K,V>> prefix) {
+			return new ForEachTask<>(prefix, threshold, action);
+		}
+		
+		@Override
+		Void computeSequentially() {
+			for(Entry<K,V> entry = spliterator.nextEntry(); entry != null; entry = spliterator.nextEntry())
+				action.accept(entry.key, valueOf(entry));
+			return null;
+		}
+		
+		@Override
+		Void combine(Void prefixResult, Void result) {
+			return null;
+		}
+	}
+	
+	private static final class ReduceTask<K,V,U> extends BulkTask<K,V,U> {
+		private static final long serialVersionUID = 1L;
+		
+		final BiFunction<? super K, ? super V, ? extends U> transformer;
+		final BiFunction<? super U, ? super U, ? extends U> reducer;
+		
+		ReduceTask(HashSpliterator<K,V,Entry<K,V>> spliterator, long threshold,
+				BiFunction<? super K, ? super V, ? extends U> transformer, BiFunction<? super U, ? super U, ? extends U> reducer) {
+			super(spliterator, threshold);
+			this.transformer = transformer;
+			this.reducer = reducer;
+		}
+		
+		@Override
+		BulkTask<K,V,U> newTask(HashSpliterator<K,V,Entry<K,V>> prefix) {
+			return new ReduceTask<>(prefix, threshold, transformer, reducer);
+		}
+		
+		@Override
+		U computeSequentially() {
+			U result = null;
+			for(Entry<K,V> entry = spliterator.nextEntry(); entry != null; entry = spliterator.nextEntry())
+				result = combine(result, transformer.apply(entry.key, valueOf(entry)));
+			return result;
+		}
+		
+		@Override
+		U combine(U prefixResult, U result) {
+			if(prefixResult == null)
+				return result;
+			if(result == null)
+				return prefixResult;
+			return reducer.apply(prefixResult, result);
+		}
+	}
+	
+	private static final class SearchTask<K,V,U> extends BulkTask<K,V,U> {
+		private static final long serialVersionUID = 1L;
+		
+		final BiFunction<? super K, ? super V, ? extends U> searchFunction;
+		/** Result shared by all tasks of a search, set by the first one finding a match */
+		final AtomicReference<U> result;
+		
+		SearchTask(HashSpliterator<K,V,Entry<K,V>> spliterator, long threshold,
+				BiFunction<? super K, ? super V, ? extends U> searchFunction, AtomicReference<U> result) {
+			super(spliterator, threshold);
+			this.searchFunction = searchFunction;
+			this.result = result;
+		}
+		
+		@Override
+		protected U compute() {
+			if(result.get() != null)
+				return result.get();
+			return super.compute();
+		}
+		
+		@Override
+		BulkTask<K,V,U> newTask(HashSpliterator<K,V,Entry<K,V>> prefix) {
+			return new SearchTask<>(prefix, threshold, searchFunction, result);
+		}
+		
+		@Override
+		U computeSequentially() {
+			for(Entry<K,V> entry = spliterator.nextEntry(); entry != null && result.get() == null; entry = spliterator.nextEntry()) {
+				U found = searchFunction.apply(entry.key, valueOf(entry));
+				if(found != null) {
+					result.compareAndSet(null, found);
+					break;
+				}
+			}
+			return result.get();
+		}
+		
+		@Override
+		U combine(U prefixResult, U result) {
+			return this.result.get();
+		}
+	}
+	
+	private abstract class HashIterator<E> implements Iterator<E> {
+		final Cursor cursor = new Cursor();
+		
+		@Override
+		public boolean hasNext() {
+			return cursor.hasNext();
+		}
+		
+		@Override
+		public E next() {
+			if(!cursor.advance())
+				throw new NoSuchElementException();
+			return element(cursor.current);
+		}
+		
+		@Override
+		public void remove() {
+			cursor.remove();
+		}
+		
+		abstract E element(Entry<K,V> entry);
+	}
+	
+	private final class KeySet extends AbstractSet<K> {
+		@Override
+		public Iterator<K> iterator() {
+			return new HashIterator<K>() {
+				@Override
+				K element(Entry<K,V> entry) {
+					return entry.key;
+				}
+			};
+		}
+		
+		@Override
+		public Spliterator<K> spliterator() {
+			return newSpliterator(entry -> entry.key, Spliterator.DISTINCT);
+		}
+		
+		@Override
+		public int size() {
+			return size;
+		}
+		
+		@Override
+		@SuppressWarnings("unchecked")
+		public boolean contains(Object o) {
+			return containsKey((K) o);
+		}
+		
+		@Override
+		@SuppressWarnings("unchecked")
+		public boolean remove(Object o) {
+			int oldSize = size;
+			HashMap.this.remove((K) o);
+			return size != oldSize;
+		}
+	}
+	
+	private final class Values extends AbstractCollection<V> {
+		@Override
+		public Iterator<V> iterator() {
+			return new HashIterator<V>() {
+				@Override
+				V element(Entry<K,V> entry) {
+					return valueOf(entry);
+				}
+			};
+		}
+		
+		@Override
+		public Spliterator<V> spliterator() {
+			return newSpliterator(entry -> valueOf(entry), 0);
+		}
+		
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+	
+	private final class EntrySet extends AbstractSet<java.util.Map.Entry<K,V>> {
+		@Override
+		public Iterator<java.util.Map.Entry<K,V>> iterator() {
+			return new HashIterator<java.util.Map.Entry<K,V>>() {
+				@Override
+				java.util.Map.Entry<K,V> element(Entry<K,V> entry) {
+					return entry;
+				}
+			};
+		}
+		
+		@Override
+		public Spliterator<java.util.Map.Entry<K,V>> spliterator() {
+			return HashMap.this.spliterator();
+		}
+		
+		@Override
+		public int size() {
+			return size;
+		}
+		
+		@Override
+		@SuppressWarnings("unchecked")
+		public boolean contains(Object o) {
+			if(!(o instanceof java.util.Map.Entry))
+				return false;
+			java.util.Map.Entry<?,?> entry = (java.util.Map.Entry<?,?>) o;
+			Entry<K,V> found = getEntry((K) entry.getKey());
+			return found != null && Objects.equals(valueOf(found), entry.getValue());
+		}
+		
+		@Override
+		@SuppressWarnings("unchecked")
+		public boolean remove(Object o) {
+			if(!contains(o))
+				return false;
+			HashMap.this.remove(((java.util.Map.Entry<K,?>) o).getKey());
+			return true;
+		}
+	}
+	
 	
-	static class Entry<K,V> {
+	/**
+	 * Node of a bucket chain holding a key only, its value always null. Maps create
+	 * {@link ValueEntry}s, sets use these directly and so keep no value slot per element.
+	 * Chains, trees and views only rely on this class, reading values through valueOf().
+	 */
+	static class Entry<K,V> implements java.util.Map.Entry<K,V> {
 		K key;
-		V value;
 		int hash;
 		Entry<K,V> next;
 		
-		public Entry(K key, V value, int hash, Entry<K,V> next) {
+		public Entry(K key, int hash, Entry<K,V> next) {
 			this.key = key;
-			this.value = value;
 			this.hash = hash;
 			this.next = next;
 		}
+		
+		@Override
+		public K getKey() {
+			return key;
+		}
+		
+		@Override
+		public V getValue() {
+			return null;
+		}
+		
+		/**
+		 * @throws UnsupportedOperationException unless value is null, the only value of a key
+		 */
+		@Override
+		public V setValue(V value) {
+			if(value != null)
+				throw new UnsupportedOperationException("Entry of key " + key + " holds no value");
+			return null;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if(!(obj instanceof java.util.Map.Entry))
+				return false;
+			java.util.Map.Entry<?,?> other = (java.util.Map.Entry<?,?>) obj;
+			return Objects.equals(key, other.getKey()) && Objects.equals(getValue(), other.getValue());
+		}
+		
+		@Override
+		public int hashCode() {
+			return Objects.hashCode(key) ^ Objects.hashCode(getValue());
+		}
+		
+		@Override
+		public String toString() {
+			return key + "=" + getValue();
+		}
+	}
+	
+	static class ValueEntry<K,V> extends Entry<K,V> {
+		V value;
+		
+		public ValueEntry(K key, V value, int hash, Entry<K,V> next) {
+			super(key, hash, next);
+			this.value = value;
+		}
+		
+		@Override
+		public V getValue() {
+			return value;
+		}
+		
+		@Override
+		public V setValue(V value) {
+			V oldValue = this.value;
+			this.value = value;
+			return oldValue;
+		}
+	}
+	
+	/**
+	 * Entry of a bucket holding a self-balancing (AVL) tree ordered by hash, then by
+	 * compareTo() for keys of the same Comparable class. Lookups in a bucket flooded
+	 * with equal hashes of comparable keys therefore take O(log n) instead of O(n).
+	 */
+	static class TreeEntry<K,V> extends ValueEntry<K,V> {
+		TreeEntry<K,V> parent;
+		TreeEntry<K,V> left;
+		TreeEntry<K,V> right;
+		/** Previous entry in the chain, making unlinking O(1) */
+		TreeEntry<K,V> prev;
+		/** Height of the subtree rooted here, 0 when not in a tree */
+		int height;
+		
+		public TreeEntry(K key, V value, int hash, Entry<K,V> next) {
+			super(key, value, hash, next);
+		}
+		
+		/**
+		 * @return root of the tree the head of a tree bucket belongs to, usually the head itself
+		 */
+		static <K,V> TreeEntry<K,V> rootOf(Entry<K,V> head) {
+			TreeEntry<K,V> root = (TreeEntry<K,V>) head;
+			while(root.parent != null)
+				root = root.parent;
+			return root;
+		}
+		
+		static <K,V> TreeEntry<K,V> find(TreeEntry<K,V> entry, int hash, Object key) {
+			while(entry != null) {
+				if(hash < entry.hash) {
+					entry = entry.left;
+				} else if(hash > entry.hash) {
+					entry = entry.right;
+				} else {
+					Object entryKey = entry.key;
+					if(entryKey == key || (key != null && key.equals(entryKey)))
+						return entry;
+					
+					int dir = compareComparables(key, entryKey);
+					if(dir != 0) {
+						entry = dir < 0 ? entry.left : entry.right;
+					} else {
+						// no ordering between the keys, both subtrees may hold the key
+						TreeEntry<K,V> found = find(entry.right, hash, key);
+						if(found != null)
+							return found;
+						entry = entry.left;
+					}
+				}
+			}
+			return null;
+		}
+		
+		/**
+		 * @return root of the tree after inserting entry and rebalancing
+		 */
+		static <K,V> TreeEntry<K,V> insert(TreeEntry<K,V> root, TreeEntry<K,V> entry) {
+			entry.left = null;
+			entry.right = null;
+			entry.height = 1;
+			if(root == null) {
+				entry.parent = null;
+				return entry;
+			}
+			
+			TreeEntry<K,V> parent = root;
+			for(;;) {
+				boolean goLeft = compareForInsertion(entry, parent) < 0;
+				TreeEntry<K,V> child = goLeft ? parent.left : parent.right;
+				if(child == null) {
+					if(goLeft)
+						parent.left = entry;
+					else
+						parent.right = entry;
+					entry.parent = parent;
+					break;
+				}
+				parent = child;
+			}
+			
+			return rebalance(root, parent);
+		}
+		
+		/**
+		 * @return root of the tree after removing entry and rebalancing, null if it was the last one
+		 */
+		static <K,V> TreeEntry<K,V> delete(TreeEntry<K,V> root, TreeEntry<K,V> entry) {
+			TreeEntry<K,V> rebalanceFrom;
+			if(entry.left != null && entry.right != null) {
+				TreeEntry<K,V> successor = entry.right;
+				while(successor.left != null)
+					successor = successor.left;
+				
+				if(successor.parent == entry) {
+					rebalanceFrom = successor;
+				} else {
+					rebalanceFrom = successor.parent;
+					rebalanceFrom.left = successor.right;
+					if(successor.right != null)
+						successor.right.parent = rebalanceFrom;
+					successor.right = entry.right;
+					entry.right.parent = successor;
+				}
+				successor.left = entry.left;
+				entry.left.parent = successor;
+				root = replaceChild(root, entry, successor);
+			} else {
+				TreeEntry<K,V> child = entry.left != null ? entry.left : entry.right;
+				rebalanceFrom = entry.parent;
+				root = replaceChild(root, entry, child);
+			}
+			entry.parent = entry.left = entry.right = null;
+			
+			return rebalance(root, rebalanceFrom);
+		}
+		
+		private static <K,V> TreeEntry<K,V> replaceChild(TreeEntry<K,V> root, TreeEntry<K,V> entry, TreeEntry<K,V> replacement) {
+			TreeEntry<K,V> parent = entry.parent;
+			if(replacement != null)
+				replacement.parent = parent;
+			if(parent == null)
+				return replacement;
+			if(parent.left == entry)
+				parent.left = replacement;
+			else
+				parent.right = replacement;
+			return root;
+		}
+		
+		private static <K,V> TreeEntry<K,V> rebalance(TreeEntry<K,V> root, TreeEntry<K,V> entry) {
+			while(entry != null) {
+				updateHeight(entry);
+				int balance = height(entry.left) - height(entry.right);
+				if(balance > 1) {
+					if(height(entry.left.left) < height(entry.left.right))
+						root = rotateLeft(root, entry.left);
+					root = rotateRight(root, entry);
+					entry = entry.parent;
+				} else if(balance < -1) {
+					if(height(entry.right.right) < height(entry.right.left))
+						root = rotateRight(root, entry.right);
+					root = rotateLeft(root, entry);
+					entry = entry.parent;
+				}
+				entry = entry.parent;
+			}
+			return root;
+		}
+		
+		private static <K,V> TreeEntry<K,V> rotateLeft(TreeEntry<K,V> root, TreeEntry<K,V> entry) {
+			TreeEntry<K,V> right = entry.right;
+			entry.right = right.left;
+			if(right.left != null)
+				right.left.parent = entry;
+			root = replaceChild(root, entry, right);
+			right.left = entry;
+			entry.parent = right;
+			updateHeight(entry);
+			updateHeight(right);
+			return root;
+		}
+		
+		private static <K,V> TreeEntry<K,V> rotateRight(TreeEntry<K,V> root, TreeEntry<K,V> entry) {
+			TreeEntry<K,V> left = entry.left;
+			entry.left = left.right;
+			if(left.right != null)
+				left.right.parent = entry;
+			root = replaceChild(root, entry, left);
+			left.right = entry;
+			entry.parent = left;
+			updateHeight(entry);
+			updateHeight(left);
+			return root;
+		}
+		
+		private static int height(TreeEntry<?,?> entry) {
+			return entry == null ? 0 : entry.height;
+		}
+		
+		private static void updateHeight(TreeEntry<?,?> entry) {
+			entry.height = 1 + Math.max(height(entry.left), height(entry.right));
+		}
+		
+		/**
+		 * Total order used to place entries: hash, then compareTo() for keys of the same
+		 * Comparable class, then class name and identity hash code as tie breakers.
+		 */
+		private static int compareForInsertion(TreeEntry<?,?> entry, TreeEntry<?,?> other) {
+			if(entry.hash != other.hash)
+				return entry.hash < other.hash ? -1 : 1;
+			
+			int dir = compareComparables(entry.key, other.key);
+			if(dir != 0)
+				return dir;
+			
+			Object a = entry.key;
+			Object b = other.key;
+			if(a != null && b != null && (dir = a.getClass().getName().compareTo(b.getClass().getName())) != 0)
+				return dir;
+			return System.identityHashCode(a) <= System.identityHashCode(b) ? -1 : 1;
+		}
+		
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		private static int compareComparables(Object key, Object other) {
+			if(key == null || other == null || key.getClass() != other.getClass() || !(key instanceof Comparable))
+				return 0;
+			return ((Comparable) key).compareTo(other);
+		}
 	}
 	
 	
@@ -0,0 +1,42 @@
+package my.structures;
+
+/**
+ * JMX view of the {@link HashMapStats} of an {@link InstrumentedHashMap}. Attributes about
+ * buckets scan the table on every read.
+ *
+ * @author mone
+ *
+ */
+public interface HashMapMXBean {
+
+	int getSize();
+
+	int getCapacity();
+
+	float getLoadFactor();
+
+	double getLoad();
+
+	long[] getChainLengthHistogram();
+
+	int getTreeBuckets();
+
+	int getMaxChainLength();
+
+	double getAverageProbeLength();
+
+	long getResizes();
+
+	long getResizeNanos();
+
+	long getMaxResizeNanos();
+
+	long getHits();
+
+	long getMisses();
+
+	double getHitRatio();
+
+	void resetCounters();
+
+}
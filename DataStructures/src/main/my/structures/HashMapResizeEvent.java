@@ -0,0 +1,63 @@
+package my.structures;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event of a resize of an {@link InstrumentedHashMap}, its duration being the resize pause.
+ *
+ * The map only calls the static methods below, passing the event as an Object, and only
+ * once it found the jdk.jfr module: this class is not loaded on runtimes without it.
+ *
+ * @author mone
+ *
+ */
+@Name("my.structures.HashMapResize")
+@Label("HashMap Resize")
+@Category("Data Structures")
+@Description("Table of a HashMap replaced by a larger or smaller one")
+final class HashMapResizeEvent extends Event {
+
+	@Label("Map")
+	String map;
+
+	@Label("Old Capacity")
+	int oldCapacity;
+
+	@Label("New Capacity")
+	int newCapacity;
+
+	@Label("Size")
+	int size;
+
+	@Label("Incremental")
+	boolean incremental;
+
+	/**
+	 * @return event started for the resize, null if the event is not enabled
+	 */
+	static Object begin(String map, int oldCapacity, int newCapacity, int size, boolean incremental) {
+		HashMapResizeEvent event = new HashMapResizeEvent();
+		if(!event.isEnabled())
+			return null;
+
+		event.map = map;
+		event.oldCapacity = oldCapacity;
+		event.newCapacity = newCapacity;
+		event.size = size;
+		event.incremental = incremental;
+		event.begin();
+		return event;
+	}
+
+	static void end(Object resizeEvent) {
+		HashMapResizeEvent event = (HashMapResizeEvent) resizeEvent;
+		event.end();
+		if(event.shouldCommit())
+			event.commit();
+	}
+
+}
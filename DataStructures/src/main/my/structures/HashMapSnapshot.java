@@ -0,0 +1,322 @@
+package my.structures;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshots of a {@link HashMap}, streamed to and from NIO channels.
+ *
+ * A snapshot is a header followed by blocks of entries, each block encoded in a direct buffer
+ * and written with a single channel write, so that dumping and loading run at the speed of the
+ * channel rather than per entry. Keys and values are encoded by {@link Serializer}s.
+ *
+ * Header: magic, format version, fixed key and value sizes of the serializers (-1 when
+ * variable), size, capacity and load factor of the map, then a CRC32 of these fields.
+ * Block: payload length, entry count and a CRC32 of both, checked before the payload buffer
+ * is allocated, then the entries and a CRC32 of them. An empty block ends the snapshot.
+ * An entry is a flags byte telling whether key and value are null, followed by the key
+ * and the value when they are not.
+ *
+ * The hash strategy is not part of the snapshot, it is given again on restore. Snapshots
+ * are read back into a map sized for all their entries, which are put without any resize.
+ *
+ * @author mone
+ *
+ */
+public final class HashMapSnapshot {
+
+	static final int MAGIC = 0x484D534E;
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 36;
+	static final int BLOCK_HEADER_SIZE = 3 * Integer.BYTES;
+	static final int DEFAULT_BLOCK_SIZE = 1 << 22;
+
+	static final int MAGIC_OFFSET = 0;
+	static final int VERSION_OFFSET = 4;
+	static final int KEY_SIZE_OFFSET = 8;
+	static final int VALUE_SIZE_OFFSET = 12;
+	static final int SIZE_OFFSET = 16;
+	static final int CAPACITY_OFFSET = 24;
+	static final int LOAD_FACTOR_OFFSET = 28;
+	static final int CHECKSUM_OFFSET = 32;
+
+	static final int BLOCK_LENGTH_OFFSET = 0;
+	static final int BLOCK_COUNT_OFFSET = 4;
+	static final int BLOCK_CHECKSUM_OFFSET = 8;
+
+	static final byte NULL_KEY = 1;
+	static final byte NULL_VALUE = 2;
+
+	private HashMapSnapshot() {
+	}
+
+	/**
+	 * Writes all mappings of map to channel, in blocks of about 4 MiB.
+	 *
+	 * @return number of bytes written
+	 */
+	public static <K,V> long write(HashMap<K,V> map, WritableByteChannel channel, Serializer<? super K> keySerializer,
+			Serializer<? super V> valueSerializer) throws IOException {
+		return write(map, channel, keySerializer, valueSerializer, DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * @param blockSize bytes of entries per block, larger for entries that do not fit
+	 * @return number of bytes written
+	 */
+	public static <K,V> long write(HashMap<K,V> map, WritableByteChannel channel, Serializer<? super K> keySerializer,
+			Serializer<? super V> valueSerializer, int blockSize) throws IOException {
+		if(blockSize < 1)
+			throw new IllegalArgumentException("Illegal block size: " + blockSize);
+
+		BlockWriter<K,V> writer = new BlockWriter<>(channel, keySerializer, valueSerializer, blockSize);
+		try {
+			writer.writeHeader(map);
+			writer.writeEntries(map.table);
+			if(map.oldTable != null)
+				writer.writeEntries(map.oldTable);
+			if(writer.count > 0)
+				writer.flush();
+			// the empty block marking the end
+			writer.flush();
+			return writer.written;
+		} finally {
+			Buffers.free(writer.buffer);
+		}
+	}
+
+	/**
+	 * Reads a snapshot into a new map hashing keys by their hashCode().
+	 */
+	public static <K,V> HashMap<K,V> read(ReadableByteChannel channel, Serializer<K> keySerializer,
+			Serializer<V> valueSerializer) throws IOException {
+		return read(channel, keySerializer, valueSerializer, Hashing.identity(), false);
+	}
+
+	/**
+	 * Reads a snapshot into a new map of the capacity and load factor of the one written, grown if
+	 * needed to hold all entries without resizing.
+	 *
+	 * @throws IOException when the channel does not hold a snapshot, holds another format version,
+	 * keys or values of other sizes, or a block whose header or entries do not match their checksum
+	 */
+	public static <K,V> HashMap<K,V> read(ReadableByteChannel channel, Serializer<K> keySerializer,
+			Serializer<V> valueSerializer, HashStrategy<? super K> hashStrategy, boolean incrementalResize) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		readFully(channel, header);
+
+		if(header.getInt(MAGIC_OFFSET) != MAGIC)
+			throw new IOException("Not a map snapshot");
+		int version = header.getInt(VERSION_OFFSET);
+		if(version != VERSION)
+			throw new IOException("Unsupported map snapshot version " + version);
+		if(header.getInt(CHECKSUM_OFFSET) != checksum(header, 0, CHECKSUM_OFFSET))
+			throw new IOException("Corrupted map snapshot header");
+		int keySize = header.getInt(KEY_SIZE_OFFSET);
+		int valueSize = header.getInt(VALUE_SIZE_OFFSET);
+		if(keySize != keySerializer.fixedSize() || valueSize != valueSerializer.fixedSize())
+			throw new IOException("Map snapshot holds " + keySize + "/" + valueSize + " byte keys/values");
+
+		long size = header.getLong(SIZE_OFFSET);
+		int capacity = header.getInt(CAPACITY_OFFSET);
+		float loadFactor = header.getFloat(LOAD_FACTOR_OFFSET);
+		if(size < 0 || size > Integer.MAX_VALUE || capacity < 0 || capacity > HashMap.MAXIMUM_CAPACITY || !(loadFactor > 0))
+			throw new IOException("Corrupted map snapshot header");
+
+		HashMap<K,V> map = new HashMap<>(capacity, loadFactor, hashStrategy, incrementalResize);
+		map.ensureCapacity((int) size);
+
+		ByteBuffer blockHeader = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+		ByteBuffer block = null;
+		try {
+			while(true) {
+				blockHeader.clear();
+				readFully(channel, blockHeader);
+				if(blockHeader.getInt(BLOCK_CHECKSUM_OFFSET) != checksum(blockHeader, 0, BLOCK_CHECKSUM_OFFSET))
+					throw new IOException("Corrupted map snapshot block");
+				int length = blockHeader.getInt(BLOCK_LENGTH_OFFSET);
+				int count = blockHeader.getInt(BLOCK_COUNT_OFFSET);
+				if(length < 0 || count < 0 || length > Integer.MAX_VALUE - Integer.BYTES)
+					throw new IOException("Corrupted map snapshot block");
+
+				if(block == null || block.capacity() < length + Integer.BYTES) {
+					Buffers.free(block);
+					block = ByteBuffer.allocateDirect(Math.max(length + Integer.BYTES, DEFAULT_BLOCK_SIZE));
+				}
+				block.clear();
+				block.limit(length + Integer.BYTES);
+				readFully(channel, block);
+				int checksum = block.getInt(length);
+
+				CRC32 crc = new CRC32();
+				block.flip();
+				block.limit(length);
+				crc.update(block);
+				if(checksum != (int) crc.getValue())
+					throw new IOException("Corrupted map snapshot block");
+
+				if(count == 0)
+					break;
+				block.position(0);
+				readEntries(map, block, count, keySerializer, valueSerializer);
+			}
+		} finally {
+			Buffers.free(block);
+		}
+
+		if(map.size != size)
+			throw new IOException("Map snapshot holds " + map.size + " entries instead of " + size);
+		return map;
+	}
+
+	private static <K,V> void readEntries(HashMap<K,V> map, ByteBuffer block, int count, Serializer<K> keySerializer,
+			Serializer<V> valueSerializer) throws IOException {
+		try {
+			for(int i = 0; i < count; i++) {
+				byte flags = block.get();
+				K key = (flags & NULL_KEY) != 0 ? null : keySerializer.read(block);
+				V value = (flags & NULL_VALUE) != 0 ? null : valueSerializer.read(block);
+				map.put(key, value);
+			}
+		} catch(BufferUnderflowException e) {
+			throw new IOException("Map snapshot block holds fewer than " + count + " entries");
+		}
+		if(block.hasRemaining())
+			throw new IOException("Map snapshot block holds more than " + count + " entries");
+	}
+
+	private static void readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+		while(buffer.hasRemaining()) {
+			if(channel.read(buffer) < 0)
+				throw new EOFException("Truncated map snapshot");
+		}
+	}
+
+	private static int checksum(ByteBuffer buffer, int from, int to) {
+		CRC32 crc = new CRC32();
+		for(int i = from; i < to; i++)
+			crc.update(buffer.get(i));
+		return (int) crc.getValue();
+	}
+
+	/**
+	 * Encodes entries into a direct buffer, holding the block header, entries and space for the
+	 * checksum, and writes it to the channel once full.
+	 */
+	static final class BlockWriter<K,V> {
+		final WritableByteChannel channel;
+		final Serializer<? super K> keySerializer;
+		final Serializer<? super V> valueSerializer;
+		final CRC32 crc = new CRC32();
+		ByteBuffer buffer;
+		int count;
+		long written;
+
+		BlockWriter(WritableByteChannel channel, Serializer<? super K> keySerializer, Serializer<? super V> valueSerializer,
+				int blockSize) {
+			this.channel = channel;
+			this.keySerializer = keySerializer;
+			this.valueSerializer = valueSerializer;
+			buffer = allocate(blockSize);
+		}
+
+		void writeHeader(HashMap<K,V> map) throws IOException {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC_OFFSET, MAGIC);
+			header.putInt(VERSION_OFFSET, VERSION);
+			header.putInt(KEY_SIZE_OFFSET, keySerializer.fixedSize());
+			header.putInt(VALUE_SIZE_OFFSET, valueSerializer.fixedSize());
+			header.putLong(SIZE_OFFSET, map.size);
+			header.putInt(CAPACITY_OFFSET, map.capacity);
+			header.putFloat(LOAD_FACTOR_OFFSET, map.loadFactor);
+			header.putInt(CHECKSUM_OFFSET, checksum(header, 0, CHECKSUM_OFFSET));
+			write(header);
+		}
+
+		void writeEntries(HashMap.Entry<K,V>[] table) throws IOException {
+			for(HashMap.Entry<K,V> entry : table) {
+				for(; entry != null; entry = entry.next)
+					writeEntry(entry.key, entry.getValue());
+			}
+		}
+
+		/**
+		 * Encodes the entry at the end of the block, flushing the block first if the entry does
+		 * not fit, and growing the buffer if it does not fit into an empty block either.
+		 */
+		void writeEntry(K key, V value) throws IOException {
+			int start = buffer.position();
+			try {
+				encode(key, value);
+				count++;
+				return;
+			} catch(BufferOverflowException e) {
+				buffer.position(start);
+			}
+
+			if(count > 0)
+				flush();
+			try {
+				encode(key, value);
+			} catch(BufferOverflowException e) {
+				int size = 1 + (key != null ? keySerializer.size(key) : 0) + (value != null ? valueSerializer.size(value) : 0);
+				Buffers.free(buffer);
+				buffer = allocate(size);
+				encode(key, value);
+			}
+			count++;
+		}
+
+		private void encode(K key, V value) {
+			buffer.put((byte) ((key == null ? NULL_KEY : 0) | (value == null ? NULL_VALUE : 0)));
+			if(key != null)
+				keySerializer.write(key, buffer);
+			if(value != null)
+				valueSerializer.write(value, buffer);
+		}
+
+		/**
+		 * Writes the pending entries as a block, an empty one if there are none.
+		 */
+		void flush() throws IOException {
+			int end = buffer.position();
+			buffer.putInt(BLOCK_LENGTH_OFFSET, end - BLOCK_HEADER_SIZE);
+			buffer.putInt(BLOCK_COUNT_OFFSET, count);
+			buffer.putInt(BLOCK_CHECKSUM_OFFSET, checksum(buffer, 0, BLOCK_CHECKSUM_OFFSET));
+
+			crc.reset();
+			buffer.limit(end);
+			buffer.position(BLOCK_HEADER_SIZE);
+			crc.update(buffer);
+			buffer.limit(end + Integer.BYTES);
+			buffer.putInt((int) crc.getValue());
+
+			buffer.flip();
+			write(buffer);
+			buffer.limit(buffer.capacity() - Integer.BYTES);
+			buffer.position(BLOCK_HEADER_SIZE);
+			count = 0;
+		}
+
+		private void write(ByteBuffer bytes) throws IOException {
+			while(bytes.hasRemaining())
+				written += channel.write(bytes);
+		}
+
+		/**
+		 * @return buffer of blockSize bytes of entries, its limit leaving room for the checksum
+		 */
+		private static ByteBuffer allocate(int blockSize) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BLOCK_HEADER_SIZE + blockSize + Integer.BYTES);
+			buffer.position(BLOCK_HEADER_SIZE).limit(BLOCK_HEADER_SIZE + blockSize);
+			return buffer;
+		}
+	}
+
+}
@@ -0,0 +1,197 @@
+package my.structures;
+
+import java.util.Arrays;
+
+import my.structures.HashMap.Entry;
+import my.structures.HashMap.TreeEntry;
+
+/**
+ * Snapshot of the shape of a {@link HashMap} table, with the counters of an
+ * {@link InstrumentedHashMap}.
+ *
+ * The table is scanned when the snapshot is taken, so taking one costs O(capacity) and
+ * nothing is tracked meanwhile. Probe lengths count the entries a successful lookup compares
+ * its key with: its position in a chain, its depth in a tree.
+ *
+ * @author mone
+ *
+ */
+public final class HashMapStats {
+
+	/** Chains of this length and longer share the last slot of the histogram */
+	public static final int MAX_HISTOGRAM_LENGTH = 16;
+
+	final int size;
+	final int capacity;
+	final float loadFactor;
+	final long[] chainLengths;
+	final int treeBuckets;
+	final int maxChainLength;
+	final long totalProbeLength;
+	final boolean resizing;
+
+	final long resizes;
+	final long resizeNanos;
+	final long maxResizeNanos;
+	final long hits;
+	final long misses;
+
+
+	private HashMapStats(HashMap<?,?> map, long resizes, long resizeNanos, long maxResizeNanos, long hits, long misses) {
+		size = map.size;
+		capacity = map.capacity;
+		loadFactor = map.loadFactor;
+		this.resizes = resizes;
+		this.resizeNanos = resizeNanos;
+		this.maxResizeNanos = maxResizeNanos;
+		this.hits = hits;
+		this.misses = misses;
+
+		chainLengths = new long[MAX_HISTOGRAM_LENGTH + 1];
+		int treeBuckets = 0;
+		int maxChainLength = 0;
+		long totalProbeLength = 0;
+		// fields are read once, as stats may be taken by another thread, JMX's
+		Entry<?,?>[] current = map.table;
+		Entry<?,?>[] old = map.oldTable;
+		for(Entry<?,?>[] table : old == null ? new Entry<?,?>[][] { current } : new Entry<?,?>[][] { old, current }) {
+			for(Entry<?,?> head : table) {
+				if(head == null) {
+					if(table == current)
+						chainLengths[0]++;
+					continue;
+				}
+
+				boolean tree = HashMap.isTreeBucket(head);
+				int length = 0;
+				for(Entry<?,?> entry = head; entry != null; entry = entry.next) {
+					length++;
+					totalProbeLength += tree ? depthOf((TreeEntry<?,?>) entry) : length;
+				}
+				chainLengths[Math.min(length, MAX_HISTOGRAM_LENGTH)]++;
+				maxChainLength = Math.max(maxChainLength, length);
+				if(tree)
+					treeBuckets++;
+			}
+		}
+		this.treeBuckets = treeBuckets;
+		this.maxChainLength = maxChainLength;
+		this.totalProbeLength = totalProbeLength;
+		resizing = old != null;
+	}
+
+	/**
+	 * @return snapshot of the table of map, without counters
+	 */
+	public static HashMapStats of(HashMap<?,?> map) {
+		return new HashMapStats(map, 0, 0, 0, 0, 0);
+	}
+
+	static HashMapStats of(HashMap<?,?> map, long resizes, long resizeNanos, long maxResizeNanos, long hits, long misses) {
+		return new HashMapStats(map, resizes, resizeNanos, maxResizeNanos, hits, misses);
+	}
+
+	private static int depthOf(TreeEntry<?,?> entry) {
+		int depth = 1;
+		for(TreeEntry<?,?> parent = entry.parent; parent != null; parent = parent.parent)
+			depth++;
+		return depth;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	public float loadFactor() {
+		return loadFactor;
+	}
+
+	/**
+	 * @return entries per bucket
+	 */
+	public double load() {
+		return capacity == 0 ? 0 : (double) size / capacity;
+	}
+
+	/**
+	 * @return number of buckets by chain length, trees included, chains of
+	 * MAX_HISTOGRAM_LENGTH entries or more in the last slot
+	 */
+	public long[] chainLengthHistogram() {
+		return chainLengths.clone();
+	}
+
+	public long emptyBuckets() {
+		return chainLengths[0];
+	}
+
+	public int treeBuckets() {
+		return treeBuckets;
+	}
+
+	public int maxChainLength() {
+		return maxChainLength;
+	}
+
+	/**
+	 * @return average number of entries a successful lookup compares its key with
+	 */
+	public double averageProbeLength() {
+		return size == 0 ? 0 : (double) totalProbeLength / size;
+	}
+
+	/**
+	 * @return true if an incremental resize was in progress
+	 */
+	public boolean isResizing() {
+		return resizing;
+	}
+
+	public long resizes() {
+		return resizes;
+	}
+
+	/**
+	 * @return time spent in resizes, not counting the rehash steps of incremental ones
+	 */
+	public long resizeNanos() {
+		return resizeNanos;
+	}
+
+	public long maxResizeNanos() {
+		return maxResizeNanos;
+	}
+
+	/**
+	 * @return lookups that found their key
+	 */
+	public long hits() {
+		return hits;
+	}
+
+	/**
+	 * @return lookups that did not find their key
+	 */
+	public long misses() {
+		return misses;
+	}
+
+	public double hitRatio() {
+		long lookups = hits + misses;
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	@Override
+	public String toString() {
+		return "HashMapStats [size=" + size + ", capacity=" + capacity + ", load=" + load()
+				+ ", chainLengths=" + Arrays.toString(chainLengths) + ", treeBuckets=" + treeBuckets
+				+ ", maxChainLength=" + maxChainLength + ", averageProbeLength=" + averageProbeLength()
+				+ ", resizes=" + resizes + ", resizeNanos=" + resizeNanos + ", maxResizeNanos=" + maxResizeNanos
+				+ ", hits=" + hits + ", misses=" + misses + "]";
+	}
+
+}
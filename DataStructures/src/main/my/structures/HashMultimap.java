@@ -0,0 +1,109 @@
+package my.structures;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Multimap keeping distinct values per key. Values are held in a compact array per key,
+ * searched linearly, until a key has more than SET_THRESHOLD of them: its values then move
+ * to a {@link HashSet}, so that keys with many values are still updated in constant time.
+ *
+ * @author mone
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class HashMultimap<K,V> extends AbstractMultimap<K,V> {
+
+	/** Values per key above which they are held in a hash set rather than an array */
+	static final int SET_THRESHOLD = 8;
+
+
+	public HashMultimap() {
+		super(new HashMap<>());
+	}
+
+	public HashMultimap(HashStrategy<? super K> hashStrategy) {
+		super(new HashMap<>(hashStrategy));
+	}
+
+	/**
+	 * @see HashMap#HashMap(int, float, HashStrategy, boolean)
+	 */
+	public HashMultimap(int initialCapacity, float loadFactor, HashStrategy<? super K> hashStrategy, boolean incrementalResize) {
+		super(new HashMap<>(initialCapacity, loadFactor, hashStrategy, incrementalResize));
+	}
+
+	/**
+	 * @return copy of the values of key, empty if there are none
+	 */
+	@SuppressWarnings("unchecked")
+	public Set<V> get(K key) {
+		HashMap.Entry<K, Object> entry = map.getEntry(key);
+		if(entry == null)
+			return Collections.emptySet();
+
+		HashSet<V> values = new HashSet<>(count(entry.getValue()), HashMap.DEFAULT_INITIAL_LOAD_FACTOR);
+		forEachValue(entry.getValue(), value -> values.add((V) value));
+		return Collections.unmodifiableSet(values);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	Object add(Object values, V value) {
+		if(values instanceof ValueSet)
+			return ((ValueSet<V>) values).add(value) ? values : null;
+		if(indexOfInArray(values, value) >= 0)
+			return null;
+		if(countInArray(values) < SET_THRESHOLD)
+			return append(values, value);
+
+		ValueSet<V> set = new ValueSet<>();
+		forEachInArray(values, element -> set.add((V) element));
+		set.add(value);
+		return set;
+	}
+
+	@Override
+	int indexOf(Object values, Object value) {
+		if(values instanceof ValueSet)
+			return ((ValueSet<?>) values).contains(value) ? 0 : -1;
+		return indexOfInArray(values, value);
+	}
+
+	@Override
+	Object remove(Object values, int index, Object value) {
+		if(values instanceof ValueSet) {
+			ValueSet<?> set = (ValueSet<?>) values;
+			set.remove(value);
+			return set.isEmpty() ? null : set;
+		}
+		return removeFromArray(values, index);
+	}
+
+	@Override
+	int count(Object values) {
+		if(values instanceof ValueSet)
+			return ((ValueSet<?>) values).size();
+		return countInArray(values);
+	}
+
+	@Override
+	void forEachValue(Object values, Consumer<Object> action) {
+		if(values instanceof ValueSet)
+			((ValueSet<?>) values).forEach(action);
+		else
+			forEachInArray(values, action);
+	}
+
+	/**
+	 * Values of a key having many, a class of its own so that it cannot be mistaken for a value.
+	 */
+	static final class ValueSet<V> extends HashSet<V> {
+		ValueSet() {
+			super(SET_THRESHOLD * 4, HashMap.DEFAULT_INITIAL_LOAD_FACTOR);
+		}
+	}
+
+}
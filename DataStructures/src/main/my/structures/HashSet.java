@@ -0,0 +1,120 @@
+package my.structures;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Set backed by a {@link HashMap} whose entries keep no value, sharing its hashing,
+ * tree buckets, resizing and shrinking. Elements are chained in key-only entries, one
+ * reference smaller than those of a map; only elements of tree buckets keep a value slot.
+ *
+ * @author mone
+ *
+ * @param <E>
+ */
+public class HashSet<E> extends AbstractSet<E> {
+
+	final HashMap<E, Object> map;
+
+
+	public HashSet() {
+		this(Hashing.identity());
+	}
+
+	public HashSet(HashStrategy<? super E> hashStrategy) {
+		map = new KeyMap<>(hashStrategy, false);
+	}
+
+	public HashSet(int initialCapacity, float loadFactor) {
+		this(initialCapacity, loadFactor, Hashing.identity(), false);
+	}
+
+	/**
+	 * @see HashMap#HashMap(int, float, HashStrategy, boolean)
+	 */
+	public HashSet(int initialCapacity, float loadFactor, HashStrategy<? super E> hashStrategy, boolean incrementalResize) {
+		map = new KeyMap<>(initialCapacity, loadFactor, hashStrategy, incrementalResize);
+	}
+
+	@Override
+	public int size() {
+		return map.size;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean contains(Object o) {
+		return map.containsKey((E) o);
+	}
+
+	@Override
+	public boolean add(E element) {
+		int oldSize = map.size;
+		map.put(element, null);
+		return map.size != oldSize;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean remove(Object o) {
+		int oldSize = map.size;
+		map.remove((E) o);
+		return map.size != oldSize;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return map.keySet().iterator();
+	}
+
+	@Override
+	public Spliterator<E> spliterator() {
+		return map.keySet().spliterator();
+	}
+
+	@Override
+	public void forEach(Consumer<? super E> action) {
+		map.forEach((element, value) -> action.accept(element));
+	}
+
+	/**
+	 * @see HashMap#ensureCapacity(int)
+	 */
+	public void ensureCapacity(int expectedSize) {
+		map.ensureCapacity(expectedSize);
+	}
+
+	/**
+	 * @see HashMap#trimToSize()
+	 */
+	public void trimToSize() {
+		map.trimToSize();
+	}
+
+	/**
+	 * Map of the elements to null, creating key-only entries.
+	 */
+	static final class KeyMap<E> extends HashMap<E, Object> {
+
+		KeyMap(HashStrategy<? super E> hashStrategy, boolean incrementalResize) {
+			super(hashStrategy, incrementalResize);
+		}
+
+		KeyMap(int initialCapacity, float loadFactor, HashStrategy<? super E> hashStrategy, boolean incrementalResize) {
+			super(initialCapacity, loadFactor, hashStrategy, incrementalResize);
+		}
+
+		@Override
+		Entry<E, Object> newEntry(E key, Object value, int hash, Entry<E, Object> next) {
+			return new Entry<>(key, hash, next);
+		}
+
+		@Override
+		Entry<E, Object> replacementEntry(TreeEntry<E, Object> entry) {
+			return new Entry<>(entry.key, entry.hash, null);
+		}
+	}
+
+}
@@ -0,0 +1,17 @@
+package my.structures;
+
+/**
+ * Hash function used by a map in place of key.hashCode().
+ *
+ * Supplied per map instance, e.g. to spread poorly distributed hash codes with
+ * {@link Hashing#murmur3()} or to hash keys by a custom field.
+ *
+ * @author mone
+ *
+ * @param <K>
+ */
+public interface HashStrategy<K> {
+
+	int hash(K key);
+
+}
@@ -0,0 +1,87 @@
+package my.structures;
+
+/**
+ * Hash strategies and bit mixing functions shared by the maps.
+ *
+ * Tables are sized to powers of two and index buckets by masking the low bits
+ * of the hash, so hash codes that differ only in their high bits (sequential
+ * ids shifted left, Float and Double keys) need mixing to spread evenly.
+ *
+ * @author mone
+ *
+ */
+public final class Hashing {
+
+	private static final HashStrategy<Object> IDENTITY = new HashStrategy<Object>() {
+		@Override
+		public int hash(Object key) {
+			return key.hashCode();
+		}
+	};
+
+	private static final HashStrategy<Object> MURMUR3 = new HashStrategy<Object>() {
+		@Override
+		public int hash(Object key) {
+			return murmur3(key.hashCode());
+		}
+	};
+
+	private Hashing() {
+	}
+
+	/**
+	 * Uses key.hashCode() as is.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <K> HashStrategy<K> identity() {
+		return (HashStrategy<K>) IDENTITY;
+	}
+
+	/**
+	 * Passes key.hashCode() through the murmur3 finalizer, so every input bit affects every output bit.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <K> HashStrategy<K> murmur3() {
+		return (HashStrategy<K>) MURMUR3;
+	}
+
+	/**
+	 * Murmur3 32-bit finalizer (fmix32).
+	 */
+	public static int murmur3(int h) {
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		return h;
+	}
+
+	/**
+	 * Murmur3 64-bit finalizer (fmix64) folded to 32 bits.
+	 */
+	public static int murmur3(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	/**
+	 * Single multiplication by the golden ratio, cheaper than murmur3 but enough
+	 * to break up runs of sequential keys under linear probing.
+	 */
+	public static int phiMix(int h) {
+		h *= 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	public static int phiMix(long h) {
+		h *= 0x9E3779B97F4A7C15L;
+		h ^= h >>> 32;
+		return (int) (h ^ (h >>> 16));
+	}
+
+}
@@ -0,0 +1,245 @@
+package my.structures;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * HashMap counting lookup hits and misses and timing its resizes, the shape of its table
+ * being available through {@link #stats()}, JMX once registered, and each resize emitting a
+ * {@link HashMapResizeEvent} to Flight Recorder when that event is enabled.
+ *
+ * Counting happens in the hooks of HashMap, which are empty there: a plain HashMap pays
+ * nothing for instrumentation. Counters are plain fields, so like the map itself they are
+ * not meant to be updated by several threads; JMX reads them racily and its figures are
+ * approximate while the map is being modified.
+ *
+ * Resize durations cover replacing the table, or only allocating it for an incremental
+ * resize, the rehash steps of the following operations not being counted.
+ *
+ * @author mone
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class InstrumentedHashMap<K,V> extends HashMap<K,V> {
+
+	static final String JMX_DOMAIN = "my.structures";
+	/** False on runtimes without the jdk.jfr module, HashMapResizeEvent is then never loaded */
+	static final boolean JFR_AVAILABLE = isJfrAvailable();
+
+	long hits;
+	long misses;
+	long resizes;
+	long resizeNanos;
+	long maxResizeNanos;
+
+	/** Start of the resize in progress */
+	long resizeStart;
+	/** HashMapResizeEvent of the resize in progress, typed Object so that this class loads without JFR */
+	Object resizeEvent;
+
+	/** Name given to registerMBean, also set on resize events */
+	String name;
+	ObjectName objectName;
+
+
+	public InstrumentedHashMap() {
+		super();
+	}
+
+	public InstrumentedHashMap(boolean incrementalResize) {
+		super(incrementalResize);
+	}
+
+	public InstrumentedHashMap(int initialCapacity, float loadFactor, HashStrategy<? super K> hashStrategy, boolean incrementalResize) {
+		super(initialCapacity, loadFactor, hashStrategy, incrementalResize);
+	}
+
+	@Override
+	Entry<K,V> getEntry(K key) {
+		Entry<K,V> entry = super.getEntry(key);
+		if(entry != null)
+			hits++;
+		else
+			misses++;
+		return entry;
+	}
+
+	@Override
+	public int getAll(K[] keys, V[] values) {
+		int found = super.getAll(keys, values);
+		hits += found;
+		misses += keys.length - found;
+		return found;
+	}
+
+	@Override
+	void beforeResize(int newCapacity) {
+		if(JFR_AVAILABLE)
+			resizeEvent = HashMapResizeEvent.begin(name, capacity, newCapacity, size, incrementalResize && newCapacity > capacity);
+		resizeStart = System.nanoTime();
+	}
+
+	@Override
+	void afterResize(int oldCapacity) {
+		long nanos = System.nanoTime() - resizeStart;
+		resizes++;
+		resizeNanos += nanos;
+		maxResizeNanos = Math.max(maxResizeNanos, nanos);
+
+		if(resizeEvent != null) {
+			HashMapResizeEvent.end(resizeEvent);
+			resizeEvent = null;
+		}
+	}
+
+	private static boolean isJfrAvailable() {
+		try {
+			Class.forName("jdk.jfr.Event", false, InstrumentedHashMap.class.getClassLoader());
+			return true;
+		} catch(ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Scans the table, O(capacity).
+	 */
+	public HashMapStats stats() {
+		return HashMapStats.of(this, resizes, resizeNanos, maxResizeNanos, hits, misses);
+	}
+
+	/**
+	 * Zeroes the hit, miss and resize counters.
+	 */
+	public void resetCounters() {
+		hits = 0;
+		misses = 0;
+		resizes = 0;
+		resizeNanos = 0;
+		maxResizeNanos = 0;
+	}
+
+	/**
+	 * Registers a {@link HashMapMXBean} of this map with the platform MBean server, as
+	 * my.structures:type=HashMap,name=name.
+	 *
+	 * @throws IllegalStateException if this map is already registered
+	 * @throws JMException if the name is invalid or taken by another MBean
+	 */
+	public ObjectName registerMBean(String name) throws JMException {
+		if(objectName != null)
+			throw new IllegalStateException("Already registered as " + objectName);
+
+		ObjectName objectName = ObjectName.getInstance(JMX_DOMAIN + ":type=HashMap,name=" + ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(new MXBean(this), objectName);
+		this.name = name;
+		this.objectName = objectName;
+		return objectName;
+	}
+
+	/**
+	 * Removes the MBean registered by registerMBean, if any.
+	 */
+	public void unregisterMBean() throws JMException {
+		if(objectName == null)
+			return;
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		if(server.isRegistered(objectName))
+			server.unregisterMBean(objectName);
+		objectName = null;
+	}
+
+	static final class MXBean implements HashMapMXBean {
+
+		final InstrumentedHashMap<?,?> map;
+
+
+		MXBean(InstrumentedHashMap<?,?> map) {
+			this.map = map;
+		}
+
+		@Override
+		public int getSize() {
+			return map.size;
+		}
+
+		@Override
+		public int getCapacity() {
+			return map.capacity;
+		}
+
+		@Override
+		public float getLoadFactor() {
+			return map.loadFactor;
+		}
+
+		@Override
+		public double getLoad() {
+			return (double) map.size / map.capacity;
+		}
+
+		@Override
+		public long[] getChainLengthHistogram() {
+			return map.stats().chainLengthHistogram();
+		}
+
+		@Override
+		public int getTreeBuckets() {
+			return map.stats().treeBuckets();
+		}
+
+		@Override
+		public int getMaxChainLength() {
+			return map.stats().maxChainLength();
+		}
+
+		@Override
+		public double getAverageProbeLength() {
+			return map.stats().averageProbeLength();
+		}
+
+		@Override
+		public long getResizes() {
+			return map.resizes;
+		}
+
+		@Override
+		public long getResizeNanos() {
+			return map.resizeNanos;
+		}
+
+		@Override
+		public long getMaxResizeNanos() {
+			return map.maxResizeNanos;
+		}
+
+		@Override
+		public long getHits() {
+			return map.hits;
+		}
+
+		@Override
+		public long getMisses() {
+			return map.misses;
+		}
+
+		@Override
+		public double getHitRatio() {
+			long hits = map.hits;
+			long lookups = hits + map.misses;
+			return lookups == 0 ? 0 : (double) hits / lookups;
+		}
+
+		@Override
+		public void resetCounters() {
+			map.resetCounters();
+		}
+
+	}
+
+}
@@ -0,0 +1,181 @@
+package my.structures;
+
+/**
+ * {@link OpenHashMap} specialized for primitive int keys.
+ *
+ * Keys live in an int[] so put/get never box the key nor call hashCode().
+ * Key 0 marks a free slot in the keys array, so a mapping for 0 is kept
+ * aside in dedicated fields.
+ *
+ * @author mone
+ *
+ * @param <V>
+ */
+public class IntObjectHashMap<V> {
+
+	int[] keys;
+	Object[] values;
+
+	boolean containsZeroKey;
+	V zeroKeyValue;
+
+	int size = 0;
+	int threshold;
+	float loadFactor;
+	int capacity;
+	int mask;
+
+	static final int MAXIMUM_CAPACITY = OpenHashMap.MAXIMUM_CAPACITY;
+
+
+	public IntObjectHashMap() {
+		this(OpenHashMap.DEFAULT_INITIAL_CAPACITY, OpenHashMap.DEFAULT_INITIAL_LOAD_FACTOR);
+	}
+
+	public IntObjectHashMap(int initialCapacity, float loadFactor) {
+		if(initialCapacity < 0)
+			throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+		if(!(loadFactor > 0 && loadFactor < 1))
+			throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+
+		this.loadFactor = loadFactor;
+		allocate(OpenHashMap.tableSizeFor(initialCapacity));
+	}
+
+	public V put(int key, V value) {
+		if(key == 0) {
+			V oldValue = zeroKeyValue;
+			zeroKeyValue = value;
+			if(!containsZeroKey) {
+				containsZeroKey = true;
+				size++;
+			}
+			return oldValue;
+		}
+
+		int index = indexOf(key);
+		if(index >= 0) {
+			@SuppressWarnings("unchecked")
+			V oldValue = (V) values[index];
+			values[index] = value;
+			return oldValue;
+		}
+
+		if(size >= threshold && capacity == MAXIMUM_CAPACITY)
+			throw new IllegalStateException("Map is full");
+
+		index = -index - 1;
+		keys[index] = key;
+		values[index] = value;
+		if(++size > threshold)
+			rehash(capacity << 1);
+
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V get(int key) {
+		if(key == 0)
+			return zeroKeyValue;
+
+		int index = indexOf(key);
+
+		return index >= 0 ? (V) values[index] : null;
+	}
+
+	public boolean containsKey(int key) {
+		if(key == 0)
+			return containsZeroKey;
+
+		return indexOf(key) >= 0;
+	}
+
+	public V remove(int key) {
+		if(key == 0) {
+			if(!containsZeroKey)
+				return null;
+			V oldValue = zeroKeyValue;
+			zeroKeyValue = null;
+			containsZeroKey = false;
+			size--;
+			return oldValue;
+		}
+
+		int index = indexOf(key);
+		if(index < 0)
+			return null;
+
+		@SuppressWarnings("unchecked")
+		V oldValue = (V) values[index];
+		shiftKeysBack(index);
+		size--;
+
+		return oldValue;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	private int indexOf(int key) {
+		int index = Hashing.phiMix(key) & mask;
+		int k;
+		while((k = keys[index]) != 0) {
+			if(k == key)
+				return index;
+			index = (index + 1) & mask;
+		}
+		return -index - 1;
+	}
+
+	private void shiftKeysBack(int pos) {
+		int last, slot;
+		for(;;) {
+			pos = ((last = pos) + 1) & mask;
+			for(;;) {
+				if(keys[pos] == 0) {
+					keys[last] = 0;
+					values[last] = null;
+					return;
+				}
+				slot = Hashing.phiMix(keys[pos]) & mask;
+				if(last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos)
+					break;
+				pos = (pos + 1) & mask;
+			}
+			keys[last] = keys[pos];
+			values[last] = values[pos];
+		}
+	}
+
+	private void rehash(int newCapacity) {
+		if(capacity == MAXIMUM_CAPACITY)
+			throw new IllegalStateException("Map is full");
+
+		int[] oldKeys = keys;
+		Object[] oldValues = values;
+
+		allocate(newCapacity);
+
+		for(int i = 0; i < oldKeys.length; i++) {
+			if(oldKeys[i] == 0)
+				continue;
+
+			int index = Hashing.phiMix(oldKeys[i]) & mask;
+			while(keys[index] != 0)
+				index = (index + 1) & mask;
+
+			keys[index] = oldKeys[i];
+			values[index] = oldValues[i];
+		}
+	}
+
+	private void allocate(int newCapacity) {
+		capacity = newCapacity;
+		mask = newCapacity - 1;
+		threshold = Math.min((int) (newCapacity * loadFactor), newCapacity - 1);
+		keys = new int[newCapacity];
+		values = new Object[newCapacity];
+	}
+
+}
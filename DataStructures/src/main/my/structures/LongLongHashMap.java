@@ -0,0 +1,180 @@
+package my.structures;
+
+/**
+ * {@link OpenHashMap} specialized for primitive long keys and values.
+ *
+ * Neither keys nor values are boxed. As there is no null to signal a missing
+ * mapping, get, put and remove return 0 for absent keys; use containsKey or
+ * getOrDefault to tell a stored 0 from a missing one.
+ *
+ * @author mone
+ *
+ */
+public class LongLongHashMap {
+
+	long[] keys;
+	long[] values;
+
+	boolean containsZeroKey;
+	long zeroKeyValue;
+
+	int size = 0;
+	int threshold;
+	float loadFactor;
+	int capacity;
+	int mask;
+
+	static final int MAXIMUM_CAPACITY = OpenHashMap.MAXIMUM_CAPACITY;
+
+
+	public LongLongHashMap() {
+		this(OpenHashMap.DEFAULT_INITIAL_CAPACITY, OpenHashMap.DEFAULT_INITIAL_LOAD_FACTOR);
+	}
+
+	public LongLongHashMap(int initialCapacity, float loadFactor) {
+		if(initialCapacity < 0)
+			throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+		if(!(loadFactor > 0 && loadFactor < 1))
+			throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+
+		this.loadFactor = loadFactor;
+		allocate(OpenHashMap.tableSizeFor(initialCapacity));
+	}
+
+	public long put(long key, long value) {
+		if(key == 0) {
+			long oldValue = zeroKeyValue;
+			zeroKeyValue = value;
+			if(!containsZeroKey) {
+				containsZeroKey = true;
+				size++;
+			}
+			return oldValue;
+		}
+
+		int index = indexOf(key);
+		if(index >= 0) {
+			long oldValue = values[index];
+			values[index] = value;
+			return oldValue;
+		}
+
+		if(size >= threshold && capacity == MAXIMUM_CAPACITY)
+			throw new IllegalStateException("Map is full");
+
+		index = -index - 1;
+		keys[index] = key;
+		values[index] = value;
+		if(++size > threshold)
+			rehash(capacity << 1);
+
+		return 0;
+	}
+
+	public long get(long key) {
+		return getOrDefault(key, 0);
+	}
+
+	public long getOrDefault(long key, long defaultValue) {
+		if(key == 0)
+			return containsZeroKey ? zeroKeyValue : defaultValue;
+
+		int index = indexOf(key);
+
+		return index >= 0 ? values[index] : defaultValue;
+	}
+
+	public boolean containsKey(long key) {
+		if(key == 0)
+			return containsZeroKey;
+
+		return indexOf(key) >= 0;
+	}
+
+	public long remove(long key) {
+		if(key == 0) {
+			if(!containsZeroKey)
+				return 0;
+			long oldValue = zeroKeyValue;
+			zeroKeyValue = 0;
+			containsZeroKey = false;
+			size--;
+			return oldValue;
+		}
+
+		int index = indexOf(key);
+		if(index < 0)
+			return 0;
+
+		long oldValue = values[index];
+		shiftKeysBack(index);
+		size--;
+
+		return oldValue;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	private int indexOf(long key) {
+		int index = Hashing.phiMix(key) & mask;
+		long k;
+		while((k = keys[index]) != 0) {
+			if(k == key)
+				return index;
+			index = (index + 1) & mask;
+		}
+		return -index - 1;
+	}
+
+	private void shiftKeysBack(int pos) {
+		int last, slot;
+		for(;;) {
+			pos = ((last = pos) + 1) & mask;
+			for(;;) {
+				if(keys[pos] == 0) {
+					keys[last] = 0;
+					return;
+				}
+				slot = Hashing.phiMix(keys[pos]) & mask;
+				if(last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos)
+					break;
+				pos = (pos + 1) & mask;
+			}
+			keys[last] = keys[pos];
+			values[last] = values[pos];
+		}
+	}
+
+	private void rehash(int newCapacity) {
+		if(capacity == MAXIMUM_CAPACITY)
+			throw new IllegalStateException("Map is full");
+
+		long[] oldKeys = keys;
+		long[] oldValues = values;
+
+		allocate(newCapacity);
+
+		for(int i = 0; i < oldKeys.length; i++) {
+			if(oldKeys[i] == 0)
+				continue;
+
+			int index = Hashing.phiMix(oldKeys[i]) & mask;
+			while(keys[index] != 0)
+				index = (index + 1) & mask;
+
+			keys[index] = oldKeys[i];
+			values[index] = oldValues[i];
+		}
+	}
+
+	private void allocate(int newCapacity) {
+		capacity = newCapacity;
+		mask = newCapacity - 1;
+		threshold = Math.min((int) (newCapacity * loadFactor), newCapacity - 1);
+		keys = new long[newCapacity];
+		values = new long[newCapacity];
+	}
+
+}
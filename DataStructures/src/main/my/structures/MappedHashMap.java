@@ -0,0 +1,221 @@
+package my.structures;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent {@link OffHeapHashMap} variant whose table lives in a memory-mapped file.
+ *
+ * Reopening the file maps the table back as is, so the map is usable right away
+ * without reading or deserializing any entry. The capacity is fixed when the file is
+ * created, putting a new key into a full map throws IllegalStateException.
+ *
+ * The file starts with a header page holding a magic number, format version, slot
+ * layout, size and a CRC32 of these fields. The first modification after opening or
+ * forcing marks the header dirty on disk, force() flushes the table and then marks the
+ * header clean. A file found dirty on open was not forced after its last modification:
+ * its size gets recounted, but mappings modified since the last force() may be lost
+ * or torn.
+ *
+ * @author mone
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class MappedHashMap<K,V> extends AbstractBufferHashMap<K,V> {
+
+	static final int MAGIC = 0x484D4150;
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 4096;
+
+	static final int MAGIC_OFFSET = 0;
+	static final int VERSION_OFFSET = 4;
+	static final int KEY_SIZE_OFFSET = 8;
+	static final int VALUE_SIZE_OFFSET = 12;
+	static final int CAPACITY_OFFSET = 16;
+	static final int LOAD_FACTOR_OFFSET = 20;
+	static final int SIZE_OFFSET = 24;
+	static final int STATE_OFFSET = 28;
+	static final int CHECKSUM_OFFSET = 32;
+
+	static final int STATE_CLEAN = 0;
+	static final int STATE_DIRTY = 1;
+
+	final Path file;
+	MappedByteBuffer header;
+	boolean dirty;
+
+
+	private MappedHashMap(Path file, Serializer<K> keySerializer, Serializer<V> valueSerializer, float loadFactor,
+			int maxSegmentBytes) {
+		super(keySerializer, valueSerializer, loadFactor, maxSegmentBytes);
+		this.file = file;
+	}
+
+	/**
+	 * Creates a new file holding an empty map able to take expectedSize entries.
+	 */
+	public static <K,V> MappedHashMap<K,V> create(Path file, Serializer<K> keySerializer, Serializer<V> valueSerializer,
+			int expectedSize) throws IOException {
+		return create(file, keySerializer, valueSerializer, expectedSize, OpenHashMap.DEFAULT_INITIAL_LOAD_FACTOR,
+				Buffers.MAX_SEGMENT_BYTES);
+	}
+
+	static <K,V> MappedHashMap<K,V> create(Path file, Serializer<K> keySerializer, Serializer<V> valueSerializer,
+			int expectedSize, float loadFactor, int maxSegmentBytes) throws IOException {
+		MappedHashMap<K,V> map = new MappedHashMap<>(file, keySerializer, valueSerializer, loadFactor, maxSegmentBytes);
+
+		int capacity = OpenHashMap.tableSizeFor(expectedSize);
+		while(Math.min((int) (capacity * loadFactor), capacity - 1) < expectedSize) {
+			if(capacity == MAXIMUM_CAPACITY)
+				throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+			capacity <<= 1;
+		}
+
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			map.map(channel, capacity);
+		}
+		map.writeHeader(STATE_CLEAN);
+		map.header.force();
+
+		return map;
+	}
+
+	/**
+	 * Maps an existing file created with serializers of the same sizes.
+	 *
+	 * @throws IOException when the file is not a map file, has another format version,
+	 * another slot layout or a corrupted header
+	 */
+	public static <K,V> MappedHashMap<K,V> open(Path file, Serializer<K> keySerializer, Serializer<V> valueSerializer)
+			throws IOException {
+		return open(file, keySerializer, valueSerializer, Buffers.MAX_SEGMENT_BYTES);
+	}
+
+	static <K,V> MappedHashMap<K,V> open(Path file, Serializer<K> keySerializer, Serializer<V> valueSerializer,
+			int maxSegmentBytes) throws IOException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			if(channel.size() < HEADER_SIZE)
+				throw new IOException("Not a map file: " + file);
+
+			MappedByteBuffer header = channel.map(MapMode.READ_WRITE, 0, HEADER_SIZE);
+			int magic = header.getInt(MAGIC_OFFSET);
+			int version = header.getInt(VERSION_OFFSET);
+			int keySize = header.getInt(KEY_SIZE_OFFSET);
+			int valueSize = header.getInt(VALUE_SIZE_OFFSET);
+			int capacity = header.getInt(CAPACITY_OFFSET);
+			float loadFactor = header.getFloat(LOAD_FACTOR_OFFSET);
+			boolean checksumMatches = header.getInt(CHECKSUM_OFFSET) == checksum(header);
+			Buffers.free(header);
+
+			if(magic != MAGIC)
+				throw new IOException("Not a map file: " + file);
+			if(version != VERSION)
+				throw new IOException("Unsupported map file version " + version + ": " + file);
+			if(!checksumMatches)
+				throw new IOException("Corrupted map file header: " + file);
+
+			MappedHashMap<K,V> map = new MappedHashMap<>(file, keySerializer, valueSerializer, loadFactor, maxSegmentBytes);
+			if(keySize != map.keySize || valueSize != map.valueSize)
+				throw new IOException("Map file holds " + keySize + "/" + valueSize + " byte keys/values: " + file);
+			if(channel.size() < HEADER_SIZE + (long) capacity * map.slotSize)
+				throw new IOException("Truncated map file: " + file);
+
+			map.map(channel, capacity);
+			map.size = map.header.getInt(SIZE_OFFSET);
+			if(map.header.getInt(STATE_OFFSET) != STATE_CLEAN)
+				map.size = map.countEntries();
+
+			return map;
+		}
+	}
+
+	/**
+	 * Flushes the table to the file, then records its size and marks the header clean.
+	 */
+	public void force() {
+		if(segments == null)
+			throw new IllegalStateException("Map is closed");
+
+		for(ByteBuffer segment : segments)
+			((MappedByteBuffer) segment).force();
+		writeHeader(STATE_CLEAN);
+		header.force();
+		dirty = false;
+	}
+
+	/**
+	 * Forces pending modifications and unmaps the file.
+	 */
+	@Override
+	public void close() {
+		if(segments == null)
+			return;
+		if(dirty)
+			force();
+		freeSegments();
+		Buffers.free(header);
+		header = null;
+	}
+
+	@Override
+	void grow() {
+		throw new IllegalStateException("Map is full, capacity " + capacity);
+	}
+
+	@Override
+	void beforeWrite() {
+		if(!dirty) {
+			dirty = true;
+			writeHeader(STATE_DIRTY);
+			header.force();
+		}
+	}
+
+	private void map(FileChannel channel, int capacity) throws IOException {
+		header = channel.map(MapMode.READ_WRITE, 0, HEADER_SIZE);
+
+		int slotsPerSegment = slotsPerSegment(capacity);
+		long segmentBytes = (long) slotsPerSegment * slotSize;
+		ByteBuffer[] newSegments = new ByteBuffer[capacity / slotsPerSegment];
+		for(int i = 0; i < newSegments.length; i++)
+			newSegments[i] = channel.map(MapMode.READ_WRITE, HEADER_SIZE + i * segmentBytes, segmentBytes);
+
+		useSegments(newSegments, capacity);
+	}
+
+	private void writeHeader(int state) {
+		header.putInt(MAGIC_OFFSET, MAGIC);
+		header.putInt(VERSION_OFFSET, VERSION);
+		header.putInt(KEY_SIZE_OFFSET, keySize);
+		header.putInt(VALUE_SIZE_OFFSET, valueSize);
+		header.putInt(CAPACITY_OFFSET, capacity);
+		header.putFloat(LOAD_FACTOR_OFFSET, loadFactor);
+		header.putInt(SIZE_OFFSET, size);
+		header.putInt(STATE_OFFSET, state);
+		header.putInt(CHECKSUM_OFFSET, checksum(header));
+	}
+
+	private int countEntries() {
+		int count = 0;
+		for(long slot = 0; slot < capacity; slot++)
+			if(hashAt(slot) != 0)
+				count++;
+		return count;
+	}
+
+	private static int checksum(ByteBuffer header) {
+		CRC32 crc = new CRC32();
+		for(int i = 0; i < CHECKSUM_OFFSET; i++)
+			crc.update(header.get(i));
+		return (int) crc.getValue();
+	}
+
+}
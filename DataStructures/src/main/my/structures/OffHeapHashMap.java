@@ -0,0 +1,86 @@
+package my.structures;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link OpenHashMap} variant storing its entries outside of the Java heap.
+ *
+ * Keys and values of fixed serialized size are kept in direct buffers of at most
+ * 1 GB each, so a table of several GB holds no object the garbage collector has to
+ * trace. The table doubles like OpenHashMap's, moving raw slot bytes without
+ * deserializing them.
+ *
+ * The map is not thread safe. close() releases the native memory, after which
+ * the map must not be used anymore.
+ *
+ * @author mone
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class OffHeapHashMap<K,V> extends AbstractBufferHashMap<K,V> {
+
+	public OffHeapHashMap(Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+		this(keySerializer, valueSerializer, OpenHashMap.DEFAULT_INITIAL_CAPACITY, OpenHashMap.DEFAULT_INITIAL_LOAD_FACTOR);
+	}
+
+	public OffHeapHashMap(Serializer<K> keySerializer, Serializer<V> valueSerializer, int initialCapacity, float loadFactor) {
+		this(keySerializer, valueSerializer, initialCapacity, loadFactor, Buffers.MAX_SEGMENT_BYTES);
+	}
+
+	OffHeapHashMap(Serializer<K> keySerializer, Serializer<V> valueSerializer, int initialCapacity, float loadFactor,
+			int maxSegmentBytes) {
+		super(keySerializer, valueSerializer, loadFactor, maxSegmentBytes);
+		if(initialCapacity < 0 || initialCapacity > MAXIMUM_CAPACITY)
+			throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+
+		int newCapacity = OpenHashMap.tableSizeFor(initialCapacity);
+		useSegments(allocateSegments(newCapacity), newCapacity);
+	}
+
+	@Override
+	public void close() {
+		freeSegments();
+		size = 0;
+	}
+
+	@Override
+	void grow() {
+		if(capacity == MAXIMUM_CAPACITY)
+			throw new IllegalStateException("Map is full");
+
+		ByteBuffer[] oldSegments = segments;
+		int oldCapacity = capacity;
+		int oldShift = segmentShift;
+		int oldMask = segmentMask;
+
+		int newCapacity = capacity << 1;
+		useSegments(allocateSegments(newCapacity), newCapacity);
+
+		for(long oldSlot = 0; oldSlot < oldCapacity; oldSlot++) {
+			ByteBuffer oldSegment = oldSegments[(int) (oldSlot >>> oldShift)];
+			int oldOffset = (int) (oldSlot & oldMask) * slotSize;
+			int hash = oldSegment.getInt(oldOffset);
+			if(hash == 0)
+				continue;
+
+			long slot = hash & mask;
+			while(hashAt(slot) != 0)
+				slot = (slot + 1) & mask;
+
+			Buffers.copy(oldSegment, oldOffset, segments[segmentOf(slot)], offsetOf(slot), slotSize);
+		}
+
+		for(ByteBuffer segment : oldSegments)
+			Buffers.free(segment);
+	}
+
+	private ByteBuffer[] allocateSegments(int newCapacity) {
+		int slotsPerSegment = slotsPerSegment(newCapacity);
+		ByteBuffer[] newSegments = new ByteBuffer[newCapacity / slotsPerSegment];
+		for(int i = 0; i < newSegments.length; i++)
+			newSegments[i] = ByteBuffer.allocateDirect(slotsPerSegment * slotSize);
+		return newSegments;
+	}
+
+}
@@ -0,0 +1,240 @@
+package my.structures;
+
+/**
+ * Open-addressing counterpart of {@link HashMap}, exposing the same
+ * put/get/containsKey/remove/size API.
+ *
+ * Mappings are kept in parallel key/value/hash arrays and collisions are
+ * resolved with linear probing, so a lookup touches consecutive slots instead
+ * of chasing Entry.next pointers and no object is allocated per mapping.
+ * Removal uses backward shifting, hence there are no tombstones to clean up.
+ *
+ * @author mone
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class OpenHashMap<K,V> {
+
+	Object[] keys;
+	Object[] values;
+	int[] hashes;
+
+	HashStrategy<? super K> hashStrategy;
+
+	boolean containsNullKey;
+	V nullKeyValue;
+
+	int size = 0;
+	int threshold;
+	float loadFactor;
+	int capacity;
+	int mask;
+
+	static final int DEFAULT_INITIAL_CAPACITY = 16;
+	static final float DEFAULT_INITIAL_LOAD_FACTOR = 0.75f;
+	static final int MAXIMUM_CAPACITY = 1 << 30;
+
+
+	public OpenHashMap() {
+		this(DEFAULT_INITIAL_CAPACITY, DEFAULT_INITIAL_LOAD_FACTOR);
+	}
+
+	public OpenHashMap(int initialCapacity, float loadFactor) {
+		this(initialCapacity, loadFactor, Hashing.identity());
+	}
+
+	/**
+	 * @param hashStrategy replaces key.hashCode(), its result is still mixed before probing
+	 */
+	public OpenHashMap(int initialCapacity, float loadFactor, HashStrategy<? super K> hashStrategy) {
+		if(initialCapacity < 0)
+			throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+		if(!(loadFactor > 0 && loadFactor < 1))
+			throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+
+		this.loadFactor = loadFactor;
+		this.hashStrategy = hashStrategy;
+		allocate(tableSizeFor(initialCapacity));
+	}
+
+	public V put(K key, V value) {
+		if(key == null)
+			return putForNullKey(value);
+
+		int hash = hash(key);
+		int index = indexOf(key, hash);
+
+		if(index >= 0) {
+			@SuppressWarnings("unchecked")
+			V oldValue = (V) values[index];
+			values[index] = value;
+			return oldValue;
+		}
+
+		addEntry(key, value, -index - 1, hash);
+
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V get(K key) {
+		if(key == null)
+			return nullKeyValue;
+
+		int index = indexOf(key, hash(key));
+
+		return index >= 0 ? (V) values[index] : null;
+	}
+
+	public boolean containsKey(K key) {
+		if(key == null)
+			return containsNullKey;
+
+		return indexOf(key, hash(key)) >= 0;
+	}
+
+	public V remove(K key) {
+		if(key == null)
+			return removeForNullKey();
+
+		int index = indexOf(key, hash(key));
+		if(index < 0)
+			return null;
+
+		@SuppressWarnings("unchecked")
+		V oldValue = (V) values[index];
+		shiftKeysBack(index);
+		size--;
+
+		return oldValue;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	private V putForNullKey(V value) {
+		V oldValue = nullKeyValue;
+		nullKeyValue = value;
+		if(!containsNullKey) {
+			containsNullKey = true;
+			size++;
+		}
+		return oldValue;
+	}
+
+	private V removeForNullKey() {
+		if(!containsNullKey)
+			return null;
+
+		V oldValue = nullKeyValue;
+		nullKeyValue = null;
+		containsNullKey = false;
+		size--;
+		return oldValue;
+	}
+
+	/**
+	 * Probes the table for key.
+	 *
+	 * @return slot index holding the key or (-(free slot) - 1) if key is absent
+	 */
+	private int indexOf(Object key, int hash) {
+		int index = hash & mask;
+		Object k;
+		while((k = keys[index]) != null) {
+			if(hashes[index] == hash && (k == key || k.equals(key)))
+				return index;
+			index = (index + 1) & mask;
+		}
+		return -index - 1;
+	}
+
+	private void addEntry(K key, V value, int index, int hash) {
+		// checked before storing, so that a failing put leaves the map unchanged with free slots ending the probes
+		if(size >= threshold && capacity == MAXIMUM_CAPACITY)
+			throw new IllegalStateException("Map is full");
+
+		keys[index] = key;
+		values[index] = value;
+		hashes[index] = hash;
+
+		if(++size > threshold)
+			rehash(capacity << 1);
+	}
+
+	/**
+	 * Closes the gap left at pos by moving back the following entries of
+	 * the cluster which would otherwise become unreachable.
+	 */
+	private void shiftKeysBack(int pos) {
+		int last, slot;
+		for(;;) {
+			pos = ((last = pos) + 1) & mask;
+			for(;;) {
+				if(keys[pos] == null) {
+					keys[last] = null;
+					values[last] = null;
+					return;
+				}
+				slot = hashes[pos] & mask;
+				if(last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos)
+					break;
+				pos = (pos + 1) & mask;
+			}
+			keys[last] = keys[pos];
+			values[last] = values[pos];
+			hashes[last] = hashes[pos];
+		}
+	}
+
+	private void rehash(int newCapacity) {
+		if(capacity == MAXIMUM_CAPACITY)
+			throw new IllegalStateException("Map is full");
+
+		Object[] oldKeys = keys;
+		Object[] oldValues = values;
+		int[] oldHashes = hashes;
+
+		allocate(newCapacity);
+
+		for(int i = 0; i < oldKeys.length; i++) {
+			if(oldKeys[i] == null)
+				continue;
+
+			int index = oldHashes[i] & mask;
+			while(keys[index] != null)
+				index = (index + 1) & mask;
+
+			keys[index] = oldKeys[i];
+			values[index] = oldValues[i];
+			hashes[index] = oldHashes[i];
+		}
+	}
+
+	private void allocate(int newCapacity) {
+		capacity = newCapacity;
+		mask = newCapacity - 1;
+		threshold = Math.min((int) (newCapacity * loadFactor), newCapacity - 1);
+		keys = new Object[newCapacity];
+		values = new Object[newCapacity];
+		hashes = new int[newCapacity];
+	}
+
+	/**
+	 * Spreads hash bits so that sequential and low-entropy hash codes do not
+	 * form long probe clusters under power of two masking.
+	 */
+	int hash(K key) {
+		return Hashing.phiMix(hashStrategy.hash(key));
+	}
+
+	static int tableSizeFor(int capacity) {
+		int n = 2;
+		while(n < capacity && n < MAXIMUM_CAPACITY)
+			n <<= 1;
+		return n;
+	}
+
+}
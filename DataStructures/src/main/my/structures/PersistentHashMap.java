@@ -0,0 +1,737 @@
+package my.structures;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable hash array mapped trie: put and remove return a new map sharing all nodes but
+ * the O(log32 n) ones on the path to the changed key, so versions are cheap to keep and a map
+ * can be read by any number of threads without locking while a writer derives the next one.
+ *
+ * Keys are hashed as by {@link HashMap}, with its HashStrategy, 5 bits of the hash per level.
+ * Nodes are laid out CHAMP style: a bitmap of the slots holding mappings and another of the
+ * slots holding sub-nodes, mappings first in one array and sub-nodes from its end, removals
+ * pulling single mappings back up so that a map has one shape whatever its history. Keys
+ * whose 32 hash bits all collide share a collision node at the bottom of the trie.
+ *
+ * Bulk edits go through a {@link Builder}, a transient version of the map that updates in
+ * place the nodes it created itself and copies the others once.
+ *
+ * Maps are safely published by their final fields, readers can also be handed the current
+ * version through a volatile field or an AtomicReference.
+ *
+ * @author mone
+ *
+ * @param <K>
+ * @param <V>
+ */
+public final class PersistentHashMap<K,V> implements Iterable<java.util.Map.Entry<K,V>> {
+
+	static final int BITS = 5;
+	static final int MASK = (1 << BITS) - 1;
+	/** Deepest trie, the last level using the 2 remaining bits of the hash */
+	static final int MAX_DEPTH = (Integer.SIZE + BITS - 1) / BITS;
+
+	/** Returned by find for missing keys, as values may be null */
+	static final Object NOT_FOUND = new Object();
+
+	private static final PersistentHashMap<Object,Object> EMPTY = new PersistentHashMap<>(BitmapNode.empty(), 0, Hashing.identity());
+
+	final Node<K,V> root;
+	final int size;
+	final HashStrategy<? super K> hashStrategy;
+
+
+	private PersistentHashMap(Node<K,V> root, int size, HashStrategy<? super K> hashStrategy) {
+		this.root = root;
+		this.size = size;
+		this.hashStrategy = hashStrategy;
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <K,V> PersistentHashMap<K,V> empty() {
+		return (PersistentHashMap<K,V>) EMPTY;
+	}
+
+	/**
+	 * @param hashStrategy replaces key.hashCode(), as for HashMap
+	 */
+	public static <K,V> PersistentHashMap<K,V> empty(HashStrategy<? super K> hashStrategy) {
+		return new PersistentHashMap<>(BitmapNode.empty(), 0, hashStrategy);
+	}
+
+	/**
+	 * Copies the mappings of map, reusing the hashes its entries cache.
+	 */
+	public static <K,V> PersistentHashMap<K,V> copyOf(HashMap<K,V> map) {
+		Builder<K,V> builder = PersistentHashMap.<K,V>empty(map.hashStrategy).toBuilder();
+		builder.putAll(map.table);
+		if(map.oldTable != null)
+			builder.putAll(map.oldTable);
+		return builder.build();
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V get(K key) {
+		Object value = root.find(key, hash(key), 0);
+		return value != NOT_FOUND ? (V) value : null;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V getOrDefault(K key, V defaultValue) {
+		Object value = root.find(key, hash(key), 0);
+		return value != NOT_FOUND ? (V) value : defaultValue;
+	}
+
+	public boolean containsKey(K key) {
+		return root.find(key, hash(key), 0) != NOT_FOUND;
+	}
+
+	/**
+	 * @return map with key mapped to value, this map if it already was
+	 */
+	public PersistentHashMap<K,V> put(K key, V value) {
+		Change<K,V> change = new Change<>(hashStrategy);
+		Node<K,V> newRoot = root.put(null, key, value, hash(key), 0, change);
+		if(newRoot == root)
+			return this;
+		return new PersistentHashMap<>(newRoot, change.added ? size + 1 : size, hashStrategy);
+	}
+
+	/**
+	 * @return map without key, this map if key was not mapped
+	 */
+	public PersistentHashMap<K,V> remove(K key) {
+		Change<K,V> change = new Change<>(hashStrategy);
+		Node<K,V> newRoot = root.remove(null, key, hash(key), 0, change);
+		if(newRoot == root)
+			return this;
+		return new PersistentHashMap<>(newRoot, size - 1, hashStrategy);
+	}
+
+	/**
+	 * @return transient copy of this map, for bulk edits
+	 */
+	public Builder<K,V> toBuilder() {
+		return new Builder<>(this);
+	}
+
+	public void forEach(BiConsumer<? super K, ? super V> action) {
+		root.forEach(action);
+	}
+
+	@Override
+	public Iterator<java.util.Map.Entry<K,V>> iterator() {
+		return new EntryIterator<>(root);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("{");
+		forEach((key, value) -> {
+			if(builder.length() > 1)
+				builder.append(", ");
+			builder.append(key).append('=').append(value);
+		});
+		return builder.append('}').toString();
+	}
+
+	int hash(K key) {
+		return hash(hashStrategy, key);
+	}
+
+	static <K> int hash(HashStrategy<? super K> hashStrategy, K key) {
+		if(key == null)
+			return 0;
+		return hashStrategy.hash(key);
+	}
+
+	static int bitFor(int hash, int shift) {
+		return 1 << ((hash >>> shift) & MASK);
+	}
+
+	/**
+	 * Mutable version of a PersistentHashMap. Nodes carry the owner token of the builder that
+	 * created them and are updated in place by that builder only, so a build() costs nothing
+	 * and the maps built before keep their content. A builder is not thread-safe and cannot be
+	 * used once built.
+	 *
+	 * @param <K>
+	 * @param <V>
+	 */
+	public static final class Builder<K,V> {
+		final HashStrategy<? super K> hashStrategy;
+		/** Identifies the nodes of this builder, null once built */
+		Object owner = new Object();
+		Node<K,V> root;
+		int size;
+
+		Builder(PersistentHashMap<K,V> map) {
+			hashStrategy = map.hashStrategy;
+			root = map.root;
+			size = map.size;
+		}
+
+		public int size() {
+			ensureOwner();
+			return size;
+		}
+
+		@SuppressWarnings("unchecked")
+		public V get(K key) {
+			ensureOwner();
+			Object value = root.find(key, hash(hashStrategy, key), 0);
+			return value != NOT_FOUND ? (V) value : null;
+		}
+
+		public boolean containsKey(K key) {
+			ensureOwner();
+			return root.find(key, hash(hashStrategy, key), 0) != NOT_FOUND;
+		}
+
+		/**
+		 * @return previous value of key, null if there was none
+		 */
+		public V put(K key, V value) {
+			return put(key, value, hash(hashStrategy, key));
+		}
+
+		V put(K key, V value, int hash) {
+			ensureOwner();
+			Change<K,V> change = new Change<>(hashStrategy);
+			root = root.put(owner, key, value, hash, 0, change);
+			if(change.added)
+				size++;
+			return change.oldValue;
+		}
+
+		public Builder<K,V> putAll(PersistentHashMap<? extends K, ? extends V> map) {
+			map.forEach(this::put);
+			return this;
+		}
+
+		/**
+		 * Puts the entries of a HashMap table hashed with the strategy of this builder.
+		 */
+		void putAll(HashMap.Entry<K,V>[] table) {
+			for(HashMap.Entry<K,V> entry : table) {
+				for(; entry != null; entry = entry.next)
+					put(entry.key, entry.getValue(), entry.hash);
+			}
+		}
+
+		/**
+		 * @return previous value of key, null if there was none
+		 */
+		public V remove(K key) {
+			ensureOwner();
+			Change<K,V> change = new Change<>(hashStrategy);
+			root = root.remove(owner, key, hash(hashStrategy, key), 0, change);
+			if(change.removed)
+				size--;
+			return change.oldValue;
+		}
+
+		/**
+		 * @return map of the mappings of this builder, which cannot be used afterwards
+		 */
+		public PersistentHashMap<K,V> build() {
+			ensureOwner();
+			owner = null;
+			return new PersistentHashMap<>(root, size, hashStrategy);
+		}
+
+		private void ensureOwner() {
+			if(owner == null)
+				throw new IllegalStateException("Builder already built");
+		}
+	}
+
+	/**
+	 * Outcome of an update, filled in by the nodes along the path.
+	 */
+	static final class Change<K,V> {
+		final HashStrategy<? super K> hashStrategy;
+		boolean added;
+		boolean removed;
+		V oldValue;
+
+		Change(HashStrategy<? super K> hashStrategy) {
+			this.hashStrategy = hashStrategy;
+		}
+
+		int hash(K key) {
+			return PersistentHashMap.hash(hashStrategy, key);
+		}
+	}
+
+	abstract static class Node<K,V> {
+		/** Builder allowed to update this node in place, null for nodes of persistent maps */
+		Object owner;
+
+		Node(Object owner) {
+			this.owner = owner;
+		}
+
+		boolean isEditableBy(Object owner) {
+			return owner != null && this.owner == owner;
+		}
+
+		/**
+		 * @return value of key, NOT_FOUND if it is missing
+		 */
+		abstract Object find(K key, int hash, int shift);
+
+		/**
+		 * @return node with key mapped to value, this node if it already was
+		 */
+		abstract Node<K,V> put(Object owner, K key, V value, int hash, int shift, Change<K,V> change);
+
+		/**
+		 * @return node without key, this node if key is missing
+		 */
+		abstract Node<K,V> remove(Object owner, K key, int hash, int shift, Change<K,V> change);
+
+		/**
+		 * @return true if this node holds a single mapping and no sub-node, its parent then
+		 * holding that mapping itself
+		 */
+		abstract boolean isSingleMapping();
+
+		abstract void forEach(BiConsumer<? super K, ? super V> action);
+
+		/** Mappings and sub-nodes, at indices 0 to 2 * mappings() - 1 and the following ones */
+		abstract Object[] content();
+
+		abstract int mappings();
+	}
+
+	static final class BitmapNode<K,V> extends Node<K,V> {
+		static final BitmapNode<Object,Object> EMPTY = new BitmapNode<>(null, 0, 0, new Object[0]);
+
+		int dataMap;
+		int nodeMap;
+		/** Keys and values in pairs, then sub-nodes in reverse slot order */
+		Object[] content;
+
+		BitmapNode(Object owner, int dataMap, int nodeMap, Object[] content) {
+			super(owner);
+			this.dataMap = dataMap;
+			this.nodeMap = nodeMap;
+			this.content = content;
+		}
+
+		/**
+		 * @return shared empty root, never updated in place as it has no owner
+		 */
+		@SuppressWarnings("unchecked")
+		static <K,V> BitmapNode<K,V> empty() {
+			return (BitmapNode<K,V>) EMPTY;
+		}
+
+		/**
+		 * @return node of a single mapping, valid as a root
+		 */
+		static <K,V> BitmapNode<K,V> of(Object owner, K key, V value, int hash) {
+			return new BitmapNode<>(owner, bitFor(hash, 0), 0, new Object[] { key, value });
+		}
+
+		/**
+		 * @return sub-tree holding two keys of different hashes or keys, from level shift down
+		 */
+		static <K,V> Node<K,V> merge(Object owner, K key1, V value1, int hash1, K key2, V value2, int hash2, int shift) {
+			if(shift >= Integer.SIZE)
+				return new CollisionNode<>(owner, hash1, new Object[] { key1, value1, key2, value2 });
+
+			int bit1 = bitFor(hash1, shift);
+			int bit2 = bitFor(hash2, shift);
+			if(bit1 != bit2) {
+				Object[] content = Integer.compareUnsigned(bit1, bit2) < 0
+						? new Object[] { key1, value1, key2, value2 }
+						: new Object[] { key2, value2, key1, value1 };
+				return new BitmapNode<>(owner, bit1 | bit2, 0, content);
+			}
+			Node<K,V> node = merge(owner, key1, value1, hash1, key2, value2, hash2, shift + BITS);
+			return new BitmapNode<>(owner, 0, bit1, new Object[] { node });
+		}
+
+		int dataIndex(int bit) {
+			return (Integer.bitCount(dataMap & (bit - 1))) << 1;
+		}
+
+		int nodeIndex(int bit) {
+			return content.length - 1 - Integer.bitCount(nodeMap & (bit - 1));
+		}
+
+		@SuppressWarnings("unchecked")
+		Node<K,V> nodeAt(int bit) {
+			return (Node<K,V>) content[nodeIndex(bit)];
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		Object find(K key, int hash, int shift) {
+			BitmapNode<K,V> node = this;
+			while(true) {
+				int bit = bitFor(hash, shift);
+				if((node.dataMap & bit) != 0) {
+					int index = node.dataIndex(bit);
+					return Objects.equals(key, node.content[index]) ? node.content[index + 1] : NOT_FOUND;
+				}
+				if((node.nodeMap & bit) == 0)
+					return NOT_FOUND;
+
+				Node<K,V> child = node.nodeAt(bit);
+				shift += BITS;
+				if(!(child instanceof BitmapNode))
+					return child.find(key, hash, shift);
+				node = (BitmapNode<K,V>) child;
+			}
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		Node<K,V> put(Object owner, K key, V value, int hash, int shift, Change<K,V> change) {
+			int bit = bitFor(hash, shift);
+			if((dataMap & bit) != 0) {
+				int index = dataIndex(bit);
+				K existingKey = (K) content[index];
+				if(Objects.equals(key, existingKey)) {
+					V oldValue = (V) content[index + 1];
+					change.oldValue = oldValue;
+					if(oldValue == value)
+						return this;
+					BitmapNode<K,V> node = editable(owner);
+					node.content[index + 1] = value;
+					return node;
+				}
+
+				V existingValue = (V) content[index + 1];
+				Node<K,V> child = merge(owner, existingKey, existingValue, change.hash(existingKey), key, value, hash, shift + BITS);
+				change.added = true;
+				return copyAndMigrateToNode(owner, bit, child);
+			}
+
+			if((nodeMap & bit) != 0) {
+				Node<K,V> child = nodeAt(bit);
+				Node<K,V> newChild = child.put(owner, key, value, hash, shift + BITS, change);
+				if(newChild == child)
+					return this;
+				return copyAndSetNode(owner, bit, newChild);
+			}
+
+			change.added = true;
+			return copyAndInsertMapping(owner, bit, key, value);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		Node<K,V> remove(Object owner, K key, int hash, int shift, Change<K,V> change) {
+			int bit = bitFor(hash, shift);
+			if((dataMap & bit) != 0) {
+				int index = dataIndex(bit);
+				if(!Objects.equals(key, content[index]))
+					return this;
+
+				change.removed = true;
+				change.oldValue = (V) content[index + 1];
+				if(shift > 0 && nodeMap == 0 && Integer.bitCount(dataMap) == 2) {
+					// the remaining mapping goes up to the parent, which finds it in a valid root
+					int other = index == 0 ? 2 : 0;
+					K otherKey = (K) content[other];
+					return of(owner, otherKey, (V) content[other + 1], change.hash(otherKey));
+				}
+				return copyAndRemoveMapping(owner, bit);
+			}
+
+			if((nodeMap & bit) != 0) {
+				Node<K,V> child = nodeAt(bit);
+				Node<K,V> newChild = child.remove(owner, key, hash, shift + BITS, change);
+				if(newChild == child)
+					return this;
+				if(!newChild.isSingleMapping())
+					return copyAndSetNode(owner, bit, newChild);
+				if(dataMap == 0 && Integer.bitCount(nodeMap) == 1)
+					return newChild;
+				return copyAndMigrateToMapping(owner, bit, newChild);
+			}
+
+			return this;
+		}
+
+		@Override
+		boolean isSingleMapping() {
+			return nodeMap == 0 && Integer.bitCount(dataMap) == 1;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		void forEach(BiConsumer<? super K, ? super V> action) {
+			int mappings = Integer.bitCount(dataMap) << 1;
+			for(int i = 0; i < mappings; i += 2)
+				action.accept((K) content[i], (V) content[i + 1]);
+			for(int i = content.length - 1; i >= mappings; i--)
+				((Node<K,V>) content[i]).forEach(action);
+		}
+
+		@Override
+		Object[] content() {
+			return content;
+		}
+
+		@Override
+		int mappings() {
+			return Integer.bitCount(dataMap);
+		}
+
+		private BitmapNode<K,V> editable(Object owner) {
+			if(isEditableBy(owner))
+				return this;
+			return new BitmapNode<>(owner, dataMap, nodeMap, content.clone());
+		}
+
+		private BitmapNode<K,V> copyAndSetNode(Object owner, int bit, Node<K,V> node) {
+			int index = nodeIndex(bit);
+			BitmapNode<K,V> editable = editable(owner);
+			editable.content[index] = node;
+			return editable;
+		}
+
+		private BitmapNode<K,V> copyAndInsertMapping(Object owner, int bit, K key, V value) {
+			int index = dataIndex(bit);
+			Object[] newContent = new Object[content.length + 2];
+			System.arraycopy(content, 0, newContent, 0, index);
+			newContent[index] = key;
+			newContent[index + 1] = value;
+			System.arraycopy(content, index, newContent, index + 2, content.length - index);
+			return update(owner, dataMap | bit, nodeMap, newContent);
+		}
+
+		private BitmapNode<K,V> copyAndRemoveMapping(Object owner, int bit) {
+			int index = dataIndex(bit);
+			Object[] newContent = new Object[content.length - 2];
+			System.arraycopy(content, 0, newContent, 0, index);
+			System.arraycopy(content, index + 2, newContent, index, content.length - index - 2);
+			return update(owner, dataMap ^ bit, nodeMap, newContent);
+		}
+
+		/**
+		 * Replaces the mapping of bit by node, which holds it and the mapping being added.
+		 */
+		private BitmapNode<K,V> copyAndMigrateToNode(Object owner, int bit, Node<K,V> node) {
+			int oldIndex = dataIndex(bit);
+			int newIndex = content.length - 2 - Integer.bitCount(nodeMap & (bit - 1));
+			Object[] newContent = new Object[content.length - 1];
+			System.arraycopy(content, 0, newContent, 0, oldIndex);
+			System.arraycopy(content, oldIndex + 2, newContent, oldIndex, newIndex - oldIndex);
+			newContent[newIndex] = node;
+			System.arraycopy(content, newIndex + 2, newContent, newIndex + 1, content.length - newIndex - 2);
+			return update(owner, dataMap ^ bit, nodeMap | bit, newContent);
+		}
+
+		/**
+		 * Replaces the sub-node of bit by the single mapping it holds.
+		 */
+		private BitmapNode<K,V> copyAndMigrateToMapping(Object owner, int bit, Node<K,V> node) {
+			int oldIndex = nodeIndex(bit);
+			int newIndex = dataIndex(bit);
+			Object[] newContent = new Object[content.length + 1];
+			System.arraycopy(content, 0, newContent, 0, newIndex);
+			newContent[newIndex] = node.content()[0];
+			newContent[newIndex + 1] = node.content()[1];
+			System.arraycopy(content, newIndex, newContent, newIndex + 2, oldIndex - newIndex);
+			System.arraycopy(content, oldIndex + 1, newContent, oldIndex + 2, content.length - oldIndex - 1);
+			return update(owner, dataMap | bit, nodeMap ^ bit, newContent);
+		}
+
+		private BitmapNode<K,V> update(Object owner, int dataMap, int nodeMap, Object[] content) {
+			if(!isEditableBy(owner))
+				return new BitmapNode<>(owner, dataMap, nodeMap, content);
+			this.dataMap = dataMap;
+			this.nodeMap = nodeMap;
+			this.content = content;
+			return this;
+		}
+	}
+
+	/**
+	 * Keys of the same 32 bit hash, in an array searched linearly.
+	 */
+	static final class CollisionNode<K,V> extends Node<K,V> {
+		final int hash;
+		/** Keys and values in pairs, at least two pairs */
+		Object[] content;
+
+		CollisionNode(Object owner, int hash, Object[] content) {
+			super(owner);
+			this.hash = hash;
+			this.content = content;
+		}
+
+		int indexOf(K key) {
+			for(int i = 0; i < content.length; i += 2) {
+				if(Objects.equals(key, content[i]))
+					return i;
+			}
+			return -1;
+		}
+
+		@Override
+		Object find(K key, int hash, int shift) {
+			int index = indexOf(key);
+			return index >= 0 ? content[index + 1] : NOT_FOUND;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		Node<K,V> put(Object owner, K key, V value, int hash, int shift, Change<K,V> change) {
+			int index = indexOf(key);
+			if(index >= 0) {
+				V oldValue = (V) content[index + 1];
+				change.oldValue = oldValue;
+				if(oldValue == value)
+					return this;
+				Object[] newContent = isEditableBy(owner) ? content : content.clone();
+				newContent[index + 1] = value;
+				return update(owner, newContent);
+			}
+
+			Object[] newContent = new Object[content.length + 2];
+			System.arraycopy(content, 0, newContent, 0, content.length);
+			newContent[content.length] = key;
+			newContent[content.length + 1] = value;
+			change.added = true;
+			return update(owner, newContent);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		Node<K,V> remove(Object owner, K key, int hash, int shift, Change<K,V> change) {
+			int index = indexOf(key);
+			if(index < 0)
+				return this;
+
+			change.removed = true;
+			change.oldValue = (V) content[index + 1];
+			if(content.length == 4) {
+				int other = index == 0 ? 2 : 0;
+				return BitmapNode.of(owner, (K) content[other], (V) content[other + 1], this.hash);
+			}
+
+			Object[] newContent = new Object[content.length - 2];
+			System.arraycopy(content, 0, newContent, 0, index);
+			System.arraycopy(content, index + 2, newContent, index, content.length - index - 2);
+			return update(owner, newContent);
+		}
+
+		@Override
+		boolean isSingleMapping() {
+			return false;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		void forEach(BiConsumer<? super K, ? super V> action) {
+			for(int i = 0; i < content.length; i += 2)
+				action.accept((K) content[i], (V) content[i + 1]);
+		}
+
+		@Override
+		Object[] content() {
+			return content;
+		}
+
+		@Override
+		int mappings() {
+			return content.length >> 1;
+		}
+
+		private CollisionNode<K,V> update(Object owner, Object[] content) {
+			if(!isEditableBy(owner))
+				return new CollisionNode<>(owner, hash, content);
+			this.content = content;
+			return this;
+		}
+	}
+
+	/**
+	 * Depth first walk of the trie, the nodes of the current path on a stack.
+	 */
+	static final class EntryIterator<K,V> implements Iterator<java.util.Map.Entry<K,V>> {
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		final Node<K,V>[] nodes = new Node[MAX_DEPTH + 2];
+		/** Next mapping or sub-node to visit in each node of the stack, counted in content slots */
+		final int[] positions = new int[MAX_DEPTH + 2];
+		int depth;
+		Node<K,V> mappingNode;
+		int mappingIndex;
+
+		EntryIterator(Node<K,V> root) {
+			nodes[0] = root;
+			depth = 0;
+			advance();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return mappingNode != null;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public java.util.Map.Entry<K,V> next() {
+			if(mappingNode == null)
+				throw new NoSuchElementException();
+
+			Object[] content = mappingNode.content();
+			java.util.Map.Entry<K,V> entry = new SimpleImmutableEntry<>((K) content[mappingIndex], (V) content[mappingIndex + 1]);
+			advance();
+			return entry;
+		}
+
+		/**
+		 * Moves to the next mapping: the next one of the current node, else the first one
+		 * of its next sub-nodes, else up the stack.
+		 */
+		@SuppressWarnings("unchecked")
+		private void advance() {
+			while(depth >= 0) {
+				Node<K,V> node = nodes[depth];
+				Object[] content = node.content();
+				int mappings = node.mappings() << 1;
+				int position = positions[depth];
+				if(position < mappings) {
+					positions[depth] = position + 2;
+					mappingNode = node;
+					mappingIndex = position;
+					return;
+				}
+
+				int child = content.length - 1 - (position - mappings);
+				if(child >= mappings && node instanceof BitmapNode) {
+					positions[depth] = position + 1;
+					depth++;
+					nodes[depth] = (Node<K,V>) content[child];
+					positions[depth] = 0;
+					continue;
+				}
+
+				nodes[depth] = null;
+				depth--;
+			}
+			mappingNode = null;
+		}
+	}
+
+}
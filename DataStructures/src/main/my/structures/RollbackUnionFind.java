@@ -0,0 +1,131 @@
+package my.structures;
+
+import java.util.Arrays;
+
+/**
+ * Union find whose unions can be undone in reverse order, over the dense ids 0..size-1.
+ *
+ * find never compresses paths, so a union changes exactly one parent and one size, and
+ * undoing it only needs the root that was linked, kept on an int stack. Linking by size
+ * still bounds the trees to log2(size) levels, so find, union and undo all run in
+ * O(log size).
+ *
+ * @author mone
+ *
+ */
+public class RollbackUnionFind {
+
+	final int[] parent;
+	final int[] size;
+	/** Roots linked by the unions not undone yet, the latest last */
+	int[] linked;
+	int unions;
+
+
+	/**
+	 * @param size number of elements, each in a set of its own
+	 */
+	public RollbackUnionFind(int size) {
+		if(size < 0)
+			throw new IllegalArgumentException("Illegal size: " + size);
+
+		parent = new int[size];
+		this.size = new int[size];
+		for(int i = 0; i < size; i++) {
+			parent[i] = i;
+			this.size[i] = 1;
+		}
+		linked = new int[IntUnionFind.DEFAULT_INITIAL_CAPACITY];
+	}
+
+	public int find(int element) {
+		if(element < 0 || element >= parent.length)
+			throw new IllegalArgumentException("Unknown element: " + element);
+
+		while(parent[element] != element)
+			element = parent[element];
+		return element;
+	}
+
+	/**
+	 * Merges the sets of both elements, linking the smaller under the larger one.
+	 *
+	 * @return false if they already were in the same set, nothing being recorded then
+	 */
+	public boolean union(int element1, int element2) {
+		int root1 = find(element1);
+		int root2 = find(element2);
+		if(root1 == root2)
+			return false;
+
+		if(size[root1] > size[root2]) {
+			int root = root1;
+			root1 = root2;
+			root2 = root;
+		}
+		parent[root1] = root2;
+		size[root2] += size[root1];
+
+		if(unions == linked.length)
+			linked = Arrays.copyOf(linked, linked.length << 1);
+		linked[unions++] = root1;
+		return true;
+	}
+
+	public boolean connected(int element1, int element2) {
+		return find(element1) == find(element2);
+	}
+
+	/**
+	 * @return number of elements in the set of element
+	 */
+	public int setSize(int element) {
+		return size[find(element)];
+	}
+
+	/**
+	 * @return state to roll back to, the number of unions done so far
+	 */
+	public int snapshot() {
+		return unions;
+	}
+
+	/**
+	 * Undoes the unions done since snapshot was taken, latest first.
+	 */
+	public void rollback(int snapshot) {
+		if(snapshot < 0 || snapshot > unions)
+			throw new IllegalArgumentException("Illegal snapshot: " + snapshot + " with " + unions + " unions");
+
+		while(unions > snapshot)
+			undo();
+	}
+
+	/**
+	 * Undoes the latest union.
+	 */
+	public void undo() {
+		if(unions == 0)
+			throw new IllegalStateException("No union to undo");
+
+		int root = linked[--unions];
+		int newRoot = parent[root];
+		size[newRoot] -= size[root];
+		parent[root] = root;
+	}
+
+	/**
+	 * @return number of elements
+	 */
+	public int size() {
+		return parent.length;
+	}
+
+	/**
+	 * @return number of disjoint sets
+	 */
+	public int components() {
+		return parent.length - unions;
+	}
+
+}
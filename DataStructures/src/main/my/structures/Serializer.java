@@ -0,0 +1,27 @@
+package my.structures;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts keys and values to and from bytes for the maps storing them outside of the Java heap.
+ *
+ * write and read work at the buffer's current position and advance it by the encoded size.
+ *
+ * @author mone
+ *
+ * @param <T>
+ */
+public interface Serializer<T> {
+
+	/**
+	 * @return number of bytes every value is encoded in, or -1 when the size depends on the value
+	 */
+	int fixedSize();
+
+	int size(T value);
+
+	void write(T value, ByteBuffer buffer);
+
+	T read(ByteBuffer buffer);
+
+}
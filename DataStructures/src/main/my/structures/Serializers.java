@@ -0,0 +1,100 @@
+package my.structures;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serializers for common key and value types.
+ *
+ * @author mone
+ *
+ */
+public final class Serializers {
+
+	public static final Serializer<Integer> INT = new Serializer<Integer>() {
+		@Override
+		public int fixedSize() {
+			return Integer.BYTES;
+		}
+		@Override
+		public int size(Integer value) {
+			return Integer.BYTES;
+		}
+		@Override
+		public void write(Integer value, ByteBuffer buffer) {
+			buffer.putInt(value);
+		}
+		@Override
+		public Integer read(ByteBuffer buffer) {
+			return buffer.getInt();
+		}
+	};
+
+	public static final Serializer<Long> LONG = new Serializer<Long>() {
+		@Override
+		public int fixedSize() {
+			return Long.BYTES;
+		}
+		@Override
+		public int size(Long value) {
+			return Long.BYTES;
+		}
+		@Override
+		public void write(Long value, ByteBuffer buffer) {
+			buffer.putLong(value);
+		}
+		@Override
+		public Long read(ByteBuffer buffer) {
+			return buffer.getLong();
+		}
+	};
+
+	public static final Serializer<Double> DOUBLE = new Serializer<Double>() {
+		@Override
+		public int fixedSize() {
+			return Double.BYTES;
+		}
+		@Override
+		public int size(Double value) {
+			return Double.BYTES;
+		}
+		@Override
+		public void write(Double value, ByteBuffer buffer) {
+			buffer.putDouble(value);
+		}
+		@Override
+		public Double read(ByteBuffer buffer) {
+			return buffer.getDouble();
+		}
+	};
+
+	/**
+	 * UTF-8 bytes preceded by their int length.
+	 */
+	public static final Serializer<String> STRING = new Serializer<String>() {
+		@Override
+		public int fixedSize() {
+			return -1;
+		}
+		@Override
+		public int size(String value) {
+			return Integer.BYTES + value.getBytes(StandardCharsets.UTF_8).length;
+		}
+		@Override
+		public void write(String value, ByteBuffer buffer) {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			buffer.putInt(bytes.length);
+			buffer.put(bytes);
+		}
+		@Override
+		public String read(ByteBuffer buffer) {
+			byte[] bytes = new byte[buffer.getInt()];
+			buffer.get(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	};
+
+	private Serializers() {
+	}
+
+}
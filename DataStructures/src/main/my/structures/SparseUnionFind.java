@@ -0,0 +1,97 @@
+package my.structures;
+
+import java.util.Arrays;
+
+/**
+ * Union find over arbitrary int ids, e.g. node numbers of a sparse graph. Ids are mapped to
+ * the dense elements of an {@link IntUnionFind} in the order they are first seen, through an
+ * {@link IntIntHashMap}, and mapped back by an int array.
+ *
+ * An id never passed to union is in a set of its own: find returns it as is.
+ *
+ * @author mone
+ *
+ */
+public class SparseUnionFind {
+
+	final IntIntHashMap elements;
+	final IntUnionFind unionFind;
+	/** Id of every element */
+	int[] ids;
+
+
+	public SparseUnionFind() {
+		this(IntUnionFind.DEFAULT_INITIAL_CAPACITY);
+	}
+
+	/**
+	 * @param expectedSize number of distinct ids held without resizing
+	 */
+	public SparseUnionFind(int expectedSize) {
+		if(expectedSize < 0)
+			throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+
+		elements = new IntIntHashMap((int) Math.min(expectedSize / (long) 3 * 4 + 1, HashMap.MAXIMUM_CAPACITY),
+				OpenHashMap.DEFAULT_INITIAL_LOAD_FACTOR);
+		unionFind = new IntUnionFind(0);
+		ids = new int[Math.max(expectedSize, IntUnionFind.DEFAULT_INITIAL_CAPACITY)];
+	}
+
+	/**
+	 * Adds id in a set of its own, if not there yet.
+	 */
+	public void add(int id) {
+		elementOf(id);
+	}
+
+	/**
+	 * @return id of the root of the set of id
+	 */
+	public int find(int id) {
+		int element = elements.getOrDefault(id, -1);
+		if(element < 0)
+			return id;
+		return ids[unionFind.find(element)];
+	}
+
+	/**
+	 * Merges the sets of both ids, adding the ids not seen yet.
+	 *
+	 * @return false if they already were in the same set
+	 */
+	public boolean union(int id1, int id2) {
+		return unionFind.union(elementOf(id1), elementOf(id2));
+	}
+
+	public boolean connected(int id1, int id2) {
+		return find(id1) == find(id2);
+	}
+
+	/**
+	 * @return number of distinct ids added
+	 */
+	public int size() {
+		return unionFind.size();
+	}
+
+	/**
+	 * @return number of disjoint sets of the ids added
+	 */
+	public int components() {
+		return unionFind.components();
+	}
+
+	private int elementOf(int id) {
+		int element = elements.getOrDefault(id, -1);
+		if(element >= 0)
+			return element;
+
+		element = unionFind.add();
+		elements.put(id, element);
+		if(element == ids.length)
+			ids = Arrays.copyOf(ids, unionFind.parent.length);
+		ids[element] = id;
+		return element;
+	}
+
+}
@@ -0,0 +1,165 @@
+package my.structures;
+
+import java.util.function.Consumer;
+
+import my.structures.Cache.CacheEntry;
+
+/**
+ * Hierarchical timing wheel scheduling the expiration of cache entries, Kafka/Caffeine
+ * style. Each level is a ring of buckets, a bucket being a circular list threaded
+ * through the entries. Levels have coarser buckets than the previous one: about
+ * 1 second, 1 minute, 1 hour, 1 day and 6 days, the last level holding everything
+ * further away.
+ *
+ * Scheduling and descheduling are O(1). Advancing the clock visits only the buckets the
+ * clock went past; their entries either expire or cascade to a finer bucket, so each
+ * entry is handled a few times at most before expiring.
+ *
+ * @author mone
+ *
+ * @param <K>
+ * @param <V>
+ */
+final class TimerWheel<K,V> {
+
+	static final int[] BUCKETS = { 64, 64, 32, 4, 1 };
+	static final long[] SPANS = {
+			Long.highestOneBit(TimeUnitNanos.SECOND - 1) << 1,	// 1.07s
+			Long.highestOneBit(TimeUnitNanos.MINUTE - 1) << 1,	// 1.14m
+			Long.highestOneBit(TimeUnitNanos.HOUR - 1) << 1,	// 1.22h
+			Long.highestOneBit(TimeUnitNanos.DAY - 1) << 1,		// 1.63d
+			BUCKETS[3] * (Long.highestOneBit(TimeUnitNanos.DAY - 1) << 1),	// 6.5d
+			BUCKETS[3] * (Long.highestOneBit(TimeUnitNanos.DAY - 1) << 1) };
+	static final long[] SHIFT = {
+			Long.numberOfTrailingZeros(SPANS[0]),
+			Long.numberOfTrailingZeros(SPANS[1]),
+			Long.numberOfTrailingZeros(SPANS[2]),
+			Long.numberOfTrailingZeros(SPANS[3]),
+			Long.numberOfTrailingZeros(SPANS[4]) };
+
+	final CacheEntry<K,V>[][] wheel;
+	/** Time the wheel has been advanced to */
+	long nanos;
+
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	TimerWheel(long nanos) {
+		this.nanos = nanos;
+		wheel = new CacheEntry[BUCKETS.length][];
+		for(int i = 0; i < wheel.length; i++) {
+			wheel[i] = new CacheEntry[BUCKETS[i]];
+			for(int j = 0; j < wheel[i].length; j++) {
+				CacheEntry<K,V> sentinel = new CacheEntry<>(null, null, 0, null);
+				sentinel.previousInTimer = sentinel;
+				sentinel.nextInTimer = sentinel;
+				wheel[i][j] = sentinel;
+			}
+		}
+	}
+
+	/**
+	 * Adds the entry to the bucket of its expirationTime.
+	 */
+	void schedule(CacheEntry<K,V> entry) {
+		CacheEntry<K,V> sentinel = findBucket(entry.expirationTime);
+		entry.previousInTimer = sentinel.previousInTimer;
+		entry.nextInTimer = sentinel;
+		sentinel.previousInTimer.nextInTimer = entry;
+		sentinel.previousInTimer = entry;
+	}
+
+	void reschedule(CacheEntry<K,V> entry) {
+		deschedule(entry);
+		schedule(entry);
+	}
+
+	void deschedule(CacheEntry<K,V> entry) {
+		if(entry.nextInTimer == null)
+			return;
+		entry.nextInTimer.previousInTimer = entry.previousInTimer;
+		entry.previousInTimer.nextInTimer = entry.nextInTimer;
+		entry.nextInTimer = null;
+		entry.previousInTimer = null;
+	}
+
+	static boolean isScheduled(CacheEntry<?,?> entry) {
+		return entry.nextInTimer != null;
+	}
+
+	/**
+	 * Moves the clock to currentTime, passing the entries expired by then to expire. Entries
+	 * of the buckets gone past that expire later move to the bucket of their expirationTime.
+	 */
+	void advance(long currentTime, Consumer<CacheEntry<K,V>> expire) {
+		long previousTime = nanos;
+		nanos = currentTime;
+
+		// nanoTime may go from negative to positive, shifting both keeps the ticks ordered
+		if(previousTime < 0 && currentTime > 0) {
+			previousTime += Long.MAX_VALUE;
+			currentTime += Long.MAX_VALUE;
+		}
+
+		for(int i = 0; i < SHIFT.length; i++) {
+			long previousTicks = previousTime >>> SHIFT[i];
+			long currentTicks = currentTime >>> SHIFT[i];
+			long delta = currentTicks - previousTicks;
+			if(delta <= 0)
+				break;
+			expire(i, previousTicks, delta, expire);
+		}
+	}
+
+	private void expire(int level, long previousTicks, long delta, Consumer<CacheEntry<K,V>> expire) {
+		CacheEntry<K,V>[] buckets = wheel[level];
+		int mask = buckets.length - 1;
+		int steps = (int) Math.min(1 + delta, buckets.length);
+		int start = (int) (previousTicks & mask);
+		int end = start + steps;
+
+		for(int i = start; i < end; i++) {
+			CacheEntry<K,V> sentinel = buckets[i & mask];
+			CacheEntry<K,V> entry = sentinel.nextInTimer;
+			sentinel.previousInTimer = sentinel;
+			sentinel.nextInTimer = sentinel;
+
+			while(entry != sentinel) {
+				CacheEntry<K,V> next = entry.nextInTimer;
+				entry.previousInTimer = null;
+				entry.nextInTimer = null;
+
+				if(entry.expirationTime - nanos > 0)
+					schedule(entry);
+				else
+					expire.accept(entry);
+				entry = next;
+			}
+		}
+	}
+
+	private CacheEntry<K,V> findBucket(long time) {
+		long duration = time - nanos;
+		int last = wheel.length - 1;
+		for(int i = 0; i < last; i++) {
+			if(duration < SPANS[i + 1]) {
+				long ticks = time >>> SHIFT[i];
+				return wheel[i][(int) (ticks & (wheel[i].length - 1))];
+			}
+		}
+		return wheel[last][0];
+	}
+
+	/**
+	 * Nanoseconds in common units, as long constants.
+	 */
+	static final class TimeUnitNanos {
+		static final long SECOND = 1_000_000_000L;
+		static final long MINUTE = 60 * SECOND;
+		static final long HOUR = 60 * MINUTE;
+		static final long DAY = 24 * HOUR;
+
+		private TimeUnitNanos() {
+		}
+	}
+
+}
@@ -74,8 +74,11 @@ public class UnionFind<T extends Node>{
 	public T find(T item) {
 		Element e = elementsMap.get(item.getNum());
 		
-		while(e != e.parent())
+		// path halving: every element visited skips to its grandparent
+		while(e != e.parent()) {
+			e.setParent(e.parent().parent());
 			e = e.parent();
+		}
 		
 		return e.data();
 	}
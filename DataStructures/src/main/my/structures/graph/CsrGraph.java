@@ -0,0 +1,236 @@
+package my.structures.graph;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Directed graph over the vertices 0..vertices-1 in compressed sparse row form: the targets of
+ * the edges leaving vertex v are targets[offsets[v]] to targets[offsets[v + 1] - 1], with their
+ * weights at the same indices of weights when the graph is weighted.
+ *
+ * An edge costs 4 bytes, 8 with its weight, and neighbors are read sequentially from one
+ * array. The graph is immutable, built by a {@link Builder} from edges in any order.
+ *
+ * @author mone
+ *
+ */
+public class CsrGraph {
+
+	final int[] offsets;
+	final int[] targets;
+	/** Null for an unweighted graph */
+	final float[] weights;
+
+
+	CsrGraph(int[] offsets, int[] targets, float[] weights) {
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+	}
+
+	public int vertices() {
+		return offsets.length - 1;
+	}
+
+	public int edges() {
+		return targets.length;
+	}
+
+	public boolean isWeighted() {
+		return weights != null;
+	}
+
+	public int degree(int vertex) {
+		return offsets[vertex + 1] - offsets[vertex];
+	}
+
+	/**
+	 * @return target of the index-th edge leaving vertex
+	 */
+	public int neighbor(int vertex, int index) {
+		return targets[edgeIndex(vertex, index)];
+	}
+
+	/**
+	 * @return weight of the index-th edge leaving vertex, 1 in an unweighted graph
+	 */
+	public float weight(int vertex, int index) {
+		int edge = edgeIndex(vertex, index);
+		return weights != null ? weights[edge] : 1f;
+	}
+
+	public void forEachNeighbor(int vertex, IntConsumer action) {
+		for(int edge = offsets[vertex], end = offsets[vertex + 1]; edge < end; edge++)
+			action.accept(targets[edge]);
+	}
+
+	/**
+	 * @return view of vertex, sharing the arrays of the graph
+	 */
+	public CsrNode node(int vertex) {
+		if(vertex < 0 || vertex >= vertices())
+			throw new IllegalArgumentException("Unknown vertex: " + vertex);
+		return new CsrNode(vertex);
+	}
+
+	/**
+	 * @return offsets of the edges of every vertex, the backing array itself
+	 */
+	public int[] offsets() {
+		return offsets;
+	}
+
+	/**
+	 * @return targets of all edges, the backing array itself
+	 */
+	public int[] targets() {
+		return targets;
+	}
+
+	/**
+	 * @return weights of all edges, the backing array itself, null for an unweighted graph
+	 */
+	public float[] weights() {
+		return weights;
+	}
+
+	private int edgeIndex(int vertex, int index) {
+		if(index < 0 || index >= degree(vertex))
+			throw new IndexOutOfBoundsException("Edge " + index + " of vertex " + vertex + " of degree " + degree(vertex));
+		return offsets[vertex] + index;
+	}
+
+
+	/**
+	 * {@link Node} of a CsrGraph, reading its edges from the arrays of the graph.
+	 */
+	public final class CsrNode extends Node {
+
+		CsrNode(int num) {
+			super(num);
+		}
+
+		public int degree() {
+			return CsrGraph.this.degree(num);
+		}
+
+		public int neighbor(int index) {
+			return CsrGraph.this.neighbor(num, index);
+		}
+
+		public float weight(int index) {
+			return CsrGraph.this.weight(num, index);
+		}
+
+		public void forEachNeighbor(IntConsumer action) {
+			CsrGraph.this.forEachNeighbor(num, action);
+		}
+
+		public CsrGraph graph() {
+			return CsrGraph.this;
+		}
+	}
+
+	/**
+	 * Collects edges in any order into growing primitive arrays, then sorts them by source
+	 * with a counting sort: two passes over the edges, no comparison. Edges leaving the same
+	 * vertex keep the order they were added in.
+	 */
+	public static final class Builder {
+		static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+		final int vertices;
+		final boolean weighted;
+		int[] sources;
+		int[] targets;
+		float[] weights;
+		int size;
+
+		public Builder(int vertices, boolean weighted) {
+			this(vertices, weighted, DEFAULT_INITIAL_CAPACITY);
+		}
+
+		/**
+		 * @param expectedEdges edges held without growing the arrays
+		 */
+		public Builder(int vertices, boolean weighted, int expectedEdges) {
+			if(vertices < 0)
+				throw new IllegalArgumentException("Illegal number of vertices: " + vertices);
+			if(expectedEdges < 0)
+				throw new IllegalArgumentException("Illegal expected edges: " + expectedEdges);
+
+			this.vertices = vertices;
+			this.weighted = weighted;
+			sources = new int[expectedEdges];
+			targets = new int[expectedEdges];
+			weights = weighted ? new float[expectedEdges] : null;
+		}
+
+		/**
+		 * Adds an edge of weight 1.
+		 */
+		public Builder addEdge(int source, int target) {
+			return addEdge(source, target, 1f);
+		}
+
+		/**
+		 * @param weight ignored by an unweighted builder
+		 */
+		public Builder addEdge(int source, int target, float weight) {
+			checkVertex(source);
+			checkVertex(target);
+			if(size == sources.length)
+				grow();
+
+			sources[size] = source;
+			targets[size] = target;
+			if(weighted)
+				weights[size] = weight;
+			size++;
+			return this;
+		}
+
+		/**
+		 * Adds the edge both ways.
+		 */
+		public Builder addUndirectedEdge(int vertex1, int vertex2, float weight) {
+			addEdge(vertex1, vertex2, weight);
+			return addEdge(vertex2, vertex1, weight);
+		}
+
+		public CsrGraph build() {
+			int[] offsets = new int[vertices + 1];
+			for(int i = 0; i < size; i++)
+				offsets[sources[i] + 1]++;
+			for(int v = 0; v < vertices; v++)
+				offsets[v + 1] += offsets[v];
+
+			int[] next = Arrays.copyOf(offsets, vertices);
+			int[] sortedTargets = new int[size];
+			float[] sortedWeights = weighted ? new float[size] : null;
+			for(int i = 0; i < size; i++) {
+				int edge = next[sources[i]]++;
+				sortedTargets[edge] = targets[i];
+				if(weighted)
+					sortedWeights[edge] = weights[i];
+			}
+			return new CsrGraph(offsets, sortedTargets, sortedWeights);
+		}
+
+		private void grow() {
+			int newLength = (int) Math.min(Math.max(2L * sources.length, DEFAULT_INITIAL_CAPACITY), Integer.MAX_VALUE - 8);
+			if(newLength == size)
+				throw new IllegalStateException("Too many edges");
+			sources = Arrays.copyOf(sources, newLength);
+			targets = Arrays.copyOf(targets, newLength);
+			if(weighted)
+				weights = Arrays.copyOf(weights, newLength);
+		}
+
+		private void checkVertex(int vertex) {
+			if(vertex < 0 || vertex >= vertices)
+				throw new IllegalArgumentException("Unknown vertex: " + vertex);
+		}
+	}
+
+}
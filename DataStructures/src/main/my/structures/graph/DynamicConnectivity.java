@@ -0,0 +1,174 @@
+package my.structures.graph;
+
+import java.util.Arrays;
+
+import my.structures.LongLongHashMap;
+import my.structures.RollbackUnionFind;
+
+/**
+ * Offline dynamic connectivity: edge insertions, edge deletions and connectivity queries are
+ * recorded in order, then answered all at once by {@link #solve()}.
+ *
+ * Every edge is alive over an interval of queries, which a segment tree over the queries
+ * splits into O(log queries) nodes. A depth first walk of the tree unites the edges of each
+ * node into a {@link RollbackUnionFind} on the way down and rolls them back on the way up,
+ * answering each query at its leaf. Every event thus costs O(log queries * log vertices).
+ *
+ * Edges are undirected; an edge already present cannot be added again until removed.
+ *
+ * @author mone
+ *
+ */
+public class DynamicConnectivity {
+
+	static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+	final int vertices;
+	/** Interval of every edge present, by edge key */
+	final LongLongHashMap presentEdges = new LongLongHashMap();
+
+	/** Edges and their lifetime [from, to) in queries, to being -1 while still present */
+	int[] edgeSources = new int[DEFAULT_INITIAL_CAPACITY];
+	int[] edgeTargets = new int[DEFAULT_INITIAL_CAPACITY];
+	int[] edgeFrom = new int[DEFAULT_INITIAL_CAPACITY];
+	int[] edgeTo = new int[DEFAULT_INITIAL_CAPACITY];
+	int edges;
+
+	int[] querySources = new int[DEFAULT_INITIAL_CAPACITY];
+	int[] queryTargets = new int[DEFAULT_INITIAL_CAPACITY];
+	int queries;
+
+	/** Segment tree: first entry of every node, then next entry and edge of every entry */
+	int[] head;
+	int[] nextEntry;
+	int[] entryEdge;
+	int entries;
+
+
+	public DynamicConnectivity(int vertices) {
+		if(vertices < 0)
+			throw new IllegalArgumentException("Illegal number of vertices: " + vertices);
+		this.vertices = vertices;
+	}
+
+	public void addEdge(int vertex1, int vertex2) {
+		checkVertex(vertex1);
+		checkVertex(vertex2);
+		long key = edgeKey(vertex1, vertex2);
+		if(presentEdges.containsKey(key))
+			throw new IllegalArgumentException("Edge already present: " + vertex1 + " - " + vertex2);
+
+		if(edges == edgeSources.length) {
+			int newLength = edges << 1;
+			edgeSources = Arrays.copyOf(edgeSources, newLength);
+			edgeTargets = Arrays.copyOf(edgeTargets, newLength);
+			edgeFrom = Arrays.copyOf(edgeFrom, newLength);
+			edgeTo = Arrays.copyOf(edgeTo, newLength);
+		}
+		edgeSources[edges] = vertex1;
+		edgeTargets[edges] = vertex2;
+		edgeFrom[edges] = queries;
+		edgeTo[edges] = -1;
+		presentEdges.put(key, edges++);
+	}
+
+	public void removeEdge(int vertex1, int vertex2) {
+		long key = edgeKey(vertex1, vertex2);
+		if(!presentEdges.containsKey(key))
+			throw new IllegalArgumentException("No edge " + vertex1 + " - " + vertex2);
+
+		edgeTo[(int) presentEdges.remove(key)] = queries;
+	}
+
+	/**
+	 * Asks whether both vertices are connected by the edges present at this point.
+	 *
+	 * @return index of the answer in the array returned by solve
+	 */
+	public int query(int vertex1, int vertex2) {
+		checkVertex(vertex1);
+		checkVertex(vertex2);
+		if(queries == querySources.length) {
+			querySources = Arrays.copyOf(querySources, queries << 1);
+			queryTargets = Arrays.copyOf(queryTargets, queries << 1);
+		}
+		querySources[queries] = vertex1;
+		queryTargets[queries] = vertex2;
+		return queries++;
+	}
+
+	/**
+	 * @return answer of every query, in the order they were asked
+	 */
+	public boolean[] solve() {
+		boolean[] answers = new boolean[queries];
+		if(queries == 0)
+			return answers;
+
+		head = new int[4 * queries];
+		Arrays.fill(head, -1);
+		nextEntry = new int[DEFAULT_INITIAL_CAPACITY];
+		entryEdge = new int[DEFAULT_INITIAL_CAPACITY];
+		entries = 0;
+		for(int edge = 0; edge < edges; edge++) {
+			int to = edgeTo[edge] < 0 ? queries : edgeTo[edge];
+			if(edgeFrom[edge] < to)
+				addInterval(1, 0, queries, edgeFrom[edge], to, edge);
+		}
+
+		solve(1, 0, queries, new RollbackUnionFind(vertices), answers);
+
+		head = null;
+		nextEntry = null;
+		entryEdge = null;
+		return answers;
+	}
+
+	/**
+	 * Adds edge to the nodes covering [from, to) below node, which covers [low, high).
+	 */
+	private void addInterval(int node, int low, int high, int from, int to, int edge) {
+		if(from <= low && high <= to) {
+			if(entries == nextEntry.length) {
+				nextEntry = Arrays.copyOf(nextEntry, entries << 1);
+				entryEdge = Arrays.copyOf(entryEdge, entries << 1);
+			}
+			nextEntry[entries] = head[node];
+			entryEdge[entries] = edge;
+			head[node] = entries++;
+			return;
+		}
+
+		int middle = (low + high) >>> 1;
+		if(from < middle)
+			addInterval(2 * node, low, middle, from, to, edge);
+		if(to > middle)
+			addInterval(2 * node + 1, middle, high, from, to, edge);
+	}
+
+	private void solve(int node, int low, int high, RollbackUnionFind unionFind, boolean[] answers) {
+		int snapshot = unionFind.snapshot();
+		for(int entry = head[node]; entry >= 0; entry = nextEntry[entry])
+			unionFind.union(edgeSources[entryEdge[entry]], edgeTargets[entryEdge[entry]]);
+
+		if(high - low == 1) {
+			answers[low] = unionFind.connected(querySources[low], queryTargets[low]);
+		} else {
+			int middle = (low + high) >>> 1;
+			solve(2 * node, low, middle, unionFind, answers);
+			solve(2 * node + 1, middle, high, unionFind, answers);
+		}
+
+		unionFind.rollback(snapshot);
+	}
+
+	private static long edgeKey(int vertex1, int vertex2) {
+		return (long) Math.min(vertex1, vertex2) << 32 | Math.max(vertex1, vertex2) & 0xffffffffL;
+	}
+
+	private void checkVertex(int vertex) {
+		if(vertex < 0 || vertex >= vertices)
+			throw new IllegalArgumentException("Unknown vertex: " + vertex);
+	}
+
+}
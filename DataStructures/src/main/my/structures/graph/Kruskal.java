@@ -0,0 +1,97 @@
+package my.structures.graph;
+
+import java.util.Arrays;
+
+import my.structures.IntUnionFind;
+
+/**
+ * Kruskal's minimum spanning forest over a weighted edge list given as primitive arrays,
+ * sources[i] - targets[i] weighing weights[i], on the vertices 0..vertices-1.
+ *
+ * Edges are sorted by weight with Arrays.parallelSort over longs packing the weight, as
+ * ordered int bits, above the edge index: ties keep the input order and no edge object is
+ * ever created. An {@link IntUnionFind} rejects the edges closing a cycle, and the scan stops
+ * as soon as vertices - 1 edges are taken.
+ *
+ * @author mone
+ *
+ */
+public final class Kruskal {
+
+	private Kruskal() {
+	}
+
+	public static Forest minimumSpanningForest(int vertices, int[] sources, int[] targets, float[] weights) {
+		if(sources.length != targets.length || sources.length != weights.length)
+			throw new IllegalArgumentException("Sources, targets and weights differ in length: "
+					+ sources.length + ", " + targets.length + ", " + weights.length);
+
+		long[] order = new long[weights.length];
+		for(int i = 0; i < weights.length; i++) {
+			if(Float.isNaN(weights[i]))
+				throw new IllegalArgumentException("NaN weight of edge " + i);
+			order[i] = (long) sortableBits(weights[i]) << 32 | i;
+		}
+		Arrays.parallelSort(order);
+
+		IntUnionFind unionFind = new IntUnionFind(vertices);
+		int[] edges = new int[Math.max(0, Math.min(vertices - 1, order.length))];
+		int taken = 0;
+		double weight = 0;
+		for(int i = 0; i < order.length && taken < edges.length; i++) {
+			int edge = (int) order[i];
+			if(unionFind.union(sources[edge], targets[edge])) {
+				edges[taken++] = edge;
+				weight += weights[edge];
+			}
+		}
+
+		return new Forest(taken < edges.length ? Arrays.copyOf(edges, taken) : edges, weight, unionFind.components());
+	}
+
+	/**
+	 * @return int whose signed order is the order of the floats, -0.0 before 0.0
+	 */
+	static int sortableBits(float value) {
+		int bits = Float.floatToIntBits(value);
+		return bits < 0 ? bits ^ Integer.MAX_VALUE : bits;
+	}
+
+
+	/**
+	 * Edges of a minimum spanning forest, a tree per connected component.
+	 */
+	public static final class Forest {
+		final int[] edges;
+		final double weight;
+		final int trees;
+
+		Forest(int[] edges, double weight, int trees) {
+			this.edges = edges;
+			this.weight = weight;
+			this.trees = trees;
+		}
+
+		/**
+		 * @return indices of the edges taken, by increasing weight
+		 */
+		public int[] edges() {
+			return edges;
+		}
+
+		/**
+		 * @return total weight of the edges taken
+		 */
+		public double weight() {
+			return weight;
+		}
+
+		/**
+		 * @return number of trees, the connected components of the graph
+		 */
+		public int trees() {
+			return trees;
+		}
+	}
+
+}
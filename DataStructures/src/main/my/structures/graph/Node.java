@@ -0,0 +1,37 @@
+package my.structures.graph;
+
+/**
+ * Vertex of a graph, identified by its number.
+ *
+ * @author mone
+ *
+ */
+public class Node {
+
+	final int num;
+
+
+	public Node(int num) {
+		this.num = num;
+	}
+
+	public int getNum() {
+		return num;
+	}
+
+	@Override
+	public int hashCode() {
+		return num;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof Node && ((Node) obj).num == num;
+	}
+
+	@Override
+	public String toString() {
+		return "Node [num=" + num + "]";
+	}
+
+}
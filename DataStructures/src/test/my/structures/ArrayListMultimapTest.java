@@ -0,0 +1,114 @@
+package my.structures;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ArrayListMultimapTest {
+
+	@Test
+	public void shouldKeepValuesInInsertionOrder() {
+		ArrayListMultimap<String, Integer> multimap = new ArrayListMultimap<>();
+		for(int i = 0; i < 10; i++)
+			multimap.put("key", i % 3);
+		multimap.put("other", 42);
+
+		assertThat(multimap.get("key"), equalTo(Arrays.asList(0, 1, 2, 0, 1, 2, 0, 1, 2, 0)));
+		assertThat(multimap.get("other"), equalTo(Collections.singletonList(42)));
+		assertThat(multimap.get("missing"), equalTo(Collections.<Integer>emptyList()));
+		assertThat(multimap.get("key", 4), equalTo(1));
+		assertThat(multimap.size(), equalTo(11));
+		assertThat(multimap.keyCount(), equalTo(2));
+		assertThat(multimap.valueCount("key"), equalTo(10));
+	}
+
+	@Test
+	public void shouldHoldSingleValueWithoutArray() {
+		ArrayListMultimap<String, String> multimap = new ArrayListMultimap<>();
+		multimap.put("key", "a");
+		assertThat(multimap.map.get("key"), equalTo((Object) "a"));
+
+		multimap.put("key", "b");
+		multimap.remove("key", "a");
+		assertThat(multimap.map.get("key"), equalTo((Object) "b"));
+	}
+
+	@Test
+	public void shouldRemoveValuesAndKeys() {
+		ArrayListMultimap<Integer, Integer> multimap = new ArrayListMultimap<>();
+		multimap.putAll(1, Arrays.asList(1, 2, 1));
+		multimap.put(2, 2);
+
+		assertThat(multimap.remove(1, 1), equalTo(true));
+		assertThat(multimap.get(1), equalTo(Arrays.asList(2, 1)));
+		assertThat(multimap.remove(1, 3), equalTo(false));
+		assertThat(multimap.removeAll(1), equalTo(2));
+		assertThat(multimap.containsKey(1), equalTo(false));
+		assertThat(multimap.remove(2, 2), equalTo(true));
+		assertThat(multimap.isEmpty(), equalTo(true));
+		assertThat(multimap.keyCount(), equalTo(0));
+	}
+
+	@Test
+	public void shouldNotConfuseArrayValuesWithValueArrays() {
+		ArrayListMultimap<String, Object> multimap = new ArrayListMultimap<>();
+		Object[] array = { "a", "b" };
+		multimap.put("key", array);
+
+		assertThat(multimap.valueCount("key"), equalTo(1));
+		assertThat(multimap.get("key").get(0), equalTo((Object) array));
+
+		multimap.put("key", "c");
+		multimap.remove("key", "c");
+		assertThat(multimap.get("key", 0), equalTo((Object) array));
+	}
+
+	@Test
+	public void shouldVisitAllValues() {
+		ArrayListMultimap<Integer, Integer> multimap = new ArrayListMultimap<>();
+		for(int i = 0; i < 100; i++)
+			multimap.put(i % 7, i);
+
+		List<Integer> values = new ArrayList<>();
+		multimap.forEach((key, value) -> {
+			assertThat(value % 7, equalTo(key));
+			values.add(value);
+		});
+		assertThat(values.size(), equalTo(100));
+
+		List<Integer> ofThree = new ArrayList<>();
+		multimap.forEach(3, ofThree::add);
+		assertThat(ofThree, equalTo(multimap.get(3)));
+	}
+
+	@Test
+	public void shouldTrimArrays() {
+		ArrayListMultimap<Integer, Integer> multimap = new ArrayListMultimap<>();
+		for(int i = 0; i < 10; i++)
+			multimap.put(1, i);
+
+		multimap.trimToSize();
+
+		assertThat(((Object[]) multimap.map.get(1)).length, equalTo(10));
+		assertThat(multimap.get(1, 9), equalTo(9));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRejectNullValues() {
+		new ArrayListMultimap<Integer, Integer>().put(1, null);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void shouldRejectIndexBeyondValues() {
+		ArrayListMultimap<Integer, Integer> multimap = new ArrayListMultimap<>();
+		multimap.put(1, 1);
+		multimap.get(1, 1);
+	}
+
+}
@@ -0,0 +1,270 @@
+package my.structures;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import my.structures.Cache.EvictionPolicy;
+import my.structures.HashMapTest.CollidingKey;
+
+import org.junit.Test;
+
+public class CacheTest {
+
+	@Test
+	public void shouldEvictLeastRecentlyUsedEntry() {
+		List<Integer> evicted = new ArrayList<>();
+		Cache<Integer, Integer> cache = new Cache<>(3, Long.MAX_VALUE, (key, value) -> 1, EvictionPolicy.LRU,
+				(key, value) -> evicted.add(key));
+		cache.put(1, 1);
+		cache.put(2, 2);
+		cache.put(3, 3);
+		cache.get(1);
+
+		cache.put(4, 4);
+
+		assertThat(cache.size(), equalTo(3));
+		assertThat(cache.get(2), nullValue());
+		assertTrue(cache.containsKey(1));
+		assertThat(evicted, equalTo(java.util.Arrays.asList(2)));
+	}
+
+	@Test
+	public void shouldEvictLeastFrequentlyUsedEntry() {
+		Cache<Integer, Integer> cache = new Cache<>(3, EvictionPolicy.LFU);
+		cache.put(1, 1);
+		cache.put(2, 2);
+		cache.put(3, 3);
+		for(int i = 0; i < 5; i++) {
+			cache.get(1);
+			cache.get(3);
+		}
+
+		cache.put(4, 4);
+
+		assertThat(cache.get(2), nullValue());
+		assertTrue(cache.containsKey(1));
+		assertTrue(cache.containsKey(3));
+	}
+
+	@Test
+	public void shouldKeepFrequentlyUsedEntriesThroughScanWithWindowTinyLfu() {
+		Cache<Integer, Integer> cache = new Cache<>(100, EvictionPolicy.W_TINY_LFU);
+		Cache<Integer, Integer> lruCache = new Cache<>(100, EvictionPolicy.LRU);
+
+		for(int i = 0; i < 10000; i++) {
+			if(i % 10 == 0) {
+				int hotKey = i / 10 % 50;
+				for(Cache<Integer, Integer> c : java.util.Arrays.asList(cache, lruCache)) {
+					if(c.get(hotKey) == null)
+						c.put(hotKey, hotKey);
+				}
+			}
+			cache.put(1000 + i, i);
+			lruCache.put(1000 + i, i);
+		}
+
+		assertThat(cache.size(), equalTo(100));
+		int cached = 0;
+		int lruCached = 0;
+		for(int i = 0; i < 50; i++) {
+			if(cache.containsKey(i))
+				cached++;
+			if(lruCache.containsKey(i))
+				lruCached++;
+		}
+		assertThat(cached, equalTo(50));
+		assertTrue(lruCached < 50);
+	}
+
+	@Test
+	public void shouldBoundTotalWeight() {
+		Cache<String, String> cache = new Cache<>(Long.MAX_VALUE, 100, (key, value) -> value.length(), EvictionPolicy.LRU, null);
+
+		for(int i = 0; i < 1000; i++) {
+			cache.put("key" + i, "value" + i);
+		}
+
+		assertTrue(cache.weight() <= 100);
+		assertThat(cache.weight(), equalTo(96L));
+		assertTrue(cache.containsKey("key999"));
+
+		cache.put("key999", "v");
+		assertThat(cache.weight(), equalTo(96L - "value999".length() + 1));
+	}
+
+	@Test
+	public void shouldEvictEntryHeavierThanMaximumWeightAlone() {
+		List<String> evicted = new ArrayList<>();
+		Cache<String, String> cache = new Cache<>(Long.MAX_VALUE, 10, (key, value) -> value.length(),
+				EvictionPolicy.W_TINY_LFU, (key, value) -> evicted.add(key));
+		cache.put("a", "12345");
+
+		cache.put("b", "12345678901");
+
+		assertThat(evicted, equalTo(java.util.Arrays.asList("b")));
+		assertThat(cache.get("a"), equalTo("12345"));
+		assertThat(cache.weight(), equalTo(5L));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRejectNegativeWeight() {
+		new Cache<String, String>(Long.MAX_VALUE, 10, (key, value) -> -1, EvictionPolicy.LRU, null).put("a", "a");
+	}
+
+	@Test
+	public void shouldForgetRemovedEntries() {
+		Cache<Integer, Integer> cache = new Cache<>(10, EvictionPolicy.LRU);
+		for(int i = 0; i < 10; i++) {
+			cache.put(i, i);
+		}
+
+		assertThat(cache.remove(0), equalTo(0));
+		cache.put(10, 10);
+
+		assertThat(cache.size(), equalTo(10));
+		assertTrue(cache.containsKey(1));
+		assertThat(((Cache.LruPolicy<Integer, Integer>) cache.policy).queue.head.key, equalTo(1));
+	}
+
+	@Test
+	public void shouldSizeSketchForMaximumSizeOnceHalfFull() {
+		Cache<Integer, Integer> cache = new Cache<>(1_000_000_000);
+		FrequencySketch sketch = ((Cache.WindowTinyLfuPolicy<Integer, Integer>) cache.policy).sketch;
+		assertThat(sketch.table.length, equalTo(HashMap.DEFAULT_INITIAL_CAPACITY));
+
+		cache = new Cache<>(100_000, EvictionPolicy.LFU);
+		sketch = ((Cache.LfuPolicy<Integer, Integer>) cache.policy).sketch;
+		for(int i = 0; i < 49_999; i++)
+			cache.put(i, i);
+		assertThat(sketch.table.length, equalTo(1 << 16));
+		cache.put(-1, -1);
+		assertThat(sketch.table.length, equalTo(1 << 17));
+	}
+
+	@Test
+	public void shouldKeepEntriesQueuedWhenBucketsAreTreeified() {
+		Cache<CollidingKey, Integer> cache = new Cache<>(1000, EvictionPolicy.LRU);
+		for(int i = 1; i < HashMap.MIN_TREEIFY_CAPACITY; i++) {
+			cache.put(new CollidingKey(-i), i);
+		}
+		for(int i = 0; i < HashMap.TREEIFY_THRESHOLD * 2; i++) {
+			cache.put(new CollidingKey(i), i);
+		}
+		assertTrue(HashMap.isTreeBucket(cache.table[HashMap.indexFor(CollidingKey.HASH, cache.capacity)]));
+
+		for(int i = 0; i < HashMap.TREEIFY_THRESHOLD * 2; i++) {
+			cache.remove(new CollidingKey(i));
+		}
+
+		int queued = 0;
+		for(Cache.CacheEntry<CollidingKey, Integer> entry = ((Cache.LruPolicy<CollidingKey, Integer>) cache.policy).queue.head;
+				entry != null; entry = entry.after) {
+			assertTrue(cache.containsKey(entry.key));
+			queued++;
+		}
+		assertThat(queued, equalTo(cache.size()));
+	}
+
+	@Test
+	public void shouldStayBoundedUnderSustainedLoad() {
+		Cache<Integer, Integer> cache = new Cache<>(1000);
+
+		for(int i = 0; i < 100000; i++) {
+			cache.put(i, i);
+			if(i % 3 == 0)
+				cache.get(i / 2);
+		}
+
+		assertThat(cache.size(), equalTo(1000));
+		assertFalse(cache.capacity > 2048);
+	}
+
+	@Test
+	public void shouldNeverReturnExpiredEntries() {
+		long[] time = { 0 };
+		Cache<Integer, Integer> cache = new Cache<Integer, Integer>(Long.MAX_VALUE)
+				.ticker(() -> time[0])
+				.expireAfterWrite(10, TimeUnit.MILLISECONDS);
+		cache.put(1, 1);
+		cache.put(2, 2);
+
+		time[0] = TimeUnit.MILLISECONDS.toNanos(10);
+
+		// still in the current second of the timer wheel, expired lazily
+		assertFalse(cache.containsKey(1));
+		assertThat(cache.get(2), nullValue());
+		assertThat(cache.put(1, 10), nullValue());
+		assertThat(cache.size(), equalTo(1));
+	}
+
+	@Test
+	public void shouldExpireEntriesAfterAccess() {
+		long[] time = { 0 };
+		List<Integer> expired = new ArrayList<>();
+		Cache<Integer, Integer> cache = new Cache<Integer, Integer>(Long.MAX_VALUE, Long.MAX_VALUE, (key, value) -> 1,
+				EvictionPolicy.LRU, (key, value) -> expired.add(key))
+				.ticker(() -> time[0])
+				.expireAfterAccess(1, TimeUnit.MINUTES);
+		for(int i = 0; i < 100; i++)
+			cache.put(i, i);
+
+		for(int minute = 0; minute < 5; minute++) {
+			time[0] += TimeUnit.SECONDS.toNanos(40);
+			cache.get(0);
+		}
+		cache.cleanUp();
+
+		assertThat(cache.size(), equalTo(1));
+		assertThat(cache.get(0), equalTo(0));
+		assertThat(expired.size(), equalTo(99));
+	}
+
+	@Test
+	public void shouldExpireAtTheEarliestOfWriteAndAccessExpiry() {
+		long[] time = { 0 };
+		Cache<Integer, Integer> cache = new Cache<Integer, Integer>(Long.MAX_VALUE)
+				.ticker(() -> time[0])
+				.expireAfterWrite(1, TimeUnit.HOURS)
+				.expireAfterAccess(20, TimeUnit.MINUTES);
+		cache.put(1, 1);
+
+		for(int i = 0; i < 5; i++) {
+			time[0] += TimeUnit.MINUTES.toNanos(15);
+			if(i < 3)
+				assertThat(cache.get(1), equalTo(1));
+		}
+
+		assertFalse(cache.containsKey(1));
+	}
+
+	@Test
+	public void shouldExpireEntryAfterItsOwnTimeToLive() {
+		long[] time = { 0 };
+		Cache<Integer, Integer> cache = new Cache<Integer, Integer>(Long.MAX_VALUE)
+				.ticker(() -> time[0]);
+		cache.put(1, 1, 1, TimeUnit.SECONDS);
+		cache.put(2, 2);
+
+		time[0] = TimeUnit.DAYS.toNanos(30);
+		cache.cleanUp();
+
+		assertThat(cache.size(), equalTo(1));
+		assertThat(cache.get(2), equalTo(2));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void shouldRejectExpirySetUpOnceEntriesArePut() {
+		Cache<Integer, Integer> cache = new Cache<>(10);
+		cache.put(1, 1);
+
+		cache.expireAfterWrite(1, TimeUnit.SECONDS);
+	}
+
+}
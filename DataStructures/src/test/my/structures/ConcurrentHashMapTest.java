@@ -0,0 +1,103 @@
+package my.structures;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class ConcurrentHashMapTest {
+
+	private static final int TEST_INTEGER1 = 7639;
+	private static final int TEST_INTEGER2 = 10;
+	private static final int THREADS = 8;
+	private static final int KEYS_PER_THREAD = 20000;
+
+
+	@Test
+	public void shouldPutGetAndRemoveValueForKey() {
+		ConcurrentHashMap<Integer, Integer> map = new ConcurrentHashMap<>();
+
+		Integer value = new Integer(TEST_INTEGER2);
+		assertThat(map.put(TEST_INTEGER1, value), nullValue());
+
+		assertThat(map.get(TEST_INTEGER1), sameInstance(value));
+		assertTrue(map.containsKey(TEST_INTEGER1));
+		assertThat(map.size(), equalTo(1));
+
+		assertThat(map.remove(TEST_INTEGER1), sameInstance(value));
+		assertFalse(map.containsKey(TEST_INTEGER1));
+		assertThat(map.size(), equalTo(0));
+	}
+
+	@Test
+	public void shouldReturnOldValueIfPutValueForExistingKey() {
+		ConcurrentHashMap<Integer, Integer> map = new ConcurrentHashMap<>();
+
+		Integer i1 = new Integer(TEST_INTEGER1);
+		map.put(i1, i1);
+
+		assertThat(map.put(i1, TEST_INTEGER2), sameInstance(i1));
+		assertThat(map.size(), equalTo(1));
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void shouldRejectNullKey() {
+		new ConcurrentHashMap<Integer, Integer>().put(null, TEST_INTEGER1);
+	}
+
+	@Test
+	public void shouldDoubleTableAndKeepAllMappingsWhenSizeReachesThreshold() {
+		ConcurrentHashMap<Integer, Integer> map = new ConcurrentHashMap<>();
+
+		for(int i = 0; i < 1000; i++)
+			map.put(i, i);
+
+		assertThat(map.table.length(), equalTo(2048));
+		assertThat(map.nextTable, nullValue());
+		assertThat(map.sizeCtl.get(), equalTo(1536));
+		for(int i = 0; i < 1000; i++)
+			assertThat(map.get(i), equalTo(i));
+	}
+
+	@Test
+	public void shouldKeepAllMappingsWhenPuttingAndRemovingFromManyThreads() throws Exception {
+		final ConcurrentHashMap<Integer, Integer> map = new ConcurrentHashMap<>();
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for(int t = 0; t < THREADS; t++) {
+				final int base = t * KEYS_PER_THREAD;
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() {
+						for(int i = base; i < base + KEYS_PER_THREAD; i++)
+							map.put(i, i);
+						for(int i = base; i < base + KEYS_PER_THREAD; i += 2)
+							map.remove(i);
+						return null;
+					}
+				}));
+			}
+			for(Future<?> future : futures)
+				future.get();
+		} finally {
+			executor.shutdown();
+		}
+
+		assertThat(map.size(), equalTo(THREADS * KEYS_PER_THREAD / 2));
+		for(int i = 0; i < THREADS * KEYS_PER_THREAD; i++)
+			assertThat(map.get(i), equalTo(i % 2 == 0 ? null : (Integer) i));
+	}
+
+}
@@ -0,0 +1,84 @@
+package my.structures;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+public class ConcurrentUnionFindTest {
+
+	@Test
+	public void shouldUnionDistinctSetsOnlyOnce() {
+		ConcurrentUnionFind unionFind = new ConcurrentUnionFind(4);
+
+		assertTrue(unionFind.union(0, 1));
+		assertTrue(unionFind.union(2, 1));
+		assertFalse(unionFind.union(0, 2));
+
+		assertThat(unionFind.size(), equalTo(4));
+		assertThat(unionFind.components(), equalTo(2));
+		assertTrue(unionFind.connected(0, 2));
+		assertFalse(unionFind.connected(0, 3));
+		assertThat(unionFind.find(0), equalTo(unionFind.find(2)));
+	}
+
+	@Test
+	public void shouldFindSameComponentsAsSequentialUnionFindWhenFedInParallel() {
+		int size = 1 << 18;
+		int[] sources = new int[size];
+		int[] targets = new int[size];
+		Random random = new Random(11);
+		for(int i = 0; i < size; i++) {
+			sources[i] = random.nextInt(size);
+			targets[i] = random.nextInt(size);
+		}
+		IntUnionFind expected = new IntUnionFind(size);
+		for(int i = 0; i < size; i++)
+			expected.union(sources[i], targets[i]);
+
+		ConcurrentUnionFind unionFind = new ConcurrentUnionFind(size);
+		AtomicInteger unions = new AtomicInteger();
+		IntStream.range(0, size).parallel().forEach(i -> {
+			if(unionFind.union(sources[i], targets[i]))
+				unions.incrementAndGet();
+		});
+
+		assertThat(unionFind.components(), equalTo(expected.components()));
+		assertThat(unions.get(), equalTo(size - expected.components()));
+		for(int i = 0; i < size; i++)
+			assertThat(unionFind.connected(i, expected.find(i)), equalTo(true));
+	}
+
+	@Test
+	public void shouldReportEveryUnionOfSameSetsToOneThreadOnly() {
+		int size = 1 << 12;
+		ConcurrentUnionFind unionFind = new ConcurrentUnionFind(size);
+		AtomicInteger unions = new AtomicInteger();
+
+		// every thread unites the elements into one set, in its own order
+		IntStream.range(0, 8).parallel().forEach(thread -> {
+			Random random = new Random(thread);
+			for(int i = 0; i < 4 * size; i++)
+				if(unionFind.union(random.nextInt(size), random.nextInt(size)))
+					unions.incrementAndGet();
+			for(int i = 1; i < size; i++)
+				if(unionFind.union(0, i))
+					unions.incrementAndGet();
+		});
+
+		assertThat(unionFind.components(), equalTo(1));
+		assertThat(unions.get(), equalTo(size - 1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRejectUnknownElement() {
+		new ConcurrentUnionFind(4).find(-1);
+	}
+
+}
@@ -0,0 +1,83 @@
+package my.structures;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.Random;
+
+import my.structures.ConnectedComponents.Components;
+
+import org.junit.Test;
+
+public class ConnectedComponentsTest {
+
+	@Test
+	public void shouldNumberComponentsInOrderOfTheirSmallestVertex() {
+		Components components = ConnectedComponents.of(7, new int[] { 5, 1, 6, 4 }, new int[] { 3, 2, 5, 2 });
+
+		assertThat(components.count(), equalTo(3));
+		assertThat(components.componentIds(), equalTo(new int[] { 0, 1, 1, 2, 1, 2, 2 }));
+		assertThat(components.sizes(), equalTo(new int[] { 1, 3, 3 }));
+		assertThat(components.componentOf(6), equalTo(2));
+		assertThat(components.size(2), equalTo(3));
+	}
+
+	@Test
+	public void shouldMatchSequentialUnionFindOverBatchesOfEdges() {
+		int vertices = 100000;
+		IntUnionFind expected = new IntUnionFind(vertices);
+		ConnectedComponents connectedComponents = new ConnectedComponents(vertices, 1000);
+		Random random = new Random(3);
+		for(int batch = 0; batch < 4; batch++) {
+			int[] sources = new int[vertices / 4];
+			int[] targets = new int[vertices / 4];
+			for(int i = 0; i < sources.length; i++) {
+				sources[i] = random.nextInt(vertices);
+				targets[i] = random.nextInt(vertices);
+				expected.union(sources[i], targets[i]);
+			}
+			connectedComponents.addEdges(sources, targets);
+		}
+
+		Components components = connectedComponents.components();
+
+		assertThat(components.count(), equalTo(expected.components()));
+		int[] componentOfRoot = new int[vertices];
+		int sizes = 0;
+		for(int vertex = 0; vertex < vertices; vertex++) {
+			int root = expected.find(vertex);
+			if(componentOfRoot[root] == 0)
+				componentOfRoot[root] = components.componentOf(vertex) + 1;
+			assertThat(components.componentOf(vertex), equalTo(componentOfRoot[root] - 1));
+		}
+		for(int size : components.sizes())
+			sizes += size;
+		assertThat(sizes, equalTo(vertices));
+	}
+
+	@Test
+	public void shouldGiveSameComponentsSequentially() {
+		int vertices = 5000;
+		int[] sources = new int[vertices];
+		int[] targets = new int[vertices];
+		Random random = new Random(5);
+		for(int i = 0; i < vertices; i++) {
+			sources[i] = random.nextInt(vertices);
+			targets[i] = random.nextInt(vertices);
+		}
+
+		ConnectedComponents parallel = new ConnectedComponents(vertices, 1);
+		parallel.addEdges(sources, targets);
+		ConnectedComponents sequential = new ConnectedComponents(vertices, Integer.MAX_VALUE);
+		for(int i = 0; i < vertices; i++)
+			sequential.addEdge(sources[i], targets[i]);
+
+		assertThat(parallel.components().componentIds(), equalTo(sequential.components().componentIds()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRejectEdgeArraysOfDifferentLengths() {
+		ConnectedComponents.of(3, new int[] { 0, 1 }, new int[] { 2 });
+	}
+
+}
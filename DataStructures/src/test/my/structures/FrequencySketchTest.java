@@ -0,0 +1,61 @@
+package my.structures;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class FrequencySketchTest {
+
+	private static final int TEST_HASH = 7639;
+
+
+	@Test
+	public void shouldCountIncrementsUpToMaximumFrequency() {
+		FrequencySketch sketch = new FrequencySketch(64);
+
+		for(int i = 0; i < 5; i++)
+			sketch.increment(TEST_HASH);
+		assertThat(sketch.frequency(TEST_HASH), equalTo(5));
+
+		for(int i = 0; i < 100; i++)
+			sketch.increment(TEST_HASH);
+		assertThat(sketch.frequency(TEST_HASH), equalTo(FrequencySketch.MAX_FREQUENCY));
+	}
+
+	@Test
+	public void shouldHalveFrequenciesOnReset() {
+		FrequencySketch sketch = new FrequencySketch(64);
+		for(int i = 0; i < 10; i++)
+			sketch.increment(TEST_HASH);
+
+		sketch.reset();
+
+		assertThat(sketch.frequency(TEST_HASH), equalTo(5));
+	}
+
+	@Test
+	public void shouldAgeFrequenciesAfterSampleSizeIncrements() {
+		FrequencySketch sketch = new FrequencySketch(64);
+		for(int i = 0; i < 10; i++)
+			sketch.increment(TEST_HASH);
+
+		for(int i = 0; i < sketch.sampleSize; i++)
+			sketch.increment(i * 31 + 1);
+
+		assertTrue(sketch.frequency(TEST_HASH) < 10);
+	}
+
+	@Test
+	public void shouldGrowAndForgetFrequencies() {
+		FrequencySketch sketch = new FrequencySketch(16);
+		sketch.increment(TEST_HASH);
+
+		sketch.ensureCapacity(1000);
+
+		assertThat(sketch.table.length, equalTo(1024));
+		assertThat(sketch.frequency(TEST_HASH), equalTo(0));
+	}
+
+}
@@ -0,0 +1,169 @@
+package my.structures;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class HashMapSnapshotTest {
+
+	@Test
+	public void shouldRestoreMappingsAcrossBlocks() throws IOException {
+		HashMap<Integer, String> map = new HashMap<>();
+		for(int i = 0; i < 1000; i++)
+			map.put(i, "value" + i);
+		map.put(null, "null key");
+		map.put(-1, null);
+
+		byte[] snapshot = write(map, Serializers.INT, Serializers.STRING, 64);
+		HashMap<Integer, String> restored = read(snapshot, Serializers.INT, Serializers.STRING);
+
+		assertThat(restored.size(), equalTo(1002));
+		for(int i = 0; i < 1000; i++)
+			assertThat(restored.get(i), equalTo("value" + i));
+		assertThat(restored.get(null), equalTo("null key"));
+		assertThat(restored.containsKey(-1), equalTo(true));
+		assertThat(restored.get(-1), nullValue());
+	}
+
+	@Test
+	public void shouldGrowBlockForLargeEntries() throws IOException {
+		char[] chars = new char[1000];
+		Arrays.fill(chars, 'x');
+		String large = new String(chars);
+		HashMap<Integer, String> map = new HashMap<>();
+		map.put(1, "small");
+		map.put(2, large);
+		map.put(3, "small");
+
+		HashMap<Integer, String> restored = read(write(map, Serializers.INT, Serializers.STRING, 16), Serializers.INT, Serializers.STRING);
+
+		assertThat(restored.get(2), equalTo(large));
+		assertThat(restored.get(3), equalTo("small"));
+	}
+
+	@Test
+	public void shouldRestoreCapacityAndLoadFactor() throws IOException {
+		HashMap<Long, Long> map = new HashMap<>(1024, 0.5f);
+		for(long i = 0; i < 10; i++)
+			map.put(i, i * i);
+
+		HashMap<Long, Long> restored = read(write(map, Serializers.LONG, Serializers.LONG, 1 << 10), Serializers.LONG, Serializers.LONG);
+
+		assertThat(restored.capacity, equalTo(1024));
+		assertThat(restored.loadFactor, equalTo(0.5f));
+		assertThat(restored.get(9L), equalTo(81L));
+	}
+
+	@Test
+	public void shouldWriteBothTablesDuringIncrementalResize() throws IOException {
+		HashMap<Integer, Integer> map = new HashMap<>(true);
+		int size = 0;
+		do {
+			map.put(size, size);
+			size++;
+		} while(map.oldTable == null);
+
+		HashMap<Integer, Integer> restored = read(write(map, Serializers.INT, Serializers.INT, 1 << 10), Serializers.INT, Serializers.INT);
+
+		assertThat(restored.size(), equalTo(size));
+		for(int i = 0; i < size; i++)
+			assertThat(restored.get(i), equalTo(i));
+	}
+
+	@Test
+	public void shouldReadBackToBackSnapshotsFromOneChannel() throws IOException {
+		HashMap<Integer, Integer> map = new HashMap<>();
+		map.put(1, 10);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		WritableByteChannel channel = Channels.newChannel(out);
+		HashMapSnapshot.write(new HashMap<Integer, Integer>(), channel, Serializers.INT, Serializers.INT);
+		HashMapSnapshot.write(map, channel, Serializers.INT, Serializers.INT);
+
+		ReadableByteChannel in = Channels.newChannel(new ByteArrayInputStream(out.toByteArray()));
+		HashMap<Integer, Integer> empty = HashMapSnapshot.read(in, Serializers.INT, Serializers.INT);
+		HashMap<Integer, Integer> restored = HashMapSnapshot.read(in, Serializers.INT, Serializers.INT);
+
+		assertThat(empty.size(), equalTo(0));
+		assertThat(restored.size(), equalTo(1));
+		assertThat(restored.get(1), equalTo(10));
+		assertThat(in.read(ByteBuffer.allocate(1)), equalTo(-1));
+	}
+
+	@Test
+	public void shouldRejectCorruptedBlock() throws IOException {
+		HashMap<Integer, Integer> map = new HashMap<>();
+		map.put(1, 1);
+		byte[] snapshot = write(map, Serializers.INT, Serializers.INT, 1 << 10);
+		snapshot[HashMapSnapshot.HEADER_SIZE + HashMapSnapshot.BLOCK_HEADER_SIZE + 2]++;
+
+		assertThat(readFails(snapshot, Serializers.INT).getMessage(), equalTo("Corrupted map snapshot block"));
+	}
+
+	@Test
+	public void shouldRejectCorruptedBlockLengthBeforeAllocatingIt() throws IOException {
+		HashMap<Integer, Integer> map = new HashMap<>();
+		map.put(1, 1);
+		byte[] snapshot = write(map, Serializers.INT, Serializers.INT, 1 << 10);
+		snapshot[HashMapSnapshot.HEADER_SIZE + HashMapSnapshot.BLOCK_LENGTH_OFFSET] = 0x7f;
+
+		assertThat(readFails(snapshot, Serializers.INT).getMessage(), equalTo("Corrupted map snapshot block"));
+	}
+
+	@Test
+	public void shouldRejectOtherKeySizes() throws IOException {
+		HashMap<Integer, Integer> map = new HashMap<>();
+		map.put(1, 1);
+		byte[] snapshot = write(map, Serializers.INT, Serializers.INT, 1 << 10);
+
+		assertThat(readFails(snapshot, Serializers.LONG).getMessage().contains("keys/values"), equalTo(true));
+	}
+
+	@Test
+	public void shouldRejectTruncatedSnapshot() throws IOException {
+		HashMap<Integer, Integer> map = new HashMap<>();
+		map.put(1, 1);
+		byte[] snapshot = write(map, Serializers.INT, Serializers.INT, 1 << 10);
+
+		assertThat(readFails(Arrays.copyOf(snapshot, snapshot.length - 1), Serializers.INT) instanceof EOFException, equalTo(true));
+	}
+
+	@Test
+	public void shouldRejectDataThatIsNotASnapshot() {
+		assertThat(readFails(new byte[HashMapSnapshot.HEADER_SIZE], Serializers.INT).getMessage(), equalTo("Not a map snapshot"));
+	}
+
+	private static <K,V> byte[] write(HashMap<K,V> map, Serializer<K> keySerializer, Serializer<V> valueSerializer, int blockSize)
+			throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long written = HashMapSnapshot.write(map, Channels.newChannel(out), keySerializer, valueSerializer, blockSize);
+		assertThat(written, equalTo((long) out.size()));
+		return out.toByteArray();
+	}
+
+	private static <K,V> HashMap<K,V> read(byte[] snapshot, Serializer<K> keySerializer, Serializer<V> valueSerializer)
+			throws IOException {
+		return HashMapSnapshot.read(Channels.newChannel(new ByteArrayInputStream(snapshot)), keySerializer, valueSerializer);
+	}
+
+	private static <K> IOException readFails(byte[] snapshot, Serializer<K> keySerializer) {
+		try {
+			read(snapshot, keySerializer, Serializers.INT);
+		} catch(IOException e) {
+			return e;
+		}
+		return null;
+	}
+
+}
@@ -88,7 +88,7 @@ public class HashMapTest {
 		int index = map.evaluateIndex(hash);
 		
 		assertThat(map.table[index].key, sameInstance(i));
-		assertThat(map.table[index].value, sameInstance(i));
+		assertThat(map.table[index].getValue(), sameInstance(i));
 	}
 	
 	@Test
@@ -146,7 +146,7 @@ public class HashMapTest {
 		int hash = map.hash(i1);
 		int index = map.evaluateIndex(hash);
 		
-		assertThat(map.table[index].value, sameInstance(i2));
+		assertThat(map.table[index].getValue(), sameInstance(i2));
 	}
 	
 	@Test
@@ -275,7 +275,7 @@ public class HashMapTest {
 		
 		assertThat(retValue, nullValue());
 		assertThat(map.table[0], notNullValue());
-		assertThat(map.table[0].value, sameInstance(i));
+		assertThat(map.table[0].getValue(), sameInstance(i));
 	}
 	
 	@Test
@@ -290,7 +290,7 @@ public class HashMapTest {
 		Integer retValue = map.put(null, i2);
 		
 		assertThat(retValue, sameInstance(i1));
-		assertThat(map.table[0].value, sameInstance(i2));
+		assertThat(map.table[0].getValue(), sameInstance(i2));
 	}
 	
 	@Test
@@ -317,7 +317,7 @@ public class HashMapTest {
 			entry = entry.next;
 		
 		assertThat(entry.key, nullValue());
-		assertThat(entry.value, sameInstance(i2));
+		assertThat(entry.getValue(), sameInstance(i2));
 	}
 	
 	@Test
@@ -357,7 +357,7 @@ public class HashMapTest {
 		}
 		
 		for(int i = 0; i < items.size() - 1; i++){
-			assertThat(map.table[i].value, sameInstance(items.get(i)));
+			assertThat(map.table[i].getValue(), sameInstance(items.get(i)));
 		}
 		assertThat(map.table.length, equalTo(HashMap.DEFAULT_INITIAL_CAPACITY));
 		assertThat(map.capacity, equalTo(HashMap.DEFAULT_INITIAL_CAPACITY));
@@ -367,7 +367,7 @@ public class HashMapTest {
 		map.put(itemOverThreshold, itemOverThreshold);
 		
 		for(int i = 0; i < items.size(); i++){
-			assertThat(map.table[i].value, sameInstance(items.get(i)));
+			assertThat(map.table[i].getValue(), sameInstance(items.get(i)));
 		}
 	}
 
@@ -445,8 +445,8 @@ public class HashMapTest {
 		
 		map.remove(i1);
 		
-		assertThat(map.table[index1].value, sameInstance(i3));
-		assertThat(map.table[index1].next.value, sameInstance(i2));
+		assertThat(map.table[index1].getValue(), sameInstance(i3));
+		assertThat(map.table[index1].next.getValue(), sameInstance(i2));
 		assertThat(map.table[index1].next.next, nullValue());
 	}
 	
@@ -504,6 +504,673 @@ public class HashMapTest {
 		assertThat(retValue, nullValue());
 		
 	}
+
+	@Test
+	public void shouldDecrementSizeWhenRemovingPresentKey() {
+		HashMap<Integer, Integer> map = new HashMap<>();
+		
+		map.put(TEST_INTEGER1, TEST_INTEGER1);
+		map.put(TEST_INTEGER2, TEST_INTEGER2);
+		
+		map.remove(TEST_INTEGER1);
+		map.remove(TEST_INTEGER1);
+		
+		assertThat(map.size(), equalTo(1));
+	}
+	
+	@Test
+	public void shouldKeepOldTableAndMoveBucketsGraduallyWhenResizingIncrementally() {
+		HashMap<Integer, Integer> map = new HashMap<>(true);
+		
+		for(int i = 0; i < map.threshold; i++) {
+			map.put(i, i);
+		}
+		HashMap.Entry<Integer, Integer>[] oldTable = map.table;
+		int borderValue = map.threshold;
+		
+		map.put(borderValue, borderValue);
+		
+		assertThat(map.table.length, equalTo(HashMap.DEFAULT_INITIAL_CAPACITY << 1));
+		assertThat(map.oldTable, sameInstance(oldTable));
+		assertThat(map.rehashIndex, equalTo(HashMap.REHASH_STEP));
+		
+		for(int i = 0; i <= borderValue; i++) {
+			assertThat(map.get(i), equalTo(i));
+		}
+		
+		assertThat(map.oldTable, nullValue());
+		assertThat(map.size(), equalTo(borderValue + 1));
+	}
+	
+	@Test
+	public void shouldUpdateAndRemoveKeysNotMovedYetDuringIncrementalResize() {
+		HashMap<Integer, Integer> map = new HashMap<>(true);
+		
+		int borderValue = map.threshold;
+		for(int i = 0; i <= borderValue; i++) {
+			map.put(i, i);
+		}
+		
+		int lastBucketKey = borderValue;
+		assertThat(map.oldTable[lastBucketKey], notNullValue());
+		
+		Integer retValue = map.put(lastBucketKey, TEST_INTEGER1);
+		
+		assertThat(retValue, equalTo(lastBucketKey));
+		assertThat(map.size(), equalTo(borderValue + 1));
+		assertThat(map.oldTable[lastBucketKey].getValue(), equalTo(TEST_INTEGER1));
+		
+		assertThat(map.remove(lastBucketKey), equalTo(TEST_INTEGER1));
+		assertFalse(map.containsKey(lastBucketKey));
+		assertThat(map.size(), equalTo(borderValue));
+	}
+
+	@Test
+	public void shouldEvaluateIndexByMaskingHashWithCapacity() {
+		HashMap<Integer, Integer> map = new HashMap<>();
+		
+		int index = map.evaluateIndex(-TEST_INTEGER1);
+		
+		assertThat(index, equalTo(-TEST_INTEGER1 & (map.capacity - 1)));
+		assertTrue(index >= 0 && index < map.capacity);
+	}
+	
+	@Test
+	public void shouldPutAndGetValueForKeyWithNegativeHashCode() {
+		HashMap<Integer, Integer> map = new HashMap<>();
+		
+		Integer i = new Integer(-TEST_INTEGER1);
+		map.put(i, i);
+		
+		assertThat(map.get(i), sameInstance(i));
+		assertThat(map.remove(i), sameInstance(i));
+	}
+	
+	@Test
+	public void shouldEvaluateHashWithSuppliedHashStrategy() {
+		HashMap<Integer, Integer> map = new HashMap<>(new HashStrategy<Integer>() {
+			@Override
+			public int hash(Integer key) {
+				return key * 2;
+			}
+		});
+		
+		assertThat(map.hash(TEST_INTEGER1), equalTo(TEST_INTEGER1 * 2));
+		
+		map.put(TEST_INTEGER1, TEST_INTEGER2);
+		
+		assertThat(map.table[map.evaluateIndex(TEST_INTEGER1 * 2)].getValue(), equalTo(TEST_INTEGER2));
+	}
+	
+	@Test
+	public void shouldReturnValueForNullKey() {
+		HashMap<Integer, Integer> map = new HashMap<>();
+		
+		Integer i = new Integer(TEST_INTEGER1);
+		map.put(0, TEST_INTEGER2);
+		map.put(null, i);
+		
+		assertThat(map.get(null), sameInstance(i));
+		assertTrue(map.containsKey(null));
+		assertThat(map.remove(null), sameInstance(i));
+		assertThat(map.get(0), equalTo(TEST_INTEGER2));
+	}
+
+	@Test
+	public void shouldConvertBucketIntoTreeWhenChainReachesThreshold() {
+		HashMap<CollidingKey, Integer> map = prepareMapWithMinTreeifyCapacity();
+		
+		for(int i = 0; i < HashMap.TREEIFY_THRESHOLD - 1; i++) {
+			map.put(new CollidingKey(i), i);
+		}
+		int index = map.evaluateIndex(CollidingKey.HASH);
+		assertFalse(HashMap.isTreeBucket(map.table[index]));
+		
+		map.put(new CollidingKey(HashMap.TREEIFY_THRESHOLD), HashMap.TREEIFY_THRESHOLD);
+		
+		assertTrue(HashMap.isTreeBucket(map.table[index]));
+		assertThat(HashMap.chainLength(map.table[index], Integer.MAX_VALUE), equalTo(HashMap.TREEIFY_THRESHOLD));
+	}
+	
+	@Test
+	public void shouldNotConvertBucketIntoTreeInTableBelowMinTreeifyCapacity() {
+		HashMap<CollidingKey, Integer> map = new HashMap<>();
+		
+		for(int i = 0; i < HashMap.TREEIFY_THRESHOLD; i++) {
+			map.put(new CollidingKey(i), i);
+		}
+		
+		assertFalse(HashMap.isTreeBucket(map.table[map.evaluateIndex(CollidingKey.HASH)]));
+	}
+	
+	@Test
+	public void shouldFindUpdateAndRemoveKeysInTreeBucket() {
+		HashMap<CollidingKey, Integer> map = prepareMapWithMinTreeifyCapacity();
+		int collidingCount = 100;
+		
+		for(int i = 0; i < collidingCount; i++) {
+			map.put(new CollidingKey(i), i);
+		}
+		int size = map.size();
+		
+		assertThat(map.put(new CollidingKey(42), TEST_INTEGER1), equalTo(42));
+		assertThat(map.get(new CollidingKey(42)), equalTo(TEST_INTEGER1));
+		assertThat(map.remove(new CollidingKey(43)), equalTo(43));
+		assertFalse(map.containsKey(new CollidingKey(43)));
+		assertThat(map.get(new CollidingKey(collidingCount)), nullValue());
+		assertThat(map.size(), equalTo(size - 1));
+		
+		HashMap.TreeEntry<CollidingKey, Integer> root = (HashMap.TreeEntry<CollidingKey, Integer>) map.table[map.evaluateIndex(CollidingKey.HASH)];
+		assertThat(root.parent, nullValue());
+		assertTrue(root.height <= 10);
+	}
+	
+	@Test
+	public void shouldConvertTreeBackIntoChainWhenShrinkingToUntreeifyThreshold() {
+		HashMap<CollidingKey, Integer> map = prepareMapWithMinTreeifyCapacity();
+		
+		for(int i = 0; i < HashMap.TREEIFY_THRESHOLD; i++) {
+			map.put(new CollidingKey(i), i);
+		}
+		for(int i = HashMap.UNTREEIFY_THRESHOLD; i < HashMap.TREEIFY_THRESHOLD; i++) {
+			map.remove(new CollidingKey(i));
+		}
+		
+		HashMap.Entry<CollidingKey, Integer> entry = map.table[map.evaluateIndex(CollidingKey.HASH)];
+		assertFalse(HashMap.isTreeBucket(entry));
+		while(entry != null) {
+			assertFalse(entry instanceof HashMap.TreeEntry);
+			entry = entry.next;
+		}
+		for(int i = 0; i < HashMap.UNTREEIFY_THRESHOLD; i++) {
+			assertThat(map.get(new CollidingKey(i)), equalTo(i));
+		}
+	}
+	
+	@Test
+	public void shouldKeepTreeBucketsSearchableAfterResize() {
+		HashMap<CollidingKey, Integer> map = prepareMapWithMinTreeifyCapacity();
+		int capacity = map.capacity;
+		
+		int i = 0;
+		while(map.capacity == capacity) {
+			map.put(new CollidingKey(i), i);
+			i++;
+		}
+		
+		assertTrue(HashMap.isTreeBucket(map.table[map.evaluateIndex(CollidingKey.HASH)]));
+		for(int j = 0; j < i; j++) {
+			assertThat(map.get(new CollidingKey(j)), equalTo(j));
+		}
+	}
+	
+	@Test
+	public void shouldRoundInitialCapacityUpToPowerOfTwo() {
+		HashMap<Integer, Integer> map = new HashMap<>(100, 0.5f);
+		
+		assertThat(map.capacity, equalTo(128));
+		assertThat(map.table.length, equalTo(128));
+		assertThat(map.threshold, equalTo(64));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRejectIllegalLoadFactor() {
+		new HashMap<Integer, Integer>(16, 0f);
+	}
+	
+	@Test
+	public void shouldGrowOnceWhenEnsuringCapacity() {
+		HashMap<Integer, Integer> map = new HashMap<>();
+		
+		map.ensureCapacity(1000);
+		HashMap.Entry<Integer, Integer>[] table = map.table;
+		for(int i = 0; i < 1000; i++) {
+			map.put(i, i);
+		}
+		
+		assertThat(map.table, sameInstance(table));
+		assertThat(map.capacity, equalTo(2048));
+	}
+	
+	@Test
+	public void shouldPutAllKeysOfArraysResizingOnce() {
+		HashMap<Integer, Integer> map = new HashMap<>(true);
+		Integer[] keys = new Integer[1000];
+		Integer[] values = new Integer[keys.length];
+		for(int i = 0; i < keys.length; i++) {
+			keys[i] = i;
+			values[i] = -i;
+		}
+		
+		map.putAll(keys, values);
+		
+		assertThat(map.size(), equalTo(keys.length));
+		assertThat(map.capacity, equalTo(2048));
+		assertThat(map.oldTable, nullValue());
+		for(int i = 0; i < keys.length; i++) {
+			assertThat(map.get(i), equalTo(-i));
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRejectKeysAndValuesOfDifferentLength() {
+		new HashMap<Integer, Integer>().putAll(new Integer[2], new Integer[1]);
+	}
+	
+	@Test
+	public void shouldPutAllMappingsOfOtherMaps() {
+		HashMap<Integer, Integer> other = new HashMap<>();
+		java.util.Map<Integer, Integer> javaMap = new java.util.HashMap<>();
+		for(int i = 0; i < 100; i++) {
+			other.put(i, i);
+			javaMap.put(i + 100, i + 100);
+		}
+		HashMap<Integer, Integer> map = new HashMap<>(Hashing.murmur3());
+		
+		map.putAll(other);
+		map.putAll(javaMap);
+		
+		assertThat(map.size(), equalTo(200));
+		for(int i = 0; i < 200; i++) {
+			assertThat(map.get(i), equalTo(i));
+		}
+	}
+	
+	@Test
+	public void shouldGetAllValuesIntoOutputArray() {
+		HashMap<Integer, Integer> map = new HashMap<>();
+		for(int i = 0; i < 200; i += 2) {
+			map.put(i, i);
+		}
+		Integer[] keys = new Integer[200];
+		for(int i = 0; i < keys.length; i++) {
+			keys[i] = i;
+		}
+		Integer[] values = new Integer[keys.length];
+		
+		int found = map.getAll(keys, values);
+		
+		assertThat(found, equalTo(100));
+		for(int i = 0; i < keys.length; i++) {
+			assertThat(values[i], equalTo(i % 2 == 0 ? i : null));
+		}
+	}
+	
+	@Test
+	public void shouldRemoveAllKeysAndCountRemovedMappings() {
+		HashMap<Integer, Integer> map = new HashMap<>();
+		for(int i = 0; i < 100; i++) {
+			map.put(i, i);
+		}
+		
+		int removed = map.removeAll(new Integer[] { 1, 2, 3, 1000 });
+		removed += map.removeAll(java.util.Arrays.asList(4, 5, 2000));
+		
+		assertThat(removed, equalTo(5));
+		assertThat(map.size(), equalTo(95));
+		assertFalse(map.containsKey(3));
+		assertFalse(map.containsKey(5));
+	}
+	
+	@Test
+	public void shouldVisitEveryMappingWithForEachDuringIncrementalResize() {
+		HashMap<Integer, Integer> map = new HashMap<>(true);
+		int borderValue = map.threshold;
+		for(int i = 0; i <= borderValue; i++) {
+			map.put(i, -i);
+		}
+		assertThat(map.oldTable, notNullValue());
+		java.util.Map<Integer, Integer> visited = new java.util.HashMap<>();
+		
+		map.forEach(visited::put);
+		
+		assertThat(visited.size(), equalTo(map.size()));
+		for(int i = 0; i < map.size(); i++) {
+			assertThat(visited.get(i), equalTo(-i));
+		}
+	}
+	
+	@Test
+	public void shouldScanAndRemoveWithReusableCursor() {
+		HashMap<Integer, Integer> map = new HashMap<>();
+		for(int i = 0; i < 100; i++) {
+			map.put(i, i);
+		}
+		HashMap<Integer, Integer>.Cursor cursor = map.cursor();
+		
+		int visited = 0;
+		while(cursor.advance()) {
+			visited++;
+			if(cursor.key() % 2 == 0)
+				cursor.remove();
+			else
+				cursor.setValue(-cursor.value());
+		}
+		
+		assertThat(visited, equalTo(100));
+		assertThat(map.size(), equalTo(50));
+		assertFalse(cursor.advance());
+		
+		cursor.reset();
+		int sum = 0;
+		while(cursor.advance()) {
+			sum += cursor.value();
+		}
+		assertThat(sum, equalTo(-2500));
+	}
+	
+	@Test
+	public void shouldVisitRemainingTreeEntriesWhenRemovingThroughCursor() {
+		HashMap<CollidingKey, Integer> map = prepareMapWithMinTreeifyCapacity();
+		int treeSize = HashMap.TREEIFY_THRESHOLD * 2;
+		for(int i = 0; i < treeSize; i++) {
+			map.put(new CollidingKey(i), i);
+		}
+		int size = map.size();
+		assertTrue(HashMap.isTreeBucket(map.table[HashMap.indexFor(CollidingKey.HASH, map.capacity)]));
+		HashMap<CollidingKey, Integer>.Cursor cursor = map.cursor();
+		
+		int visited = 0;
+		while(cursor.advance()) {
+			visited++;
+			if(cursor.key().id >= 0)
+				cursor.remove();
+		}
+		
+		assertThat(visited, equalTo(size));
+		assertThat(map.size(), equalTo(size - treeSize));
+		for(int i = 0; i < treeSize; i++) {
+			assertFalse(map.containsKey(new CollidingKey(i)));
+		}
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void shouldRejectCursorAccessBeforeAdvancing() {
+		new HashMap<Integer, Integer>().cursor().key();
+	}
+	
+	@Test
+	public void shouldReflectMapInViews() {
+		HashMap<Integer, Integer> map = new HashMap<>();
+		for(int i = 0; i < 10; i++) {
+			map.put(i, i * 10);
+		}
+		
+		assertThat(map.keySet().size(), equalTo(10));
+		assertTrue(map.keySet().contains(3));
+		assertTrue(map.values().contains(30));
+		assertTrue(map.entrySet().contains(new java.util.AbstractMap.SimpleEntry<>(3, 30)));
+		assertFalse(map.entrySet().contains(new java.util.AbstractMap.SimpleEntry<>(3, 31)));
+		
+		assertTrue(map.keySet().remove(3));
+		assertTrue(map.entrySet().remove(new java.util.AbstractMap.SimpleEntry<>(4, 40)));
+		map.values().removeIf(value -> value >= 50);
+		
+		assertThat(map.size(), equalTo(3));
+		assertThat(new java.util.HashSet<>(map.keySet()), equalTo(new java.util.HashSet<>(java.util.Arrays.asList(0, 1, 2))));
+		for(java.util.Map.Entry<Integer, Integer> entry : map.entrySet()) {
+			entry.setValue(entry.getKey());
+		}
+		assertThat(map.get(2), equalTo(2));
+	}
+	
+	@Test
+	public void shouldSplitSpliteratorIntoDisjointBucketRanges() {
+		HashMap<Integer, Integer> map = new HashMap<>();
+		for(int i = 0; i < 1000; i++) {
+			map.put(i, i);
+		}
+		
+		java.util.Spliterator<java.util.Map.Entry<Integer, Integer>> spliterator = map.spliterator();
+		assertTrue(spliterator.hasCharacteristics(java.util.Spliterator.SIZED));
+		assertThat(spliterator.estimateSize(), equalTo(1000L));
+		java.util.Spliterator<java.util.Map.Entry<Integer, Integer>> prefix = spliterator.trySplit();
+		
+		assertFalse(spliterator.hasCharacteristics(java.util.Spliterator.SIZED));
+		java.util.Set<Integer> keys = new java.util.HashSet<>();
+		prefix.forEachRemaining(entry -> assertTrue(keys.add(entry.getKey())));
+		spliterator.forEachRemaining(entry -> assertTrue(keys.add(entry.getKey())));
+		assertThat(keys.size(), equalTo(1000));
+	}
+	
+	@Test
+	public void shouldStreamMappingsInParallel() {
+		HashMap<Integer, Integer> map = new HashMap<>(true);
+		for(int i = 0; i < 1000; i++) {
+			map.put(i, i);
+		}
+		
+		assertThat(map.parallelStream().mapToInt(java.util.Map.Entry::getValue).sum(), equalTo(499500));
+		assertThat(map.keySet().parallelStream().filter(key -> key % 2 == 0).count(), equalTo(500L));
+		assertThat(map.values().stream().count(), equalTo(1000L));
+	}
+	
+	@Test
+	public void shouldNotReportValuesAsDistinct() {
+		HashMap<Integer, Integer> map = new HashMap<>();
+		for(int i = 0; i < 10; i++) {
+			map.put(i, i % 2);
+		}
+		
+		assertTrue(map.keySet().spliterator().hasCharacteristics(java.util.Spliterator.DISTINCT));
+		assertTrue(map.spliterator().hasCharacteristics(java.util.Spliterator.DISTINCT));
+		assertFalse(map.values().spliterator().hasCharacteristics(java.util.Spliterator.DISTINCT));
+		assertThat(map.values().stream().distinct().count(), equalTo(2L));
+		assertThat(map.values().stream().collect(java.util.stream.Collectors.toSet()).size(), equalTo(2));
+	}
+	
+	@Test
+	public void shouldRunParallelBulkOperationsOverAllMappings() {
+		HashMap<Integer, Long> map = new HashMap<>();
+		for(int i = 0; i < 10000; i++) {
+			map.put(i, (long) i);
+		}
+		java.util.concurrent.atomic.LongAdder visited = new java.util.concurrent.atomic.LongAdder();
+		
+		map.forEach(1, (key, value) -> visited.increment());
+		Long sum = map.reduce(1, (key, value) -> value, Long::sum);
+		Long sequentialSum = map.reduce(Long.MAX_VALUE, (key, value) -> value, Long::sum);
+		Integer found = map.search(1, (key, value) -> value == 4242 ? key : null);
+		Integer missing = map.search(1, (key, value) -> value < 0 ? key : null);
+		
+		assertThat(visited.sum(), equalTo(10000L));
+		assertThat(sum, equalTo(49995000L));
+		assertThat(sequentialSum, equalTo(sum));
+		assertThat(found, equalTo(4242));
+		assertThat(missing, nullValue());
+	}
+	
+	@Test
+	public void shouldShrinkAfterMassRemoval() {
+		HashMap<Integer, Integer> map = new HashMap<>();
+		for(int i = 0; i < 10000; i++)
+			map.put(i, i);
+		int peakCapacity = map.capacity;
+		
+		for(int i = 100; i < 10000; i++)
+			map.remove(i);
+		
+		assertThat(map.size(), equalTo(100));
+		assertTrue(map.capacity <= peakCapacity / 16);
+		assertTrue(map.size() <= map.threshold);
+		for(int i = 0; i < 100; i++)
+			assertThat(map.get(i), equalTo(i));
+	}
+	
+	@Test
+	public void shouldShrinkOnceAfterBulkRemoval() {
+		HashMap<Integer, Integer> map = new HashMap<>(16, 0.75f, Hashing.identity(), true);
+		map.setShrinkFactor(HashMap.DEFAULT_SHRINK_FACTOR);
+		Integer[] keys = new Integer[10000];
+		for(int i = 0; i < keys.length; i++) {
+			keys[i] = i;
+			map.put(i, i);
+		}
+		
+		map.removeAll(java.util.Arrays.copyOfRange(keys, 5, keys.length));
+		
+		assertThat(map.capacity, equalTo(HashMap.DEFAULT_INITIAL_CAPACITY));
+		assertThat(map.oldTable, nullValue());
+		for(int i = 0; i < 5; i++)
+			assertThat(map.get(i), equalTo(i));
+	}
+	
+	@Test
+	public void shouldNotShrinkBelowInitialCapacity() {
+		HashMap<Integer, Integer> map = new HashMap<>(1024, 0.75f);
+		for(int i = 0; i < 1000; i++)
+			map.put(i, i);
+		for(int i = 0; i < 1000; i++)
+			map.remove(i);
+		
+		assertThat(map.capacity, equalTo(1024));
+	}
+	
+	@Test
+	public void shouldNotShrinkBelowEnsuredCapacity() {
+		HashMap<Integer, Integer> map = new HashMap<>();
+		map.ensureCapacity(1000);
+		int capacity = map.capacity;
+		map.put(1, 1);
+		map.remove(1);
+		
+		assertThat(map.capacity, equalTo(capacity));
+		map.compact();
+		assertThat(map.capacity, equalTo(capacity));
+	}
+	
+	@Test
+	public void shouldNotShrinkIncrementallyResizedMapByDefault() {
+		HashMap<Integer, Integer> map = new HashMap<>(true);
+		for(int i = 0; i < 10000; i++)
+			map.put(i, i);
+		int capacity = map.capacity;
+		for(int i = 0; i < 10000; i++)
+			map.remove(i);
+		
+		assertThat(map.capacity, equalTo(capacity));
+	}
+	
+	@Test
+	public void shouldNotResizeBackAndForthAroundShrinkThreshold() {
+		HashMap<Integer, Integer> map = new HashMap<>();
+		for(int i = 0; i < 1000; i++)
+			map.put(i, i);
+		int i = 999;
+		while(map.capacity == 2048)
+			map.remove(i--);
+		int capacity = map.capacity;
+		
+		for(int j = 0; j < 100; j++) {
+			map.put(i + 1, i + 1);
+			map.remove(i + 1);
+		}
+		
+		assertThat(map.capacity, equalTo(capacity));
+		assertTrue(map.size() < map.threshold / 2 + 1);
+	}
+	
+	@Test
+	public void shouldNotShrinkWithZeroShrinkFactor() {
+		HashMap<Integer, Integer> map = new HashMap<>();
+		map.setShrinkFactor(0);
+		for(int i = 0; i < 1000; i++)
+			map.put(i, i);
+		for(int i = 0; i < 1000; i++)
+			map.remove(i);
+		
+		assertThat(map.capacity, equalTo(2048));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRejectShrinkFactorAllowingResizeLoops() {
+		new HashMap<Integer, Integer>().setShrinkFactor(0.5f);
+	}
+	
+	@Test
+	public void shouldTrimToSize() {
+		HashMap<Integer, Integer> map = new HashMap<>(1024, 0.75f);
+		for(int i = 0; i < 12; i++)
+			map.put(i, i);
+		
+		map.trimToSize();
+		
+		assertThat(map.capacity, equalTo(16));
+		assertThat(map.threshold, equalTo(12));
+		for(int i = 0; i < 12; i++)
+			assertThat(map.get(i), equalTo(i));
+	}
+	
+	@Test
+	public void shouldCompactToHalfFullTableNoSmallerThanInitialOne() {
+		HashMap<Integer, Integer> map = new HashMap<>();
+		map.setShrinkFactor(0);
+		for(int i = 0; i < 10000; i++)
+			map.put(i, i);
+		for(int i = 100; i < 10000; i++)
+			map.remove(i);
+		
+		map.compact();
+		
+		assertThat(map.capacity, equalTo(512));
+		for(int i = 0; i < 100; i++)
+			map.remove(i);
+		map.compact();
+		assertThat(map.capacity, equalTo(HashMap.DEFAULT_INITIAL_CAPACITY));
+	}
+	
+	@Test
+	public void shouldTreeifyMergedBucketsWhenShrinking() {
+		HashMap<CollidingKey, Integer> map = new HashMap<>(64, 0.75f);
+		for(int i = 1; i <= 2000; i++)
+			map.put(new CollidingKey(-i), i);
+		for(int i = 0; i < 20; i++)
+			map.put(new CollidingKey(i), i);
+		
+		for(int i = 1; i <= 2000; i++)
+			map.remove(new CollidingKey(-i));
+		
+		assertThat(map.capacity, equalTo(64));
+		assertTrue(HashMap.isTreeBucket(map.table[map.evaluateIndex(CollidingKey.HASH)]));
+		assertThat(map.size(), equalTo(20));
+		for(int i = 0; i < 20; i++)
+			assertThat(map.get(new CollidingKey(i)), equalTo(i));
+	}
+	
+	private HashMap<CollidingKey, Integer> prepareMapWithMinTreeifyCapacity() {
+		HashMap<CollidingKey, Integer> map = new HashMap<>();
+		int key = 1;
+		while(map.capacity < HashMap.MIN_TREEIFY_CAPACITY) {
+			map.put(new CollidingKey(-key), key);
+			key++;
+		}
+		return map;
+	}
+	
+	/**
+	 * Key of a fixed hash code, distinct keys of which all collide unless their id is negative
+	 */
+	static class CollidingKey implements Comparable<CollidingKey> {
+		static final int HASH = 42;
+		
+		final int id;
+		
+		CollidingKey(int id) {
+			this.id = id;
+		}
+		@Override
+		public int hashCode() {
+			return id < 0 ? -id * 1000 : HASH;
+		}
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof CollidingKey && ((CollidingKey) obj).id == id;
+		}
+		@Override
+		public int compareTo(CollidingKey other) {
+			return Integer.compare(id, other.id);
+		}
+	}
 	
 	
 }
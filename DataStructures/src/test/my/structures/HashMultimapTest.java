@@ -0,0 +1,65 @@
+package my.structures;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class HashMultimapTest {
+
+	@Test
+	public void shouldKeepDistinctValues() {
+		HashMultimap<String, Integer> multimap = new HashMultimap<>();
+
+		assertThat(multimap.put("key", 1), equalTo(true));
+		assertThat(multimap.put("key", 2), equalTo(true));
+		assertThat(multimap.put("key", 1), equalTo(false));
+		assertThat(multimap.size(), equalTo(2));
+		assertThat(multimap.get("key"), equalTo((Set<Integer>) new java.util.HashSet<>(Arrays.asList(1, 2))));
+		assertThat(multimap.get("missing"), equalTo(Collections.<Integer>emptySet()));
+		assertThat(multimap.containsEntry("key", 2), equalTo(true));
+		assertThat(multimap.containsEntry("key", 3), equalTo(false));
+	}
+
+	@Test
+	public void shouldMoveManyValuesToSet() {
+		HashMultimap<Integer, Integer> multimap = new HashMultimap<>();
+		for(int i = 0; i < HashMultimap.SET_THRESHOLD; i++)
+			multimap.put(1, i);
+		assertThat(multimap.map.get(1) instanceof Object[], equalTo(true));
+
+		for(int i = 0; i < 1000; i++)
+			multimap.put(1, i);
+		assertThat(multimap.map.get(1) instanceof HashMultimap.ValueSet, equalTo(true));
+		assertThat(multimap.size(), equalTo(1000));
+		assertThat(multimap.valueCount(1), equalTo(1000));
+
+		for(int i = 0; i < 1000; i++)
+			assertThat(multimap.remove(1, i), equalTo(true));
+		assertThat(multimap.containsKey(1), equalTo(false));
+		assertThat(multimap.isEmpty(), equalTo(true));
+	}
+
+	@Test
+	public void shouldRemoveAllValuesOfKey() {
+		HashMultimap<Integer, Integer> multimap = new HashMultimap<>();
+		multimap.putAll(1, Arrays.asList(1, 2, 3));
+		multimap.put(2, 1);
+
+		assertThat(multimap.removeAll(1), equalTo(3));
+		assertThat(multimap.size(), equalTo(1));
+		assertThat(multimap.keySet(), equalTo(Collections.singleton(2)));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void shouldNotModifyThroughKeySet() {
+		HashMultimap<Integer, Integer> multimap = new HashMultimap<>();
+		multimap.put(1, 1);
+		multimap.keySet().remove(1);
+	}
+
+}
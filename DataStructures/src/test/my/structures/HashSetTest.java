@@ -0,0 +1,104 @@
+package my.structures;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.Iterator;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+public class HashSetTest {
+
+	@Test
+	public void shouldAddElementsOnce() {
+		HashSet<String> set = new HashSet<>();
+
+		assertThat(set.add("a"), equalTo(true));
+		assertThat(set.add("b"), equalTo(true));
+		assertThat(set.add("a"), equalTo(false));
+		assertThat(set.size(), equalTo(2));
+		assertThat(set.contains("a"), equalTo(true));
+		assertThat(set.contains("c"), equalTo(false));
+	}
+
+	@Test
+	public void shouldRemoveElements() {
+		HashSet<Integer> set = new HashSet<>();
+		for(int i = 0; i < 100; i++)
+			set.add(i);
+
+		assertThat(set.remove(5), equalTo(true));
+		assertThat(set.remove(5), equalTo(false));
+		assertThat(set.remove("not an integer"), equalTo(false));
+		assertThat(set.size(), equalTo(99));
+	}
+
+	@Test
+	public void shouldKeepNoValues() {
+		HashSet<Integer> set = new HashSet<>();
+		set.add(1);
+
+		assertThat(set.map.getEntry(1).getClass() == HashMap.Entry.class, equalTo(true));
+		assertThat(set.map.getEntry(1).getValue(), nullValue());
+	}
+
+	@Test
+	public void shouldGoBackToKeyOnlyEntriesWhenUntreeified() {
+		HashSet<HashMapTest.CollidingKey> set = new HashSet<>(64, 0.75f);
+		for(int i = 0; i < HashMap.TREEIFY_THRESHOLD + 2; i++)
+			set.add(new HashMapTest.CollidingKey(i));
+		int index = set.map.evaluateIndex(HashMapTest.CollidingKey.HASH);
+		assertThat(HashMap.isTreeBucket(set.map.table[index]), equalTo(true));
+
+		for(int i = HashMap.UNTREEIFY_THRESHOLD; i < HashMap.TREEIFY_THRESHOLD + 2; i++)
+			set.remove(new HashMapTest.CollidingKey(i));
+
+		assertThat(HashMap.isTreeBucket(set.map.table[index]), equalTo(false));
+		for(HashMap.Entry<?, ?> entry = set.map.table[index]; entry != null; entry = entry.next)
+			assertThat(entry.getClass() == HashMap.Entry.class, equalTo(true));
+		assertThat(set.size(), equalTo(HashMap.UNTREEIFY_THRESHOLD));
+	}
+
+	@Test
+	public void shouldAcceptNullElement() {
+		HashSet<String> set = new HashSet<>();
+
+		assertThat(set.add(null), equalTo(true));
+		assertThat(set.contains(null), equalTo(true));
+		assertThat(set.remove(null), equalTo(true));
+		assertThat(set.isEmpty(), equalTo(true));
+	}
+
+	@Test
+	public void shouldIterateAndRemoveThroughIterator() {
+		HashSet<Integer> set = new HashSet<>(Hashing.murmur3());
+		for(int i = 0; i < 1000; i++)
+			set.add(i);
+
+		for(Iterator<Integer> it = set.iterator(); it.hasNext();) {
+			if(it.next() % 2 == 0)
+				it.remove();
+		}
+
+		assertThat(set.size(), equalTo(500));
+		assertThat(set.stream().mapToInt(Integer::intValue).sum(), equalTo(500 * 500));
+		assertThat(set.parallelStream().filter(i -> i % 2 == 0).collect(Collectors.toList()).isEmpty(), equalTo(true));
+	}
+
+	@Test
+	public void shouldCompareWithOtherSets() {
+		HashSet<Integer> set = new HashSet<>();
+		java.util.Set<Integer> other = new java.util.HashSet<>();
+		for(int i = 0; i < 10; i++) {
+			set.add(i);
+			other.add(i);
+		}
+
+		assertThat(set.equals(other), equalTo(true));
+		assertThat(set.hashCode(), equalTo(other.hashCode()));
+		assertThat(set.containsAll(other), equalTo(true));
+	}
+
+}
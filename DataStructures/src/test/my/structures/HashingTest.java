@@ -0,0 +1,55 @@
+package my.structures;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HashingTest {
+
+	private static final int BUCKETS = 64;
+
+
+	@Test
+	public void shouldReturnHashCodeForIdentityStrategy() {
+		Float key = 1.5f;
+
+		assertThat(Hashing.<Float>identity().hash(key), equalTo(key.hashCode()));
+	}
+
+	@Test
+	public void shouldMixHashCodeForMurmur3Strategy() {
+		Float key = 1.5f;
+
+		assertThat(Hashing.<Float>murmur3().hash(key), equalTo(Hashing.murmur3(key.hashCode())));
+	}
+
+	@Test
+	public void shouldKeepZeroAndMixOtherValuesWithMurmur3Finalizer() {
+		assertThat(Hashing.murmur3(0), equalTo(0));
+		assertThat(Hashing.murmur3(1), equalTo(0x514E28B7));
+	}
+
+	@Test
+	public void shouldSpreadFloatKeysOverAllBucketsWithMurmur3() {
+		int identityUsed = usedBuckets(Hashing.<Float>identity());
+		int murmurUsed = usedBuckets(Hashing.<Float>murmur3());
+
+		assertThat(identityUsed, equalTo(1));
+		assertTrue(murmurUsed > BUCKETS * 3 / 4);
+	}
+
+	private int usedBuckets(HashStrategy<Float> strategy) {
+		boolean[] used = new boolean[BUCKETS];
+		for(int i = 0; i < BUCKETS * 4; i++)
+			used[HashMap.indexFor(strategy.hash((float) i), BUCKETS)] = true;
+
+		int count = 0;
+		for(boolean u : used)
+			if(u)
+				count++;
+		return count;
+	}
+
+}
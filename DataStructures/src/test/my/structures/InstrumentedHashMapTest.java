@@ -0,0 +1,169 @@
+package my.structures;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class InstrumentedHashMapTest {
+
+	@Test
+	public void shouldCountHitsAndMisses() {
+		InstrumentedHashMap<Integer, Integer> map = new InstrumentedHashMap<>();
+		for(int i = 0; i < 10; i++)
+			map.put(i, i);
+
+		map.get(1);
+		map.get(20);
+		map.containsKey(2);
+		map.getAll(new Integer[] { 3, 4, 30 }, new Integer[3]);
+
+		HashMapStats stats = map.stats();
+		assertThat(stats.hits(), equalTo(4L));
+		assertThat(stats.misses(), equalTo(2L));
+		assertThat(stats.hitRatio(), equalTo(4 / 6.0));
+
+		map.resetCounters();
+		assertThat(map.stats().hits(), equalTo(0L));
+	}
+
+	@Test
+	public void shouldCountResizes() {
+		InstrumentedHashMap<Integer, Integer> map = new InstrumentedHashMap<>(16, 0.75f, Hashing.identity(), false);
+		for(int i = 0; i < 100; i++)
+			map.put(i, i);
+
+		HashMapStats stats = map.stats();
+		assertThat(stats.resizes(), equalTo(4L));
+		assertThat(stats.capacity(), equalTo(256));
+		assertTrue(stats.maxResizeNanos() <= stats.resizeNanos());
+	}
+
+	@Test
+	public void shouldDescribeChainLengths() {
+		// keys differing only above the table bits all fall into bucket 0
+		InstrumentedHashMap<Integer, Integer> map = new InstrumentedHashMap<>(16, 100f, Hashing.identity(), false);
+		for(int i = 0; i < 4; i++)
+			map.put(i << 8, i);
+		map.put(1, 1);
+
+		HashMapStats stats = map.stats();
+		assertThat(stats.size(), equalTo(5));
+		assertThat(stats.chainLengthHistogram()[4], equalTo(1L));
+		assertThat(stats.chainLengthHistogram()[1], equalTo(1L));
+		assertThat(stats.emptyBuckets(), equalTo(14L));
+		assertThat(stats.maxChainLength(), equalTo(4));
+		// 1 + 2 + 3 + 4 for the chain, 1 for the single entry
+		assertThat(stats.averageProbeLength(), equalTo(11 / 5.0));
+		assertThat(stats.load(), equalTo(5 / 16.0));
+	}
+
+	@Test
+	public void shouldMeasureTreeBucketsByDepth() {
+		InstrumentedHashMap<Integer, Integer> map = new InstrumentedHashMap<>(64, 100f, Hashing.identity(), false);
+		for(int i = 0; i < 15; i++)
+			map.put(i << 8, i);
+
+		HashMapStats stats = map.stats();
+		assertThat(stats.treeBuckets(), equalTo(1));
+		assertThat(stats.maxChainLength(), equalTo(15));
+		assertThat(stats.chainLengthHistogram()[15], equalTo(1L));
+		// 8 for a chain of 15 entries, about 3.3 for a perfect tree
+		assertTrue(stats.averageProbeLength() < 4);
+	}
+
+	@Test
+	public void shouldCountBothTablesWhileResizingIncrementally() {
+		InstrumentedHashMap<Integer, Integer> map = new InstrumentedHashMap<>(true);
+		int size = 0;
+		do {
+			map.put(size, size);
+			size++;
+		} while(map.oldTable == null);
+		map.put(size, size);
+		size++;
+
+		HashMapStats stats = map.stats();
+		assertTrue(stats.isResizing());
+		long entries = 0;
+		long[] histogram = stats.chainLengthHistogram();
+		for(int length = 1; length < histogram.length; length++)
+			entries += length * histogram[length];
+		assertThat(entries, equalTo((long) size));
+	}
+
+	@Test
+	public void shouldExposeStatsThroughJmx() throws JMException {
+		InstrumentedHashMap<Integer, Integer> map = new InstrumentedHashMap<>();
+		map.put(1, 1);
+		map.get(1);
+		map.get(2);
+
+		ObjectName name = map.registerMBean("test");
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			assertThat(server.getAttribute(name, "Size"), equalTo((Object) 1));
+			assertThat(server.getAttribute(name, "Hits"), equalTo((Object) 1L));
+			assertThat(server.getAttribute(name, "Misses"), equalTo((Object) 1L));
+			assertThat(((long[]) server.getAttribute(name, "ChainLengthHistogram"))[1], equalTo(1L));
+
+			server.invoke(name, "resetCounters", null, null);
+			assertThat(map.hits, equalTo(0L));
+		} finally {
+			map.unregisterMBean();
+		}
+		assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(name), equalTo(false));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void shouldRejectSecondRegistration() throws JMException {
+		InstrumentedHashMap<Integer, Integer> map = new InstrumentedHashMap<>();
+		map.registerMBean("twice");
+		try {
+			map.registerMBean("twice again");
+		} finally {
+			map.unregisterMBean();
+		}
+	}
+
+	@Test
+	public void shouldRecordResizeEvents() throws Exception {
+		Path file = Files.createTempFile("resize", ".jfr");
+		try {
+			try(Recording recording = new Recording()) {
+				recording.enable(HashMapResizeEvent.class).withThreshold(java.time.Duration.ZERO);
+				recording.start();
+				InstrumentedHashMap<Integer, Integer> map = new InstrumentedHashMap<>(16, 0.75f, Hashing.identity(), false);
+				for(int i = 0; i < 13; i++)
+					map.put(i, i);
+				recording.stop();
+				recording.dump(file);
+			}
+
+			List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+					.filter(event -> event.getEventType().getName().equals("my.structures.HashMapResize"))
+					.collect(Collectors.toList());
+			assertThat(events.size(), equalTo(1));
+			assertThat(events.get(0).getInt("oldCapacity"), equalTo(16));
+			assertThat(events.get(0).getInt("newCapacity"), equalTo(32));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+}
@@ -0,0 +1,87 @@
+package my.structures;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class IntIntHashMapTest {
+
+	private static final int TEST_INTEGER1 = 7639;
+	private static final int TEST_INTEGER2 = 10;
+
+
+	@Test
+	public void shouldPutAndGetValueForIntKey() {
+		IntIntHashMap map = new IntIntHashMap();
+
+		assertThat(map.put(TEST_INTEGER1, TEST_INTEGER2), equalTo(0));
+
+		assertThat(map.get(TEST_INTEGER1), equalTo(TEST_INTEGER2));
+		assertTrue(map.containsKey(TEST_INTEGER1));
+		assertThat(map.size(), equalTo(1));
+	}
+
+	@Test
+	public void shouldReturnDefaultValueIfKeyNotInMap() {
+		IntIntHashMap map = new IntIntHashMap();
+
+		assertThat(map.get(TEST_INTEGER1), equalTo(0));
+		assertThat(map.getOrDefault(TEST_INTEGER1, -1), equalTo(-1));
+		assertThat(map.getOrDefault(0, -1), equalTo(-1));
+		assertFalse(map.containsKey(0));
+	}
+
+	@Test
+	public void shouldStoreZeroKey() {
+		IntIntHashMap map = new IntIntHashMap();
+
+		map.put(0, TEST_INTEGER2);
+
+		assertThat(map.getOrDefault(0, -1), equalTo(TEST_INTEGER2));
+		assertThat(map.size(), equalTo(1));
+		assertThat(map.remove(0), equalTo(TEST_INTEGER2));
+		assertThat(map.size(), equalTo(0));
+	}
+
+	@Test
+	public void shouldLeaveMapUnchangedWhenFull() {
+		IntIntHashMap map = new IntIntHashMap();
+		map.capacity = IntIntHashMap.MAXIMUM_CAPACITY;
+		for(int i = 1; i <= map.threshold; i++)
+			map.put(i, i);
+		int[] keys = map.keys.clone();
+		int[] values = map.values.clone();
+
+		boolean rejected = false;
+		try {
+			map.put(map.threshold + 1, 0);
+		} catch(IllegalStateException e) {
+			rejected = true;
+		}
+
+		assertTrue(rejected);
+		assertThat(map.size(), equalTo(map.threshold));
+		assertThat(map.keys, equalTo(keys));
+		assertThat(map.values, equalTo(values));
+	}
+
+	@Test
+	public void shouldKeepAllMappingsWhenGrowingAndRemoving() {
+		IntIntHashMap map = new IntIntHashMap();
+
+		for(int i = -1000; i < 1000; i++)
+			map.put(i, i * 3);
+		for(int i = -1000; i < 1000; i += 2)
+			assertThat(map.remove(i), equalTo(i * 3));
+
+		assertThat(map.size(), equalTo(1000));
+		for(int i = -1000; i < 1000; i++)
+			assertThat(map.containsKey(i), equalTo(i % 2 != 0));
+		for(int i = -999; i < 1000; i += 2)
+			assertThat(map.get(i), equalTo(i * 3));
+	}
+
+}
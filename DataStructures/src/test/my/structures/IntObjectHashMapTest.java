@@ -0,0 +1,93 @@
+package my.structures;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class IntObjectHashMapTest {
+
+	private static final int TEST_INTEGER1 = 7639;
+
+
+	@Test
+	public void shouldPutAndGetValueForIntKey() {
+		IntObjectHashMap<String> map = new IntObjectHashMap<>();
+
+		String value = "value";
+		assertThat(map.put(TEST_INTEGER1, value), nullValue());
+
+		assertThat(map.get(TEST_INTEGER1), sameInstance(value));
+		assertTrue(map.containsKey(TEST_INTEGER1));
+		assertThat(map.size(), equalTo(1));
+	}
+
+	@Test
+	public void shouldKeepZeroKeyOutsideOfKeysArray() {
+		IntObjectHashMap<String> map = new IntObjectHashMap<>();
+
+		map.put(0, "zero");
+
+		assertTrue(map.containsZeroKey);
+		assertThat(map.get(0), equalTo("zero"));
+		for(int key : map.keys)
+			assertThat(key, equalTo(0));
+		assertThat(map.size(), equalTo(1));
+
+		assertThat(map.remove(0), equalTo("zero"));
+		assertFalse(map.containsKey(0));
+		assertThat(map.size(), equalTo(0));
+	}
+
+	@Test
+	public void shouldReturnOldValueIfPutValueForExistingKey() {
+		IntObjectHashMap<String> map = new IntObjectHashMap<>();
+
+		map.put(TEST_INTEGER1, "first");
+
+		assertThat(map.put(TEST_INTEGER1, "second"), equalTo("first"));
+		assertThat(map.get(TEST_INTEGER1), equalTo("second"));
+		assertThat(map.size(), equalTo(1));
+	}
+
+	@Test
+	public void shouldLeaveMapUnchangedWhenFull() {
+		IntObjectHashMap<Integer> map = new IntObjectHashMap<>();
+		map.capacity = IntObjectHashMap.MAXIMUM_CAPACITY;
+		for(int i = 1; i <= map.threshold; i++)
+			map.put(i, i);
+		int[] keys = map.keys.clone();
+		Object[] values = map.values.clone();
+
+		boolean rejected = false;
+		try {
+			map.put(map.threshold + 1, 0);
+		} catch(IllegalStateException e) {
+			rejected = true;
+		}
+
+		assertTrue(rejected);
+		assertThat(map.size(), equalTo(map.threshold));
+		assertThat(map.keys, equalTo(keys));
+		assertThat(map.values, equalTo(values));
+	}
+
+	@Test
+	public void shouldKeepAllMappingsWhenGrowingAndRemoving() {
+		IntObjectHashMap<Integer> map = new IntObjectHashMap<>();
+
+		for(int i = -1000; i < 1000; i++)
+			map.put(i, i);
+		for(int i = -1000; i < 1000; i += 2)
+			assertThat(map.remove(i), equalTo(i));
+
+		assertThat(map.size(), equalTo(1000));
+		for(int i = -1000; i < 1000; i++)
+			assertThat(map.get(i), equalTo(i % 2 == 0 ? null : (Integer) i));
+	}
+
+}
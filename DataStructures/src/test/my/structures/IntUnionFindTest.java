@@ -0,0 +1,101 @@
+package my.structures;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class IntUnionFindTest {
+
+	@Test
+	public void shouldStartWithSingletonSets() {
+		IntUnionFind unionFind = new IntUnionFind(4);
+
+		assertThat(unionFind.size(), equalTo(4));
+		assertThat(unionFind.components(), equalTo(4));
+		for(int i = 0; i < 4; i++)
+			assertThat(unionFind.find(i), equalTo(i));
+	}
+
+	@Test
+	public void shouldUnionDistinctSetsOnlyOnce() {
+		IntUnionFind unionFind = new IntUnionFind(4);
+
+		assertTrue(unionFind.union(0, 1));
+		assertTrue(unionFind.union(2, 1));
+		assertFalse(unionFind.union(0, 2));
+		assertFalse(unionFind.union(3, 3));
+
+		assertThat(unionFind.components(), equalTo(2));
+		assertTrue(unionFind.connected(0, 2));
+		assertFalse(unionFind.connected(0, 3));
+	}
+
+	@Test
+	public void shouldLinkLowerRankRootUnderHigherRankOne() {
+		IntUnionFind unionFind = new IntUnionFind(3);
+		unionFind.union(0, 1);
+		int root = unionFind.find(0);
+
+		unionFind.union(2, 0);
+
+		assertThat(unionFind.find(2), equalTo(root));
+		assertThat((int) unionFind.rank[root], equalTo(1));
+	}
+
+	@Test
+	public void shouldHalvePathOnFind() {
+		IntUnionFind unionFind = new IntUnionFind(5);
+		// chain 4 -> 3 -> 2 -> 1 -> 0, which union by rank alone never builds
+		for(int i = 1; i < 5; i++)
+			unionFind.parent[i] = i - 1;
+
+		assertThat(unionFind.find(4), equalTo(0));
+
+		assertThat(unionFind.parent[4], equalTo(2));
+		assertThat(unionFind.parent[2], equalTo(0));
+	}
+
+	@Test
+	public void shouldGrowWhenAddingElements() {
+		IntUnionFind unionFind = new IntUnionFind();
+		for(int i = 0; i < 100; i++)
+			assertThat(unionFind.add(), equalTo(i));
+		for(int i = 1; i < 100; i += 2)
+			unionFind.union(i - 1, i);
+
+		assertThat(unionFind.size(), equalTo(100));
+		assertThat(unionFind.components(), equalTo(50));
+	}
+
+	@Test
+	public void shouldKeepRanksLogarithmic() {
+		int size = 1 << 16;
+		IntUnionFind unionFind = new IntUnionFind(size);
+		Random random = new Random(7);
+		for(int i = 0; i < 4 * size; i++)
+			unionFind.union(random.nextInt(size), random.nextInt(size));
+
+		for(int i = 0; i < size; i++)
+			assertTrue(unionFind.rank[i] <= 16);
+		assertThat(unionFind.components(), equalTo(countRoots(unionFind)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRejectUnknownElement() {
+		new IntUnionFind(4).find(4);
+	}
+
+	private static int countRoots(IntUnionFind unionFind) {
+		int roots = 0;
+		for(int i = 0; i < unionFind.size(); i++)
+			if(unionFind.parent[i] == i)
+				roots++;
+		return roots;
+	}
+
+}
@@ -0,0 +1,73 @@
+package my.structures;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LongLongHashMapTest {
+
+	private static final long TEST_LONG1 = 1L << 40;
+	private static final long TEST_LONG2 = 10;
+
+
+	@Test
+	public void shouldPutAndGetValueForLongKey() {
+		LongLongHashMap map = new LongLongHashMap();
+
+		assertThat(map.put(TEST_LONG1, TEST_LONG2), equalTo(0L));
+
+		assertThat(map.get(TEST_LONG1), equalTo(TEST_LONG2));
+		assertTrue(map.containsKey(TEST_LONG1));
+		assertFalse(map.containsKey(TEST_LONG1 + 1));
+	}
+
+	@Test
+	public void shouldReturnOldValueIfPutValueForExistingKey() {
+		LongLongHashMap map = new LongLongHashMap();
+
+		map.put(TEST_LONG1, 1);
+
+		assertThat(map.put(TEST_LONG1, 2), equalTo(1L));
+		assertThat(map.size(), equalTo(1));
+	}
+
+	@Test
+	public void shouldLeaveMapUnchangedWhenFull() {
+		LongLongHashMap map = new LongLongHashMap();
+		map.capacity = LongLongHashMap.MAXIMUM_CAPACITY;
+		for(int i = 1; i <= map.threshold; i++)
+			map.put(i, i);
+		long[] keys = map.keys.clone();
+		long[] values = map.values.clone();
+
+		boolean rejected = false;
+		try {
+			map.put(map.threshold + 1, 0);
+		} catch(IllegalStateException e) {
+			rejected = true;
+		}
+
+		assertTrue(rejected);
+		assertThat(map.size(), equalTo(map.threshold));
+		assertThat(map.keys, equalTo(keys));
+		assertThat(map.values, equalTo(values));
+	}
+
+	@Test
+	public void shouldKeepAllMappingsWhenGrowingAndRemoving() {
+		LongLongHashMap map = new LongLongHashMap();
+
+		for(long i = 0; i < 2000; i++)
+			map.put(i << 32, i);
+		for(long i = 0; i < 2000; i += 2)
+			assertThat(map.remove(i << 32), equalTo(i));
+
+		assertThat(map.size(), equalTo(1000));
+		for(long i = 0; i < 2000; i++)
+			assertThat(map.getOrDefault(i << 32, -1), equalTo(i % 2 == 0 ? -1 : i));
+	}
+
+}
@@ -0,0 +1,140 @@
+package my.structures;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MappedHashMapTest {
+
+	private Path file;
+
+
+	@Before
+	public void createTempDirectory() throws IOException {
+		file = Files.createTempDirectory("mapped").resolve("map.bin");
+	}
+
+	@After
+	public void deleteTempFile() throws IOException {
+		Files.deleteIfExists(file);
+		Files.delete(file.getParent());
+	}
+
+	@Test
+	public void shouldKeepMappingsAfterReopening() throws IOException {
+		try(MappedHashMap<Integer, Long> map = MappedHashMap.create(file, Serializers.INT, Serializers.LONG, 5000, 0.75f, 1024)) {
+			for(int i = 0; i < 5000; i++)
+				map.put(i, (long) i * i);
+			for(int i = 0; i < 5000; i += 2)
+				map.remove(i);
+
+			assertTrue(map.segments.length > 1);
+		}
+
+		try(MappedHashMap<Integer, Long> map = MappedHashMap.open(file, Serializers.INT, Serializers.LONG, 1024)) {
+			assertThat(map.size(), equalTo(2500));
+			for(int i = 0; i < 5000; i++)
+				assertThat(map.get(i), equalTo(i % 2 == 0 ? null : (long) i * i));
+		}
+	}
+
+	@Test
+	public void shouldMarkHeaderDirtyUntilForced() throws IOException {
+		try(MappedHashMap<Integer, Long> map = MappedHashMap.create(file, Serializers.INT, Serializers.LONG, 16)) {
+			assertThat(map.header.getInt(MappedHashMap.STATE_OFFSET), equalTo(MappedHashMap.STATE_CLEAN));
+
+			map.put(1, 1L);
+			assertThat(map.header.getInt(MappedHashMap.STATE_OFFSET), equalTo(MappedHashMap.STATE_DIRTY));
+
+			map.force();
+			assertThat(map.header.getInt(MappedHashMap.STATE_OFFSET), equalTo(MappedHashMap.STATE_CLEAN));
+			assertThat(map.header.getInt(MappedHashMap.SIZE_OFFSET), equalTo(1));
+		}
+	}
+
+	@Test
+	public void shouldRecountSizeOfDirtyFile() throws IOException {
+		try(MappedHashMap<Integer, Long> map = MappedHashMap.create(file, Serializers.INT, Serializers.LONG, 16)) {
+			map.put(1, 1L);
+			map.put(2, 2L);
+			map.force();
+			map.put(3, 3L);
+			// simulates a crash: the table is unmapped without its header being updated
+			map.freeSegments();
+			Buffers.free(map.header);
+		}
+
+		try(MappedHashMap<Integer, Long> map = MappedHashMap.open(file, Serializers.INT, Serializers.LONG)) {
+			assertThat(map.size(), equalTo(3));
+			assertThat(map.get(3), equalTo(3L));
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void shouldRejectNewKeysWhenFull() throws IOException {
+		try(MappedHashMap<Integer, Long> map = MappedHashMap.create(file, Serializers.INT, Serializers.LONG, 12)) {
+			for(int i = 0; i <= map.threshold; i++)
+				map.put(i, (long) i);
+		}
+	}
+
+	@Test
+	public void shouldRejectFileWithCorruptedHeader() throws IOException {
+		MappedHashMap.create(file, Serializers.INT, Serializers.LONG, 16).close();
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, 1 << 20), MappedHashMap.CAPACITY_OFFSET);
+		}
+
+		assertThat(openFails(Serializers.INT, Serializers.LONG).getMessage().startsWith("Corrupted"), equalTo(true));
+	}
+
+	@Test
+	public void shouldRejectFileWithOtherSlotLayout() throws IOException {
+		MappedHashMap.create(file, Serializers.INT, Serializers.LONG, 16).close();
+
+		assertThat(openFails(Serializers.LONG, Serializers.LONG).getMessage().contains("keys/values"), equalTo(true));
+	}
+
+	@Test
+	public void shouldRejectFileThatIsNotAMap() throws IOException {
+		Files.write(file, new byte[MappedHashMap.HEADER_SIZE]);
+
+		assertThat(openFails(Serializers.INT, Serializers.LONG).getMessage().startsWith("Not a map file"), equalTo(true));
+	}
+
+	@Test(expected = IOException.class)
+	public void shouldNotOverwriteExistingFile() throws IOException {
+		Files.write(file, new byte[0]);
+
+		MappedHashMap.create(file, Serializers.INT, Serializers.LONG, 16);
+	}
+
+	@Test
+	public void shouldReturnNullForMissingKey() throws IOException {
+		try(MappedHashMap<Integer, Long> map = MappedHashMap.create(file, Serializers.INT, Serializers.LONG, 16)) {
+			assertThat(map.get(1), nullValue());
+		}
+	}
+
+	private <K,V> IOException openFails(Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+		try {
+			MappedHashMap.open(file, keySerializer, valueSerializer).close();
+		} catch(IOException e) {
+			return e;
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,72 @@
+package my.structures;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class OffHeapHashMapTest {
+
+	private static final long TEST_LONG1 = 7639L;
+	private static final double TEST_DOUBLE1 = 10.5;
+
+
+	@Test
+	public void shouldComputeSlotSizeFromSerializers() {
+		try(OffHeapHashMap<Long, Double> map = new OffHeapHashMap<>(Serializers.LONG, Serializers.DOUBLE)) {
+			assertThat(map.slotSize, equalTo(Integer.BYTES + Long.BYTES + Double.BYTES));
+			assertThat(map.memoryUsage(), equalTo((long) map.capacity * map.slotSize));
+			assertTrue(map.segments[0].isDirect());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRejectVariableSizeKeys() {
+		new OffHeapHashMap<>(Serializers.STRING, Serializers.LONG);
+	}
+
+	@Test
+	public void shouldPutGetAndRemoveValueForKey() {
+		try(OffHeapHashMap<Long, Double> map = new OffHeapHashMap<>(Serializers.LONG, Serializers.DOUBLE)) {
+			assertThat(map.put(TEST_LONG1, TEST_DOUBLE1), nullValue());
+
+			assertThat(map.get(TEST_LONG1), equalTo(TEST_DOUBLE1));
+			assertTrue(map.containsKey(TEST_LONG1));
+			assertThat(map.size(), equalTo(1));
+
+			assertThat(map.put(TEST_LONG1, 1.0), equalTo(TEST_DOUBLE1));
+			assertThat(map.size(), equalTo(1));
+
+			assertThat(map.remove(TEST_LONG1), equalTo(1.0));
+			assertFalse(map.containsKey(TEST_LONG1));
+			assertThat(map.size(), equalTo(0));
+		}
+	}
+
+	@Test
+	public void shouldKeepAllMappingsWhenGrowingAcrossSegmentsAndRemoving() {
+		try(OffHeapHashMap<Integer, Long> map = new OffHeapHashMap<>(Serializers.INT, Serializers.LONG, 16, 0.75f, 1024)) {
+			for(int i = 0; i < 5000; i++)
+				map.put(i, (long) i * i);
+			for(int i = 0; i < 5000; i += 2)
+				assertThat(map.remove(i), equalTo((long) i * i));
+
+			assertTrue(map.segments.length > 1);
+			assertThat(map.size(), equalTo(2500));
+			for(int i = 0; i < 5000; i++)
+				assertThat(map.get(i), equalTo(i % 2 == 0 ? null : (long) i * i));
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void shouldRejectOperationsAfterClose() {
+		OffHeapHashMap<Long, Double> map = new OffHeapHashMap<>(Serializers.LONG, Serializers.DOUBLE);
+		map.close();
+
+		map.get(TEST_LONG1);
+	}
+
+}
@@ -0,0 +1,188 @@
+package my.structures;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class OpenHashMapTest {
+
+	private static final int TEST_INTEGER1 = 7639;
+	private static final int TEST_INTEGER2 = 10;
+
+
+	@Test
+	public void shouldSetDefaultValuesAndCreateDefaultSizeArraysOnCreation() {
+		OpenHashMap<String, String> map = new OpenHashMap<>();
+
+		assertThat(map.capacity, equalTo(OpenHashMap.DEFAULT_INITIAL_CAPACITY));
+		assertThat(map.loadFactor, equalTo(OpenHashMap.DEFAULT_INITIAL_LOAD_FACTOR));
+		assertThat(map.size, equalTo(0));
+		assertThat(map.keys.length, equalTo(map.capacity));
+		assertThat(map.values.length, equalTo(map.capacity));
+		assertThat(map.hashes.length, equalTo(map.capacity));
+	}
+
+	@Test
+	public void shouldRoundCapacityUpToPowerOfTwo() {
+		OpenHashMap<String, String> map = new OpenHashMap<>(100, 0.5f);
+
+		assertThat(map.capacity, equalTo(128));
+		assertThat(map.threshold, equalTo(64));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRejectLoadFactorNotLowerThanOne() {
+		new OpenHashMap<String, String>(16, 1f);
+	}
+
+	@Test
+	public void shouldReturnValueForEqualKey() {
+		OpenHashMap<Integer, Integer> map = new OpenHashMap<>();
+
+		Integer value = new Integer(TEST_INTEGER2);
+		map.put(new Integer(TEST_INTEGER1), value);
+
+		assertThat(map.get(new Integer(TEST_INTEGER1)), sameInstance(value));
+		assertTrue(map.containsKey(TEST_INTEGER1));
+	}
+
+	@Test
+	public void shouldReturnOldValueAndKeepSizeIfPutValueForExistingKey() {
+		OpenHashMap<Integer, Integer> map = new OpenHashMap<>();
+
+		Integer i1 = new Integer(TEST_INTEGER1);
+		Integer i2 = new Integer(TEST_INTEGER2);
+		map.put(i1, i1);
+
+		Integer retValue = map.put(i1, i2);
+
+		assertThat(retValue, sameInstance(i1));
+		assertThat(map.get(i1), sameInstance(i2));
+		assertThat(map.size(), equalTo(1));
+	}
+
+	@Test
+	public void shouldReturnNullIfKeyNotInMap() {
+		OpenHashMap<Integer, Integer> map = new OpenHashMap<>();
+
+		assertThat(map.get(0), nullValue());
+		assertFalse(map.containsKey(0));
+	}
+
+	@Test
+	public void shouldStoreValueForNullKey() {
+		OpenHashMap<Integer, Integer> map = new OpenHashMap<>();
+
+		Integer i = new Integer(TEST_INTEGER1);
+		map.put(null, i);
+
+		assertThat(map.get(null), sameInstance(i));
+		assertTrue(map.containsKey(null));
+		assertThat(map.size(), equalTo(1));
+
+		assertThat(map.remove(null), sameInstance(i));
+		assertFalse(map.containsKey(null));
+		assertThat(map.size(), equalTo(0));
+	}
+
+	@Test
+	public void shouldProbeConsecutiveSlotsForCollidingKeys() {
+		OpenHashMap<CollidingKey, Integer> map = new OpenHashMap<>();
+
+		for(int i = 0; i < 5; i++)
+			map.put(new CollidingKey(i), i);
+
+		int firstSlot = map.hash(new CollidingKey(0)) & map.mask;
+		for(int i = 0; i < 5; i++)
+			assertThat(map.keys[(firstSlot + i) & map.mask], equalTo((Object) new CollidingKey(i)));
+	}
+
+	@Test
+	public void shouldKeepClusterReachableAfterRemovingFromItsMiddle() {
+		OpenHashMap<CollidingKey, Integer> map = new OpenHashMap<>();
+
+		for(int i = 0; i < 5; i++)
+			map.put(new CollidingKey(i), i);
+
+		assertThat(map.remove(new CollidingKey(2)), equalTo(2));
+
+		assertThat(map.size(), equalTo(4));
+		assertFalse(map.containsKey(new CollidingKey(2)));
+		for(int i : new int[] {0, 1, 3, 4})
+			assertThat(map.get(new CollidingKey(i)), equalTo(i));
+
+		int lastSlot = (map.hash(new CollidingKey(0)) + 4) & map.mask;
+		assertThat(map.keys[lastSlot], nullValue());
+	}
+
+	@Test
+	public void shouldDoubleCapacityAndKeepAllMappingsWhenSizeExceedsThreshold() {
+		OpenHashMap<Integer, Integer> map = new OpenHashMap<>();
+
+		int threshold = map.threshold;
+		for(int i = 0; i <= threshold; i++)
+			map.put(i, i);
+
+		assertThat(map.capacity, equalTo(OpenHashMap.DEFAULT_INITIAL_CAPACITY << 1));
+		assertThat(map.keys.length, equalTo(map.capacity));
+		for(int i = 0; i <= threshold; i++)
+			assertThat(map.get(i), equalTo(i));
+	}
+
+	@Test
+	public void shouldLeaveMapUnchangedWhenFull() {
+		OpenHashMap<Integer, Integer> map = new OpenHashMap<>();
+		// pretend the table cannot grow any further
+		map.capacity = OpenHashMap.MAXIMUM_CAPACITY;
+		for(int i = 0; i < map.threshold; i++)
+			map.put(i, i);
+		Object[] keys = map.keys.clone();
+		Object[] values = map.values.clone();
+		int[] hashes = map.hashes.clone();
+
+		boolean rejected = false;
+		try {
+			map.put(map.threshold, 0);
+		} catch(IllegalStateException e) {
+			rejected = true;
+		}
+
+		assertTrue(rejected);
+		assertThat(map.size(), equalTo(map.threshold));
+		assertThat(map.keys, equalTo(keys));
+		assertThat(map.values, equalTo(values));
+		assertThat(map.hashes, equalTo(hashes));
+	}
+
+	@Test
+	public void shouldReturnNullWhenRemovingForNonPresentKey() {
+		OpenHashMap<Integer, Integer> map = new OpenHashMap<>();
+		map.put(TEST_INTEGER1, TEST_INTEGER2);
+
+		assertThat(map.remove(TEST_INTEGER2), nullValue());
+		assertThat(map.size(), equalTo(1));
+	}
+
+
+	static class CollidingKey {
+		final int id;
+
+		CollidingKey(int id) {
+			this.id = id;
+		}
+		@Override
+		public int hashCode() {
+			return 42;
+		}
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof CollidingKey && ((CollidingKey) obj).id == id;
+		}
+	}
+
+}
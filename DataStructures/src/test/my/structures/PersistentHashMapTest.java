@@ -0,0 +1,161 @@
+package my.structures;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PersistentHashMapTest {
+
+	@Test
+	public void shouldKeepPreviousVersions() {
+		PersistentHashMap<String, Integer> empty = PersistentHashMap.empty();
+		PersistentHashMap<String, Integer> one = empty.put("one", 1);
+		PersistentHashMap<String, Integer> two = one.put("two", 2);
+		PersistentHashMap<String, Integer> updated = two.put("one", 10);
+		PersistentHashMap<String, Integer> removed = updated.remove("two");
+
+		assertThat(empty.size(), equalTo(0));
+		assertThat(one.get("one"), equalTo(1));
+		assertThat(one.containsKey("two"), equalTo(false));
+		assertThat(two.get("one"), equalTo(1));
+		assertThat(updated.get("one"), equalTo(10));
+		assertThat(updated.size(), equalTo(2));
+		assertThat(removed.size(), equalTo(1));
+		assertThat(removed.get("two"), nullValue());
+		assertThat(two.get("two"), equalTo(2));
+	}
+
+	@Test
+	public void shouldReturnSameMapWhenNothingChanges() {
+		PersistentHashMap<Integer, Integer> map = PersistentHashMap.<Integer, Integer>empty().put(1, 1);
+
+		assertThat(map.put(1, 1), sameInstance(map));
+		assertThat(map.remove(2), sameInstance(map));
+	}
+
+	@Test
+	public void shouldShareUntouchedNodes() {
+		PersistentHashMap<Integer, Integer> map = PersistentHashMap.empty();
+		for(int i = 0; i < 1000; i++)
+			map = map.put(i, i);
+
+		// keys 0 and 1 lie in different sub-tries of the root
+		PersistentHashMap<Integer, Integer> updated = map.put(0, -1);
+		Object[] before = ((PersistentHashMap.BitmapNode<Integer, Integer>) map.root).content;
+		Object[] after = ((PersistentHashMap.BitmapNode<Integer, Integer>) updated.root).content;
+		int shared = 0;
+		for(int i = 0; i < before.length; i++) {
+			if(before[i] == after[i])
+				shared++;
+		}
+		assertThat(shared, equalTo(before.length - 1));
+	}
+
+	@Test
+	public void shouldHandleFullHashCollisions() {
+		PersistentHashMap<Integer, String> map = PersistentHashMap.empty(key -> 42);
+		for(int i = 0; i < 5; i++)
+			map = map.put(i, "v" + i);
+
+		assertThat(map.size(), equalTo(5));
+		for(int i = 0; i < 5; i++)
+			assertThat(map.get(i), equalTo("v" + i));
+
+		for(int i = 0; i < 4; i++)
+			map = map.remove(i);
+		assertThat(map.size(), equalTo(1));
+		assertThat(map.get(4), equalTo("v4"));
+		assertThat(map.root instanceof PersistentHashMap.BitmapNode, equalTo(true));
+	}
+
+	@Test
+	public void shouldAcceptNullKeysAndValues() {
+		PersistentHashMap<String, String> map = PersistentHashMap.<String, String>empty().put(null, "null").put("key", null);
+
+		assertThat(map.get(null), equalTo("null"));
+		assertThat(map.containsKey("key"), equalTo(true));
+		assertThat(map.getOrDefault("key", "default"), nullValue());
+		assertThat(map.getOrDefault("missing", "default"), equalTo("default"));
+		assertThat(map.remove(null).containsKey(null), equalTo(false));
+	}
+
+	@Test
+	public void shouldCollapseBackToEmptyRoot() {
+		PersistentHashMap<Integer, Integer> map = PersistentHashMap.empty();
+		Random random = new Random(7);
+		int[] keys = random.ints(2000).toArray();
+		for(int key : keys)
+			map = map.put(key, key);
+		for(int key : keys)
+			map = map.remove(key);
+
+		assertThat(map.size(), equalTo(0));
+		assertThat(((PersistentHashMap.BitmapNode<Integer, Integer>) map.root).content.length, equalTo(0));
+	}
+
+	@Test
+	public void shouldIterateOverAllMappings() {
+		PersistentHashMap<Integer, Integer> map = PersistentHashMap.empty(key -> key & 0xff);
+		for(int i = 0; i < 3000; i++)
+			map = map.put(i, -i);
+
+		long keySum = 0;
+		int count = 0;
+		for(Iterator<Entry<Integer, Integer>> it = map.iterator(); it.hasNext(); count++) {
+			Entry<Integer, Integer> entry = it.next();
+			assertThat(entry.getValue(), equalTo(-entry.getKey()));
+			keySum += entry.getKey();
+		}
+		assertThat(count, equalTo(3000));
+		assertThat(keySum, equalTo(2999L * 3000 / 2));
+	}
+
+	@Test
+	public void shouldEditInPlaceWithBuilder() {
+		PersistentHashMap<Integer, Integer> base = PersistentHashMap.<Integer, Integer>empty().put(1, 1);
+		PersistentHashMap.Builder<Integer, Integer> builder = base.toBuilder();
+		for(int i = 0; i < 1000; i++)
+			builder.put(i, i * 2);
+		assertThat(builder.remove(999), equalTo(1998));
+		assertThat(builder.put(1, 5), equalTo(2));
+
+		PersistentHashMap<Integer, Integer> built = builder.build();
+		assertThat(built.size(), equalTo(999));
+		assertThat(built.get(1), equalTo(5));
+		assertThat(built.get(500), equalTo(1000));
+		assertThat(base.size(), equalTo(1));
+		assertThat(base.get(1), equalTo(1));
+
+		// nodes of a built map are no longer updated in place
+		PersistentHashMap<Integer, Integer> next = built.put(500, 0);
+		assertThat(built.get(500), equalTo(1000));
+		assertThat(next.get(500), equalTo(0));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void shouldRejectBuilderUseAfterBuild() {
+		PersistentHashMap.Builder<Integer, Integer> builder = PersistentHashMap.<Integer, Integer>empty().toBuilder();
+		builder.build();
+		builder.put(1, 1);
+	}
+
+	@Test
+	public void shouldCopyHashMap() {
+		HashMap<Integer, Integer> source = new HashMap<>(Hashing.murmur3());
+		for(int i = 0; i < 500; i++)
+			source.put(i, i + 1);
+
+		PersistentHashMap<Integer, Integer> map = PersistentHashMap.copyOf(source);
+		assertThat(map.size(), equalTo(500));
+		for(int i = 0; i < 500; i++)
+			assertThat(map.get(i), equalTo(i + 1));
+	}
+
+}
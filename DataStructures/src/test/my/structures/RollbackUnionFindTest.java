@@ -0,0 +1,90 @@
+package my.structures;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class RollbackUnionFindTest {
+
+	@Test
+	public void shouldLinkSmallerSetUnderLargerOne() {
+		RollbackUnionFind unionFind = new RollbackUnionFind(4);
+		unionFind.union(0, 1);
+		int root = unionFind.find(0);
+
+		unionFind.union(2, 1);
+
+		assertThat(unionFind.find(2), equalTo(root));
+		assertThat(unionFind.setSize(2), equalTo(3));
+		assertThat(unionFind.components(), equalTo(2));
+	}
+
+	@Test
+	public void shouldRollBackToSnapshot() {
+		RollbackUnionFind unionFind = new RollbackUnionFind(5);
+		unionFind.union(0, 1);
+		int snapshot = unionFind.snapshot();
+
+		unionFind.union(1, 2);
+		unionFind.union(3, 4);
+		assertFalse(unionFind.union(0, 2));
+		unionFind.union(4, 0);
+		assertThat(unionFind.components(), equalTo(1));
+
+		unionFind.rollback(snapshot);
+
+		assertTrue(unionFind.connected(0, 1));
+		assertFalse(unionFind.connected(1, 2));
+		assertFalse(unionFind.connected(3, 4));
+		assertThat(unionFind.setSize(0), equalTo(2));
+		assertThat(unionFind.setSize(3), equalTo(1));
+		assertThat(unionFind.components(), equalTo(4));
+	}
+
+	@Test
+	public void shouldUndoLatestUnion() {
+		RollbackUnionFind unionFind = new RollbackUnionFind(3);
+		unionFind.union(0, 1);
+		unionFind.union(1, 2);
+
+		unionFind.undo();
+
+		assertTrue(unionFind.connected(0, 1));
+		assertFalse(unionFind.connected(0, 2));
+	}
+
+	@Test
+	public void shouldKeepTreesLogarithmicWithoutPathCompression() {
+		int size = 1 << 12;
+		RollbackUnionFind unionFind = new RollbackUnionFind(size);
+		for(int step = 1; step < size; step <<= 1)
+			for(int i = 0; i + step < size; i += 2 * step)
+				unionFind.union(i + step, i);
+
+		for(int i = 0; i < size; i++)
+			assertTrue(depth(unionFind, i) <= 12);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void shouldRejectUndoWithoutUnion() {
+		new RollbackUnionFind(2).undo();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRejectSnapshotFromTheFuture() {
+		new RollbackUnionFind(2).rollback(1);
+	}
+
+	private static int depth(RollbackUnionFind unionFind, int element) {
+		int depth = 0;
+		while(unionFind.parent[element] != element) {
+			element = unionFind.parent[element];
+			depth++;
+		}
+		return depth;
+	}
+
+}
@@ -0,0 +1,61 @@
+package my.structures;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SparseUnionFindTest {
+
+	@Test
+	public void shouldUnionSparseIds() {
+		SparseUnionFind unionFind = new SparseUnionFind();
+
+		assertTrue(unionFind.union(1_000_000_000, -7));
+		assertTrue(unionFind.union(0, -7));
+		assertFalse(unionFind.union(0, 1_000_000_000));
+
+		assertThat(unionFind.size(), equalTo(3));
+		assertThat(unionFind.components(), equalTo(1));
+		assertTrue(unionFind.connected(1_000_000_000, 0));
+	}
+
+	@Test
+	public void shouldReturnIdsAsRoots() {
+		SparseUnionFind unionFind = new SparseUnionFind();
+		unionFind.union(42, 4242);
+
+		int root = unionFind.find(42);
+
+		assertTrue(root == 42 || root == 4242);
+		assertThat(unionFind.find(4242), equalTo(root));
+	}
+
+	@Test
+	public void shouldTreatUnseenIdAsSingleton() {
+		SparseUnionFind unionFind = new SparseUnionFind();
+		unionFind.union(1, 2);
+
+		assertThat(unionFind.find(3), equalTo(3));
+		assertFalse(unionFind.connected(1, 3));
+		assertTrue(unionFind.connected(3, 3));
+		assertThat(unionFind.size(), equalTo(2));
+	}
+
+	@Test
+	public void shouldAddIdOnlyOnce() {
+		SparseUnionFind unionFind = new SparseUnionFind(0);
+		for(int i = 0; i < 1000; i++) {
+			unionFind.add(i * 7919);
+			unionFind.add(i * 7919);
+		}
+
+		assertThat(unionFind.size(), equalTo(1000));
+		assertThat(unionFind.components(), equalTo(1000));
+		for(int i = 0; i < 1000; i++)
+			assertThat(unionFind.find(i * 7919), equalTo(i * 7919));
+	}
+
+}
@@ -0,0 +1,97 @@
+package my.structures;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import my.structures.Cache.CacheEntry;
+import my.structures.TimerWheel.TimeUnitNanos;
+
+import org.junit.Test;
+
+public class TimerWheelTest {
+
+	@Test
+	public void shouldExpireEntriesOnceTheirTimeHasPassed() {
+		TimerWheel<Integer, Integer> wheel = new TimerWheel<>(0);
+		List<Integer> expired = new ArrayList<>();
+		wheel.schedule(entry(1, 2 * TimeUnitNanos.SECOND));
+		wheel.schedule(entry(2, 10 * TimeUnitNanos.MINUTE));
+		wheel.schedule(entry(3, 5 * TimeUnitNanos.DAY));
+
+		wheel.advance(3 * TimeUnitNanos.SECOND, entry -> expired.add(entry.key));
+		assertThat(expired, equalTo(Arrays.asList(1)));
+
+		wheel.advance(11 * TimeUnitNanos.MINUTE, entry -> expired.add(entry.key));
+		assertThat(expired, equalTo(Arrays.asList(1, 2)));
+
+		wheel.advance(6 * TimeUnitNanos.DAY, entry -> expired.add(entry.key));
+		assertThat(expired, equalTo(Arrays.asList(1, 2, 3)));
+	}
+
+	@Test
+	public void shouldNotExpireEntriesEarly() {
+		TimerWheel<Integer, Integer> wheel = new TimerWheel<>(0);
+		List<Integer> expired = new ArrayList<>();
+		for(int i = 1; i <= 1000; i++)
+			wheel.schedule(entry(i, i * 997L * TimeUnitNanos.SECOND));
+
+		for(long time = 0; time <= 1001 * 997L * TimeUnitNanos.SECOND; time += 13 * TimeUnitNanos.SECOND) {
+			long now = time;
+			wheel.advance(now, entry -> {
+				assertTrue(entry.expirationTime <= now);
+				expired.add(entry.key);
+			});
+		}
+
+		assertThat(expired.size(), equalTo(1000));
+	}
+
+	@Test
+	public void shouldCascadeEntriesToFinerBuckets() {
+		TimerWheel<Integer, Integer> wheel = new TimerWheel<>(0);
+		CacheEntry<Integer, Integer> entry = entry(1, TimeUnitNanos.HOUR + TimeUnitNanos.SECOND);
+		wheel.schedule(entry);
+
+		wheel.advance(TimeUnitNanos.HOUR, expired -> {
+			throw new AssertionError("Expired early: " + expired.key);
+		});
+
+		assertTrue(TimerWheel.isScheduled(entry));
+		assertTrue(contains(wheel.wheel[0], entry));
+	}
+
+	@Test
+	public void shouldDescheduleEntry() {
+		TimerWheel<Integer, Integer> wheel = new TimerWheel<>(0);
+		CacheEntry<Integer, Integer> entry = entry(1, TimeUnitNanos.SECOND);
+		wheel.schedule(entry);
+
+		wheel.deschedule(entry);
+		wheel.advance(TimeUnitNanos.MINUTE, expired -> {
+			throw new AssertionError("Expired descheduled entry: " + expired.key);
+		});
+
+		assertFalse(TimerWheel.isScheduled(entry));
+	}
+
+	private static CacheEntry<Integer, Integer> entry(int key, long expirationTime) {
+		CacheEntry<Integer, Integer> entry = new CacheEntry<>(key, key, key, null);
+		entry.expirationTime = expirationTime;
+		return entry;
+	}
+
+	private static boolean contains(CacheEntry<Integer, Integer>[] buckets, CacheEntry<Integer, Integer> entry) {
+		for(CacheEntry<Integer, Integer> sentinel : buckets)
+			for(CacheEntry<Integer, Integer> e = sentinel.nextInTimer; e != sentinel; e = e.nextInTimer)
+				if(e == entry)
+					return true;
+		return false;
+	}
+
+}
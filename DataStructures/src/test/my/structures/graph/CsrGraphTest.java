@@ -0,0 +1,88 @@
+package my.structures.graph;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import my.structures.graph.CsrGraph.CsrNode;
+
+import org.junit.Test;
+
+public class CsrGraphTest {
+
+	@Test
+	public void shouldGroupUnsortedEdgesBySourceKeepingTheirOrder() {
+		CsrGraph graph = new CsrGraph.Builder(4, true)
+				.addEdge(2, 0, 0.5f)
+				.addEdge(0, 3, 1.5f)
+				.addEdge(2, 1, 2.5f)
+				.addEdge(0, 1, 3.5f)
+				.build();
+
+		assertThat(graph.vertices(), equalTo(4));
+		assertThat(graph.edges(), equalTo(4));
+		assertThat(graph.offsets(), equalTo(new int[] { 0, 2, 2, 4, 4 }));
+		assertThat(graph.targets(), equalTo(new int[] { 3, 1, 0, 1 }));
+		assertThat(graph.weights(), equalTo(new float[] { 1.5f, 3.5f, 0.5f, 2.5f }));
+	}
+
+	@Test
+	public void shouldReadEdgesThroughNodeView() {
+		CsrGraph graph = new CsrGraph.Builder(3, true)
+				.addUndirectedEdge(0, 1, 2f)
+				.addUndirectedEdge(1, 2, 3f)
+				.build();
+
+		CsrNode node = graph.node(1);
+		List<Integer> neighbors = new ArrayList<>();
+		node.forEachNeighbor(neighbors::add);
+
+		assertThat(node.getNum(), equalTo(1));
+		assertThat(node.degree(), equalTo(2));
+		assertThat(neighbors, equalTo(Arrays.asList(0, 2)));
+		assertThat(node.neighbor(1), equalTo(2));
+		assertThat(node.weight(1), equalTo(3f));
+		assertTrue(node.equals(new Node(1)));
+	}
+
+	@Test
+	public void shouldNotStoreWeightsOfUnweightedGraph() {
+		CsrGraph graph = new CsrGraph.Builder(2, false, 0)
+				.addEdge(0, 1, 7f)
+				.build();
+
+		assertFalse(graph.isWeighted());
+		assertThat(graph.weights(), nullValue());
+		assertThat(graph.weight(0, 0), equalTo(1f));
+	}
+
+	@Test
+	public void shouldGrowWhileAddingEdges() {
+		CsrGraph.Builder builder = new CsrGraph.Builder(1000, false, 0);
+		for(int i = 0; i < 10000; i++)
+			builder.addEdge(i % 1000, (i * 7) % 1000);
+
+		CsrGraph graph = builder.build();
+
+		assertThat(graph.edges(), equalTo(10000));
+		for(int v = 0; v < 1000; v++)
+			assertThat(graph.degree(v), equalTo(10));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRejectUnknownVertex() {
+		new CsrGraph.Builder(2, false).addEdge(0, 2);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void shouldRejectEdgeBeyondDegree() {
+		new CsrGraph.Builder(2, false).addEdge(0, 1).build().neighbor(0, 1);
+	}
+
+}
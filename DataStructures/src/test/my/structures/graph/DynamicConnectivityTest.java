@@ -0,0 +1,100 @@
+package my.structures.graph;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import my.structures.IntUnionFind;
+
+import org.junit.Test;
+
+public class DynamicConnectivityTest {
+
+	@Test
+	public void shouldAnswerQueriesAtTheirPointInTime() {
+		DynamicConnectivity connectivity = new DynamicConnectivity(4);
+		int before = connectivity.query(0, 2);
+		connectivity.addEdge(0, 1);
+		connectivity.addEdge(1, 2);
+		int connected = connectivity.query(0, 2);
+		connectivity.removeEdge(2, 1);
+		int disconnected = connectivity.query(2, 0);
+		connectivity.addEdge(2, 3);
+		connectivity.addEdge(3, 0);
+		int reconnected = connectivity.query(0, 2);
+
+		boolean[] answers = connectivity.solve();
+
+		assertThat(answers[before], equalTo(false));
+		assertThat(answers[connected], equalTo(true));
+		assertThat(answers[disconnected], equalTo(false));
+		assertThat(answers[reconnected], equalTo(true));
+	}
+
+	@Test
+	public void shouldMatchRecomputedConnectivity() {
+		int vertices = 60;
+		Random random = new Random(17);
+		DynamicConnectivity connectivity = new DynamicConnectivity(vertices);
+		Set<Long> present = new HashSet<>();
+		List<Boolean> expected = new ArrayList<>();
+
+		for(int event = 0; event < 5000; event++) {
+			int vertex1 = random.nextInt(vertices);
+			int vertex2 = random.nextInt(vertices);
+			long key = (long) Math.min(vertex1, vertex2) << 32 | Math.max(vertex1, vertex2);
+			switch(random.nextInt(3)) {
+			case 0:
+				if(present.add(key))
+					connectivity.addEdge(vertex1, vertex2);
+				break;
+			case 1:
+				if(present.remove(key))
+					connectivity.removeEdge(vertex1, vertex2);
+				break;
+			default:
+				connectivity.query(vertex1, vertex2);
+				expected.add(connected(vertices, present, vertex1, vertex2));
+			}
+		}
+
+		boolean[] answers = connectivity.solve();
+
+		assertThat(answers.length, equalTo(expected.size()));
+		for(int i = 0; i < answers.length; i++)
+			assertThat(answers[i], equalTo(expected.get(i)));
+	}
+
+	@Test
+	public void shouldAnswerNothingWithoutQueries() {
+		DynamicConnectivity connectivity = new DynamicConnectivity(2);
+		connectivity.addEdge(0, 1);
+
+		assertThat(connectivity.solve().length, equalTo(0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRejectEdgeAddedTwice() {
+		DynamicConnectivity connectivity = new DynamicConnectivity(2);
+		connectivity.addEdge(0, 1);
+		connectivity.addEdge(1, 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRejectRemovalOfMissingEdge() {
+		new DynamicConnectivity(2).removeEdge(0, 1);
+	}
+
+	private static boolean connected(int vertices, Set<Long> edges, int vertex1, int vertex2) {
+		IntUnionFind unionFind = new IntUnionFind(vertices);
+		for(long edge : edges)
+			unionFind.union((int) (edge >>> 32), (int) edge);
+		return unionFind.connected(vertex1, vertex2);
+	}
+
+}
@@ -0,0 +1,117 @@
+package my.structures.graph;
+
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import my.structures.graph.Kruskal.Forest;
+
+import org.junit.Test;
+
+public class KruskalTest {
+
+	@Test
+	public void shouldTakeLightestEdgesNotClosingCycles() {
+		int[] sources = { 0, 0, 1, 1, 2, 3 };
+		int[] targets = { 1, 2, 2, 3, 3, 0 };
+		float[] weights = { 4, 1, 2, 5, 3, 7 };
+
+		Forest forest = Kruskal.minimumSpanningForest(4, sources, targets, weights);
+
+		assertThat(forest.edges(), equalTo(new int[] { 1, 2, 4 }));
+		assertThat(forest.weight(), equalTo(6.0));
+		assertThat(forest.trees(), equalTo(1));
+	}
+
+	@Test
+	public void shouldSpanEveryComponentOfDisconnectedGraph() {
+		int[] sources = { 0, 1, 3 };
+		int[] targets = { 1, 2, 4 };
+		float[] weights = { 1, 1, 1 };
+
+		Forest forest = Kruskal.minimumSpanningForest(6, sources, targets, weights);
+
+		assertThat(forest.edges().length, equalTo(3));
+		assertThat(forest.trees(), equalTo(3));
+	}
+
+	@Test
+	public void shouldOrderNegativeWeightsFirst() {
+		int[] sources = { 0, 0, 1 };
+		int[] targets = { 1, 2, 2 };
+		float[] weights = { 0.0f, -0.5f, -2 };
+
+		Forest forest = Kruskal.minimumSpanningForest(3, sources, targets, weights);
+
+		assertThat(forest.edges(), equalTo(new int[] { 2, 1 }));
+		assertThat(forest.weight(), equalTo(-2.5));
+	}
+
+	@Test
+	public void shouldStopOnceTreeIsComplete() {
+		// the last edge is never looked at, or its unknown vertex would be rejected
+		int[] sources = { 0, 1, 0 };
+		int[] targets = { 1, 2, 99 };
+		float[] weights = { 1, 2, 3 };
+
+		Forest forest = Kruskal.minimumSpanningForest(3, sources, targets, weights);
+
+		assertThat(forest.edges(), equalTo(new int[] { 0, 1 }));
+	}
+
+	@Test
+	public void shouldFindSameWeightAsPrim() {
+		int vertices = 200;
+		int edgeCount = 3000;
+		Random random = new Random(13);
+		int[] sources = new int[edgeCount];
+		int[] targets = new int[edgeCount];
+		float[] weights = new float[edgeCount];
+		float[][] matrix = new float[vertices][vertices];
+		for(float[] row : matrix)
+			Arrays.fill(row, Float.POSITIVE_INFINITY);
+		for(int i = 0; i < edgeCount; i++) {
+			sources[i] = i < vertices - 1 ? i : random.nextInt(vertices);
+			targets[i] = i < vertices - 1 ? i + 1 : random.nextInt(vertices);
+			weights[i] = random.nextInt(10000) / 100f;
+			int s = sources[i];
+			int t = targets[i];
+			matrix[s][t] = matrix[t][s] = Math.min(matrix[s][t], weights[i]);
+		}
+
+		Forest forest = Kruskal.minimumSpanningForest(vertices, sources, targets, weights);
+
+		assertThat(forest.edges().length, equalTo(vertices - 1));
+		assertTrue(Math.abs(forest.weight() - primWeight(matrix)) < 1e-3);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRejectNaNWeight() {
+		Kruskal.minimumSpanningForest(2, new int[] { 0 }, new int[] { 1 }, new float[] { Float.NaN });
+	}
+
+	private static double primWeight(float[][] matrix) {
+		int vertices = matrix.length;
+		boolean[] inTree = new boolean[vertices];
+		float[] distance = new float[vertices];
+		Arrays.fill(distance, Float.POSITIVE_INFINITY);
+		distance[0] = 0;
+		double weight = 0;
+		for(int step = 0; step < vertices; step++) {
+			int next = -1;
+			for(int v = 0; v < vertices; v++)
+				if(!inTree[v] && (next < 0 || distance[v] < distance[next]))
+					next = v;
+			inTree[next] = true;
+			weight += distance[next];
+			for(int v = 0; v < vertices; v++)
+				if(!inTree[v])
+					distance[v] = Math.min(distance[v], matrix[next][v]);
+		}
+		return weight;
+	}
+
+}
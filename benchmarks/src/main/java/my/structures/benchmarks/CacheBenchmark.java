@@ -0,0 +1,103 @@
+package my.structures.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import my.structures.Cache;
+import my.structures.Cache.EvictionPolicy;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput and hit ratio of the eviction policies of {@link Cache} on a skewed trace.
+ *
+ * Two thirds of the trace follow a power law over 100 times maximumSize keys, the other
+ * third are keys seen once, a scan the frequency based policies should not let in. access
+ * gets each key and puts it on a miss; the hits and misses counters give the hit ratio.
+ * create measures building an empty cache, run it with -prof gc for its allocation.
+ *
+ * @author mone
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CacheBenchmark {
+
+	static final int TRACE = 1 << 20;
+	static final int BATCH = 1024;
+
+	@Param({ "LRU", "LFU", "W_TINY_LFU" })
+	EvictionPolicy policy;
+
+	@Param({ "1000", "100000" })
+	int maximumSize;
+
+	Cache<Integer, Integer> cache;
+	Integer[] trace;
+	int next;
+
+
+	@Setup
+	public void generateTrace() {
+		Random random = new Random(7);
+		double universe = 100.0 * maximumSize;
+		trace = new Integer[TRACE];
+		for(int i = 0; i < TRACE; i++) {
+			double u = random.nextDouble();
+			trace[i] = i % 3 == 0 ? -i - 1 : (int) Math.pow(universe, u * u * u);
+		}
+		cache = new Cache<>(maximumSize, policy);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void access(Counters counters) {
+		for(int i = 0; i < BATCH; i++) {
+			Integer key = trace[next];
+			next = next + 1 == TRACE ? 0 : next + 1;
+			if(cache.get(key) != null) {
+				counters.hits++;
+			} else {
+				counters.misses++;
+				cache.put(key, key);
+			}
+		}
+	}
+
+	@Benchmark
+	public Cache<Integer, Integer> create() {
+		return new Cache<>(maximumSize, policy);
+	}
+
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Counters {
+		public long hits;
+		public long misses;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			hits = 0;
+			misses = 0;
+		}
+	}
+
+}
@@ -0,0 +1,110 @@
+package my.structures.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import my.structures.benchmarks.MapImplementation.BenchmarkMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Throughput of get, put and remove on a map filled with size keys, against java.util.HashMap
+ * and fastutil's open addressing map.
+ *
+ * Lookups cycle through a shuffled batch of keys, hitRatio of which are in the map, so the
+ * branch predictor cannot learn the outcome.
+ *
+ * @author mone
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class HashMapBenchmark {
+
+	static final int BATCH = 1024;
+
+	@Param({ "MY_HASH_MAP", "JDK_HASH_MAP", "FASTUTIL_OPEN_HASH_MAP" })
+	MapImplementation implementation;
+
+	@Param({ "1000", "100000", "1000000" })
+	int size;
+
+	@Param({ "0.5", "0.75" })
+	float loadFactor;
+
+	@Param({ "SEQUENTIAL", "RANDOM", "COLLIDING" })
+	KeyDistribution keys;
+
+	@Param({ "1.0", "0.5" })
+	double hitRatio;
+
+	BenchmarkMap<Object, Object> map;
+	Object[] lookups;
+	/** Keys of the map, cycled through by removeAndPut */
+	Object[] present;
+	int next;
+
+
+	@Setup
+	public void fillMap() {
+		map = implementation.create(0, loadFactor);
+		present = keys.keys(0, size);
+		for(Object key : present)
+			map.put(key, key);
+
+		Random random = new Random(7);
+		lookups = new Object[BATCH];
+		for(int i = 0; i < BATCH; i++) {
+			int index = random.nextInt(size);
+			lookups[i] = random.nextDouble() < hitRatio ? present[index] : keys.key(size + index);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void get(Blackhole blackhole) {
+		for(Object key : lookups)
+			blackhole.consume(map.get(key));
+	}
+
+	/**
+	 * Puts replacing values of the lookups present, adding then removing the missing ones.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void put(Blackhole blackhole) {
+		for(Object key : lookups) {
+			if(map.put(key, key) == null)
+				blackhole.consume(map.remove(key));
+		}
+	}
+
+	/**
+	 * Removes a key and puts it back, the size staying the same.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(2)
+	public Object removeAndPut() {
+		Object key = present[next];
+		next = next + 1 == present.length ? 0 : next + 1;
+		map.remove(key);
+		return map.put(key, key);
+	}
+
+}
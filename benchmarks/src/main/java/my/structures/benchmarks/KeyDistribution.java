@@ -0,0 +1,78 @@
+package my.structures.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Keys the map benchmarks are run with. Keys of index i and of index i + size never collide
+ * by equality, so misses are made from the indices past the size.
+ *
+ * @author mone
+ *
+ */
+public enum KeyDistribution {
+
+	/** Consecutive Integers, the friendliest case for identity hashing */
+	SEQUENTIAL {
+		@Override
+		Object key(int index) {
+			return index;
+		}
+	},
+	/** Integers scattered over the whole int range by a bijective multiplicative mix */
+	RANDOM {
+		@Override
+		Object key(int index) {
+			return index * 0x9E3779B9 ^ SEED;
+		}
+	},
+	/**
+	 * Comparable keys sharing their hash code by groups of COLLISIONS, so that every bucket
+	 * holds a tree in maps treeifying long chains, and a long chain or probe run in others.
+	 */
+	COLLIDING {
+		@Override
+		Object key(int index) {
+			return new CollidingKey(index);
+		}
+	};
+
+	static final int SEED = new Random(42).nextInt();
+	static final int COLLISIONS = 16;
+
+	abstract Object key(int index);
+
+	/**
+	 * @return keys of indices from..to-1
+	 */
+	Object[] keys(int from, int to) {
+		Object[] keys = new Object[to - from];
+		for(int i = from; i < to; i++)
+			keys[i - from] = key(i);
+		return keys;
+	}
+
+
+	static final class CollidingKey implements Comparable<CollidingKey> {
+		final int id;
+
+		CollidingKey(int id) {
+			this.id = id;
+		}
+
+		@Override
+		public int hashCode() {
+			return (id / COLLISIONS) * 0x9E3779B9;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof CollidingKey && ((CollidingKey) obj).id == id;
+		}
+
+		@Override
+		public int compareTo(CollidingKey other) {
+			return Integer.compare(id, other.id);
+		}
+	}
+
+}
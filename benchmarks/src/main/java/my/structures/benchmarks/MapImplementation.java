@@ -0,0 +1,146 @@
+package my.structures.benchmarks;
+
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import my.structures.HashMap;
+import my.structures.HashSet;
+
+/**
+ * Maps compared by the benchmarks, behind a common put/get/remove interface. Every fork only
+ * ever loads one implementation, so the interface calls are inlined as direct ones.
+ *
+ * @author mone
+ *
+ */
+public enum MapImplementation {
+
+	MY_HASH_MAP {
+		@Override
+		<K,V> BenchmarkMap<K,V> create(int initialCapacity, float loadFactor) {
+			return wrap(new HashMap<K,V>(initialCapacity, loadFactor));
+		}
+	},
+	/**
+	 * MY_HASH_MAP once a HashSet has run through the code they share, so that its call sites
+	 * have also seen the key-only entries of sets
+	 */
+	MY_HASH_MAP_AFTER_SET {
+		@Override
+		<K,V> BenchmarkMap<K,V> create(int initialCapacity, float loadFactor) {
+			exerciseHashSet();
+			return wrap(new HashMap<K,V>(initialCapacity, loadFactor));
+		}
+	},
+	MY_HASH_MAP_INCREMENTAL {
+		@Override
+		<K,V> BenchmarkMap<K,V> create(int initialCapacity, float loadFactor) {
+			return wrap(new HashMap<K,V>(initialCapacity, loadFactor, my.structures.Hashing.identity(), true));
+		}
+	},
+	JDK_HASH_MAP {
+		@Override
+		<K,V> BenchmarkMap<K,V> create(int initialCapacity, float loadFactor) {
+			java.util.HashMap<K,V> map = new java.util.HashMap<>(initialCapacity, loadFactor);
+			return new BenchmarkMap<K,V>() {
+				@Override
+				public V put(K key, V value) {
+					return map.put(key, value);
+				}
+				@Override
+				public V get(K key) {
+					return map.get(key);
+				}
+				@Override
+				public V remove(K key) {
+					return map.remove(key);
+				}
+				@Override
+				public int size() {
+					return map.size();
+				}
+			};
+		}
+	},
+	FASTUTIL_OPEN_HASH_MAP {
+		@Override
+		<K,V> BenchmarkMap<K,V> create(int initialCapacity, float loadFactor) {
+			Object2ObjectOpenHashMap<K,V> map = new Object2ObjectOpenHashMap<>(initialCapacity, Math.min(loadFactor, 1f));
+			return new BenchmarkMap<K,V>() {
+				@Override
+				public V put(K key, V value) {
+					return map.put(key, value);
+				}
+				@Override
+				public V get(K key) {
+					return map.get(key);
+				}
+				@Override
+				public V remove(K key) {
+					return map.remove(key);
+				}
+				@Override
+				public int size() {
+					return map.size();
+				}
+			};
+		}
+	};
+
+	/**
+	 * @param initialCapacity expected number of mappings, 0 for the smallest table
+	 */
+	abstract <K,V> BenchmarkMap<K,V> create(int initialCapacity, float loadFactor);
+
+	/**
+	 * Adds, adds again, walks and removes the elements of a set, long enough for the JIT to
+	 * profile these calls.
+	 */
+	private static void exerciseHashSet() {
+		HashSet<Integer> set = new HashSet<>();
+		long sum = 0;
+		for(int round = 0; round < 200; round++) {
+			for(int i = 0; i < 10_000; i++) {
+				set.add(i);
+				set.add(i);
+			}
+			for(Integer element : set)
+				sum += element;
+			for(int i = 0; i < 10_000; i++)
+				set.remove(i);
+		}
+		if(sum != 200L * 10_000 * 9_999 / 2)
+			throw new IllegalStateException("Lost elements");
+	}
+
+	private static <K,V> BenchmarkMap<K,V> wrap(HashMap<K,V> map) {
+		return new BenchmarkMap<K,V>() {
+			@Override
+			public V put(K key, V value) {
+				return map.put(key, value);
+			}
+			@Override
+			public V get(K key) {
+				return map.get(key);
+			}
+			@Override
+			public V remove(K key) {
+				return map.remove(key);
+			}
+			@Override
+			public int size() {
+				return map.size();
+			}
+		};
+	}
+
+
+	public interface BenchmarkMap<K,V> {
+		V put(K key, V value);
+
+		V get(K key);
+
+		V remove(K key);
+
+		int size();
+	}
+
+}
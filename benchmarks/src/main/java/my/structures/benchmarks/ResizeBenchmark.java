@@ -0,0 +1,82 @@
+package my.structures.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import my.structures.benchmarks.MapImplementation.BenchmarkMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Resize heavy workloads: maps grown from their smallest table one key at a time.
+ *
+ * fill reports the average time to build a map of size keys. put samples the latency of
+ * single puts into an ever growing map, its high percentiles showing the pauses of blocking
+ * resizes, which incremental resizing spreads over the following operations.
+ *
+ * @author mone
+ *
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ResizeBenchmark {
+
+	/** Keys put before put starts over with a new map, bounding the heap used */
+	static final int MAXIMUM_SIZE = 1 << 22;
+
+	@Param({ "MY_HASH_MAP", "MY_HASH_MAP_INCREMENTAL", "JDK_HASH_MAP", "FASTUTIL_OPEN_HASH_MAP" })
+	MapImplementation implementation;
+
+	@Param({ "100000", "1000000" })
+	int size;
+
+	@Param({ "SEQUENTIAL", "RANDOM" })
+	KeyDistribution keys;
+
+	Object[] fillKeys;
+	Object[] putKeys;
+	BenchmarkMap<Object, Object> growingMap;
+	int next;
+
+
+	@Setup
+	public void generateKeys() {
+		fillKeys = keys.keys(0, size);
+		putKeys = keys.keys(0, MAXIMUM_SIZE);
+		growingMap = implementation.create(0, 0.75f);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public BenchmarkMap<Object, Object> fill() {
+		BenchmarkMap<Object, Object> map = implementation.create(0, 0.75f);
+		for(Object key : fillKeys)
+			map.put(key, key);
+		return map;
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SampleTime)
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public Object put() {
+		if(next == MAXIMUM_SIZE) {
+			growingMap = implementation.create(0, 0.75f);
+			next = 0;
+		}
+		Object key = putKeys[next++];
+		return growingMap.put(key, key);
+	}
+
+}
@@ -0,0 +1,201 @@
+package my.structures.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import my.structures.ConcurrentUnionFind;
+import my.structures.IntUnionFind;
+import my.structures.RollbackUnionFind;
+import my.structures.UnionFind;
+import my.structures.graph.Node;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * union and find of the union find implementations, on random graphs and on graphs built to
+ * make trees as deep as their linking rule allows.
+ *
+ * unionAll builds a new union find from all edges, allocation included. find looks up
+ * random elements of a union find holding all edges.
+ *
+ * @author mone
+ *
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class UnionFindBenchmark {
+
+	static final int BATCH = 1024;
+
+	public enum Implementation {
+		OBJECT, INT, CONCURRENT, ROLLBACK
+	}
+
+	public enum Graph {
+		/** As many edges as vertices between random vertices */
+		RANDOM,
+		/** Path 0 - 1 - ... - n-1 united in order, a linked list for naive linking */
+		PATH,
+		/**
+		 * Unions of sets of equal size, pairs first, then pairs of pairs and so on: binomial
+		 * trees, the deepest linking by rank or size can build
+		 */
+		BINOMIAL
+	}
+
+	@Param({ "OBJECT", "INT", "CONCURRENT", "ROLLBACK" })
+	Implementation implementation;
+
+	@Param({ "RANDOM", "PATH", "BINOMIAL" })
+	Graph graph;
+
+	@Param({ "65536", "1048576" })
+	int size;
+
+	int[] sources;
+	int[] targets;
+	Node[] nodes;
+	UnionFindAdapter built;
+	int[] lookups;
+
+
+	@Setup
+	public void buildGraph() {
+		Random random = new Random(7);
+		switch(graph) {
+		case RANDOM:
+			sources = new int[size];
+			targets = new int[size];
+			for(int i = 0; i < size; i++) {
+				sources[i] = random.nextInt(size);
+				targets[i] = random.nextInt(size);
+			}
+			break;
+		case PATH:
+			sources = new int[size - 1];
+			targets = new int[size - 1];
+			for(int i = 0; i < size - 1; i++) {
+				sources[i] = i;
+				targets[i] = i + 1;
+			}
+			break;
+		default:
+			sources = new int[size - 1];
+			targets = new int[size - 1];
+			int edge = 0;
+			for(int step = 1; step < size; step <<= 1) {
+				for(int i = 0; i + step < size; i += 2 * step) {
+					sources[edge] = i + step;
+					targets[edge++] = i;
+				}
+			}
+		}
+
+		nodes = new Node[size];
+		for(int i = 0; i < size; i++)
+			nodes[i] = new Node(i);
+
+		built = newUnionFind();
+		for(int i = 0; i < sources.length; i++)
+			built.union(sources[i], targets[i]);
+		lookups = new int[BATCH];
+		for(int i = 0; i < BATCH; i++)
+			lookups[i] = random.nextInt(size);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public UnionFindAdapter unionAll() {
+		UnionFindAdapter unionFind = newUnionFind();
+		for(int i = 0; i < sources.length; i++)
+			unionFind.union(sources[i], targets[i]);
+		return unionFind;
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@OperationsPerInvocation(BATCH)
+	public void find(Blackhole blackhole) {
+		for(int element : lookups)
+			blackhole.consume(built.find(element));
+	}
+
+	private UnionFindAdapter newUnionFind() {
+		switch(implementation) {
+		case OBJECT:
+			UnionFind<Node> unionFind = new UnionFind<>();
+			for(Node node : nodes)
+				unionFind.add(node);
+			return new UnionFindAdapter() {
+				@Override
+				public boolean union(int element1, int element2) {
+					return unionFind.union(nodes[element1], nodes[element2]);
+				}
+				@Override
+				public int find(int element) {
+					return unionFind.find(nodes[element]).getNum();
+				}
+			};
+		case INT:
+			IntUnionFind intUnionFind = new IntUnionFind(size);
+			return new UnionFindAdapter() {
+				@Override
+				public boolean union(int element1, int element2) {
+					return intUnionFind.union(element1, element2);
+				}
+				@Override
+				public int find(int element) {
+					return intUnionFind.find(element);
+				}
+			};
+		case CONCURRENT:
+			ConcurrentUnionFind concurrentUnionFind = new ConcurrentUnionFind(size);
+			return new UnionFindAdapter() {
+				@Override
+				public boolean union(int element1, int element2) {
+					return concurrentUnionFind.union(element1, element2);
+				}
+				@Override
+				public int find(int element) {
+					return concurrentUnionFind.find(element);
+				}
+			};
+		default:
+			RollbackUnionFind rollbackUnionFind = new RollbackUnionFind(size);
+			return new UnionFindAdapter() {
+				@Override
+				public boolean union(int element1, int element2) {
+					return rollbackUnionFind.union(element1, element2);
+				}
+				@Override
+				public int find(int element) {
+					return rollbackUnionFind.find(element);
+				}
+			};
+		}
+	}
+
+
+	public interface UnionFindAdapter {
+		boolean union(int element1, int element2);
+
+		int find(int element);
+	}
+
+}